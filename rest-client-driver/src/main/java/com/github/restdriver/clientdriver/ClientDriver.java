@@ -15,19 +15,27 @@
  */
 package com.github.restdriver.clientdriver;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
+import org.eclipse.jetty.util.thread.ThreadPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.restdriver.PortReservation;
 import com.github.restdriver.clientdriver.exception.ClientDriverFailedExpectationException;
 import com.github.restdriver.clientdriver.exception.ClientDriverInternalException;
 import com.github.restdriver.clientdriver.exception.ClientDriverSetupException;
+import com.github.restdriver.clientdriver.jetty.AwaitableClientDriverJettyHandler;
 import com.github.restdriver.clientdriver.jetty.ClientDriverJettyHandler;
+import com.github.restdriver.clientdriver.jetty.UnixDomainServerConnector;
 
 /**
  * The main class which acts as a facade for the Client Driver.
@@ -35,9 +43,15 @@ import com.github.restdriver.clientdriver.jetty.ClientDriverJettyHandler;
 public class ClientDriver {
     
     private static final Logger LOGGER = LoggerFactory.getLogger(ClientDriver.class);
+    private static final long RECYCLE_IDLE_TIMEOUT_SECONDS = 5;
     protected Server jettyServer;
     private ServerConnector jettyServerConnector;
     private int port = -1;
+    private ThreadPool threadPool;
+    private int acceptors = -1;
+    private int selectors = -1;
+    private PortReservation portReservation;
+    private File unixSocket;
     private List<ClientDriverListener> listeners = new ArrayList<ClientDriverListener>();
     protected ClientDriverJettyHandler handler;
     
@@ -66,7 +80,81 @@ public class ClientDriver {
         this.handler = handler;
         this.jettyServer = createAndStartJetty(port);
     }
+    
+    /**
+     * Constructor. This will bind to the given port and start the server
+     * up before it returns, using the given threads to serve requests.
+     * {@link ClientDriverFactory} is the easier way to call this.
+     * 
+     * @param handler
+     *            The {@link ClientDriverJettyHandler} to use.
+     * @param port
+     *            The port to listen on, or 0 to find a free port.
+     * @param threadPool
+     *            The threads which accept connections and serve requests.
+     * @param acceptors
+     *            The number of threads accepting connections, or -1 for Jetty's default.
+     * @param selectors
+     *            The number of threads selecting on connections, or -1 for Jetty's default.
+     */
+    public ClientDriver(ClientDriverJettyHandler handler, int port, ThreadPool threadPool, int acceptors, int selectors) {
+        this.handler = handler;
+        this.threadPool = threadPool;
+        this.acceptors = acceptors;
+        this.selectors = selectors;
+        this.jettyServer = createAndStartJetty(port);
+    }
 
+    /**
+     * Constructor. This will accept connections on an already bound port and start the server up before it returns, so no other process can take
+     * the port in between. The reservation is closed when the driver is shut down.
+     * {@link ClientDriverFactory} is the easier way to call this.
+     * 
+     * @param handler
+     *            The {@link ClientDriverJettyHandler} to use.
+     * @param portReservation
+     *            The bound port, from {@link com.github.restdriver.PortAllocator}.
+     * @param threadPool
+     *            The threads which accept connections and serve requests.
+     * @param acceptors
+     *            The number of threads accepting connections, or -1 for Jetty's default.
+     * @param selectors
+     *            The number of threads selecting on connections, or -1 for Jetty's default.
+     */
+    public ClientDriver(ClientDriverJettyHandler handler, PortReservation portReservation, ThreadPool threadPool, int acceptors, int selectors) {
+        this.handler = handler;
+        this.portReservation = portReservation;
+        this.threadPool = threadPool;
+        this.acceptors = acceptors;
+        this.selectors = selectors;
+        this.jettyServer = createAndStartJetty(portReservation.getPort());
+    }
+    
+    /**
+     * Constructor. This will listen on a Unix domain socket instead of a TCP port and start the server up before it returns, so that local clients
+     * avoid the TCP loopback stack. The socket file is deleted when the driver is shut down. Unix domain sockets need Java 16 or later.
+     * {@link ClientDriverFactory} is the easier way to call this.
+     * 
+     * @param handler
+     *            The {@link ClientDriverJettyHandler} to use.
+     * @param unixSocket
+     *            The socket file to create, which must not exist yet.
+     * @param threadPool
+     *            The threads which accept connections and serve requests.
+     * @param acceptors
+     *            The number of threads accepting connections, or -1 for one.
+     * @param selectors
+     *            The number of threads selecting on connections, or -1 for Jetty's default.
+     */
+    public ClientDriver(ClientDriverJettyHandler handler, File unixSocket, ThreadPool threadPool, int acceptors, int selectors) {
+        this.handler = handler;
+        this.unixSocket = unixSocket;
+        this.threadPool = threadPool;
+        this.acceptors = acceptors;
+        this.selectors = selectors;
+        this.jettyServer = createAndStartJettyOnUnixSocket();
+    }
+    
     /**
      * Convenience constructor for extending classes. This allows overwriting
      * and customization of the setup procedure.
@@ -76,26 +164,83 @@ public class ClientDriver {
     }
 
     protected Server createAndStartJetty(int port) {
-        Server jetty = new Server();
-        jetty.setHandler(handler);
+        long started = System.nanoTime();
+        
+        Server jetty = createServer();
         ServerConnector connector = createConnector(jetty, port);
         jetty.addConnector(connector);
+        long created = System.nanoTime();
+        
+        try {
+            if (portReservation == null) {
+                connector.open();
+            } else {
+                connector.open(portReservation.takeChannel());
+            }
+        } catch (Exception e) {
+            throw new ClientDriverSetupException("Error binding to port " + port, e);
+        }
+        long bound = System.nanoTime();
+        
         try {
             jetty.start();
         } catch (Exception e) {
             throw new ClientDriverSetupException("Error starting jetty on port " + port, e);
         }
+        long finished = System.nanoTime();
+        
         this.port = connector.getLocalPort();
         this.jettyServerConnector = connector;
+        
+        LOGGER.info("Started on port {} in {} ms: server creation {} ms, connector bind {} ms, handler and thread start {} ms", this.port,
+                millis(finished - started), millis(created - started), millis(bound - created), millis(finished - bound));
+        
+        return jetty;
+    }
+    
+    private Server createAndStartJettyOnUnixSocket() {
+        long started = System.nanoTime();
+        
+        Server jetty = createServer();
+        UnixDomainServerConnector connector = new UnixDomainServerConnector(jetty, unixSocket, acceptors, selectors);
+        jetty.addConnector(connector);
+        long created = System.nanoTime();
+        
+        connector.open();
+        long bound = System.nanoTime();
+        
+        try {
+            jetty.start();
+        } catch (Exception e) {
+            throw new ClientDriverSetupException("Error starting jetty on Unix domain socket " + unixSocket, e);
+        }
+        long finished = System.nanoTime();
+        
+        LOGGER.info("Started on Unix domain socket {} in {} ms: server creation {} ms, connector bind {} ms, handler and thread start {} ms",
+                unixSocket, millis(finished - started), millis(created - started), millis(bound - created), millis(finished - bound));
+        
+        return jetty;
+    }
+    
+    private Server createServer() {
+        // the first server created also pays for loading Jetty's classes
+        Server jetty = threadPool == null ? new Server() : new Server(threadPool);
+        // shared by every connector, so replacing the connector doesn't start a new scheduler thread
+        jetty.addBean(new ScheduledExecutorScheduler(String.format("ClientDriver-Scheduler-%x", jetty.hashCode()), true));
+        jetty.setHandler(handler);
         return jetty;
     }
+    
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
 
-    protected SslContextFactory getSslContextFactory() {
+    protected SslContextFactory.Server getSslContextFactory() {
         return null;
     }
 
     protected ServerConnector createConnector(Server jetty, int port) {
-        ServerConnector connector = new ServerConnector(jetty, getSslContextFactory());
+        ServerConnector connector = new ServerConnector(jetty, acceptors, selectors, getSslContextFactory());
         connector.setHost(null);
         connector.setPort(port);
         return connector;
@@ -126,13 +271,25 @@ public class ClientDriver {
     /**
      * Get the base URL which the ClientDriver is running on.
      * 
-     * @return <p>The base URL, which will be like "http://localhost:xxxx".</p>
+     * @return <p>The base URL, which will be like "http://localhost:xxxx", or "http://localhost" when listening on a Unix domain socket.</p>
      *         <p><b>There is no trailing slash on this</b></p>
      */
     public String getBaseUrl() {
+        if (unixSocket != null) {
+            return "http://localhost";
+        }
         return "http://localhost:" + port;
     }
     
+    /**
+     * Get the Unix domain socket which the ClientDriver is listening on.
+     * 
+     * @return The socket file, or null if the driver listens on a TCP port
+     */
+    public File getUnixSocket() {
+        return unixSocket;
+    }
+    
     /**
      * Verifies that all expectations have been met and nothing unexpected has been requested.
      * 
@@ -164,6 +321,7 @@ public class ClientDriver {
     public void shutdownQuietly() {
         try {
             jettyServer.stop();
+            releasePortReservation();
         } catch (Exception e) {
             throw new ClientDriverInternalException("Error shutting down jetty", e);
         } finally {
@@ -171,6 +329,13 @@ public class ClientDriver {
         }
     }
     
+    private void releasePortReservation() throws IOException {
+        if (portReservation != null) {
+            portReservation.close();
+            portReservation = null;
+        }
+    }
+    
     /**
      * Shutdown the server and calls {@link #verify()}.
      */
@@ -197,13 +362,90 @@ public class ClientDriver {
         listeners.add(listener);
     }
     
-    private void completed() {
+    void completed() {
         for (ClientDriverListener listener : listeners) {
             listener.hasCompleted();
         }
     }
+    
+    void clearListeners() {
+        listeners.clear();
+    }
+    
+    /**
+     * Make this driver ready to be used again without restarting Jetty. It moves to a new free port, so that requests meant for the last user
+     * can't reach the next one, waits briefly for requests which are still being handled, then forgets all expectations and requests.
+     */
+    void recycle() {
+        if (unixSocket != null) {
+            // connections from the last user could still reach the next one through the same socket file
+            throw new ClientDriverInternalException("A client driver on a Unix domain socket can't be recycled", null);
+        }
+        
+        ServerConnector connector = createConnector(jettyServer, 0);
+        replaceConnector(connector, jettyServer);
+        jettyServerConnector = connector;
+        port = connector.getLocalPort();
+        
+        try {
+            releasePortReservation();
+        } catch (IOException e) {
+            LOGGER.warn("Error releasing port reservation", e);
+        }
+        
+        if (handler instanceof AwaitableClientDriverJettyHandler) {
+            try {
+                ((AwaitableClientDriverJettyHandler) handler).awaitIdle(RECYCLE_IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (ClientDriverFailedExpectationException e) {
+                LOGGER.warn("Recycling a client driver which is still handling requests: {}", e.getMessage());
+            }
+        }
+        
+        handler.reset();
+    }
 
     public void verify(ClientDriverRequest clientDriverRequest, int times) {
         handler.verify(clientDriverRequest, times);
     }
+    
+    /**
+     * Wait until a request has been matched a number of times, for testing clients which send requests asynchronously. The request must be the
+     * same instance that was passed to {@link #addExpectation(ClientDriverRequest, ClientDriverResponse)}. Matches are counted from the start of
+     * the test, so requests which arrived before this is called count too.
+     * 
+     * If the request isn't matched often enough in time, a {@link ClientDriverFailedExpectationException} is thrown.
+     * 
+     * @param request
+     *            The expected request
+     * @param count
+     *            The number of matches to wait for
+     * @param timeout
+     *            How long to wait at most
+     * @param unit
+     *            The unit of the timeout
+     */
+    public void await(ClientDriverRequest request, int count, long timeout, TimeUnit unit) {
+        awaitableHandler().await(request, count, timeout, unit);
+    }
+    
+    /**
+     * Wait until every request which has arrived has been responded to.
+     * 
+     * If requests are still being handled when the timeout passes, a {@link ClientDriverFailedExpectationException} is thrown.
+     * 
+     * @param timeout
+     *            How long to wait at most
+     * @param unit
+     *            The unit of the timeout
+     */
+    public void awaitIdle(long timeout, TimeUnit unit) {
+        awaitableHandler().awaitIdle(timeout, unit);
+    }
+    
+    private AwaitableClientDriverJettyHandler awaitableHandler() {
+        if (!(handler instanceof AwaitableClientDriverJettyHandler)) {
+            throw new UnsupportedOperationException(handler.getClass().getName() + " doesn't support waiting for requests");
+        }
+        return (AwaitableClientDriverJettyHandler) handler;
+    }
 }
@@ -15,18 +15,26 @@
  */
 package com.github.restdriver.clientdriver;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import com.github.restdriver.clientdriver.exception.ClientDriverInvalidExpectationException;
+import com.github.restdriver.clientdriver.exception.ClientDriverRequestTooLargeException;
 
 /**
  * An expectation made within the client driver.
+ * 
+ * <p>
+ * Expectations may be matched from several threads at once. Use {@link #tryMatch(HttpRealRequest)} to claim one of the matches an expectation allows.
+ * </p>
  */
 public class ClientDriverExpectation {
     
     private final ClientDriverRequestResponsePair pair;
-    private int numberOfTimes = 1;
-    private int numberOfMatches;
-    private boolean matchAnyTimes;
-    private MatchedRequestHandler matchedRequestHandler = new NullRequestHandler();
+    private final AtomicInteger numberOfMatches = new AtomicInteger();
+    private final AtomicInteger numberOfResponses = new AtomicInteger();
+    private volatile int numberOfTimes = 1;
+    private volatile boolean matchAnyTimes;
+    private volatile MatchedRequestHandler matchedRequestHandler = new NullRequestHandler();
     
     /**
      * Creates a new expectation instance.
@@ -79,9 +87,59 @@ public class ClientDriverExpectation {
      *          the request we're matching against
      */
     public final void match(HttpRealRequest realRequest) {
-        numberOfMatches += 1;
+        numberOfMatches.incrementAndGet();
+        
+        notifyMatch(realRequest);
+    }
+    
+    /**
+     * Atomically claim a match on this expectation, unless it has already been matched as many times as it should be.
+     * 
+     * @param realRequest
+     *          the request we're matching against
+     * @return True if the match was claimed, false if the expectation was already satisfied
+     */
+    public final boolean tryMatch(HttpRealRequest realRequest) {
+        
+        while (true) {
+            int matches = numberOfMatches.get();
+            
+            if (!matchAnyTimes && matches >= numberOfTimes) {
+                return false;
+            }
+            
+            if (numberOfMatches.compareAndSet(matches, matches + 1)) {
+                break;
+            }
+        }
+        
+        notifyMatch(realRequest);
+        return true;
+    }
+    
+    /**
+     * Whether a handler has been set with {@link #whenMatched(MatchedRequestHandler)}.
+     * 
+     * @return True if matches are passed to a handler
+     */
+    public final boolean hasMatchedRequestHandler() {
+        return !(matchedRequestHandler instanceof NullRequestHandler);
+    }
+    
+    private void notifyMatch(HttpRealRequest realRequest) {
+        MatchedRequestHandler handler = matchedRequestHandler;
+        
+        if (!(handler instanceof NullRequestHandler)) {
+            // the handler may keep the request, and Jetty reuses its request objects once the response has been sent, so read the body while we can
+            try {
+                realRequest.getBodyContent();
+            } catch (ClientDriverRequestTooLargeException e) {
+                // detached without its body, see HttpRealRequest#isBodyTooLarge()
+            }
+            realRequest.detach();
+        }
         
-        matchedRequestHandler.onMatch(realRequest);
+        handler.onMatch(realRequest);
     }
     
     /**
@@ -90,7 +148,32 @@ public class ClientDriverExpectation {
      * @return True if the expectation has been matched as many times as it should have
      */
     public final boolean isSatisfied() {
-        return !matchAnyTimes && numberOfTimes == numberOfMatches;
+        return !matchAnyTimes && numberOfTimes == numberOfMatches.get();
+    }
+    
+    /**
+     * How many times this expectation has been matched so far.
+     * 
+     * @return The number of matches
+     */
+    public final int getNumberOfMatches() {
+        return numberOfMatches.get();
+    }
+    
+    /**
+     * Indicate that the response to one of this expectation's matches has been sent, or has failed.
+     */
+    public final void responded() {
+        numberOfResponses.incrementAndGet();
+    }
+    
+    /**
+     * Determine whether this expectation has been satisfied and every one of its responses has been sent.
+     * 
+     * @return True if the expectation is satisfied and nothing is still responding to it
+     */
+    public final boolean isCompleted() {
+        return isSatisfied() && numberOfResponses.get() >= numberOfTimes;
     }
     
     /**
@@ -117,13 +200,18 @@ public class ClientDriverExpectation {
             expectedString = String.valueOf(numberOfTimes);
         }
         
-        return "expected: " + expectedString + ", actual: " + numberOfMatches;
+        return "expected: " + expectedString + ", actual: " + numberOfMatches.get();
         
     }
     
     /**
      * When a call is matched call a handler
      * 
+     * <p>
+     * The request is {@link HttpRealRequest#detach() detached} before the handler is called, so it can be kept and read after the response has been
+     * sent. This means its whole body is read, even when nothing else needs it.
+     * </p>
+     * 
      * @param matchedRequestHandler called when the request is matched
      * @return The expectation
      */
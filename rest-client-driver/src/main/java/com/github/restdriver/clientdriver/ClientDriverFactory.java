@@ -15,26 +15,103 @@
  */
 package com.github.restdriver.clientdriver;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.commons.lang.Validate;
+import org.eclipse.jetty.util.BlockingArrayQueue;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.restdriver.PortReservation;
+import com.github.restdriver.clientdriver.exception.ClientDriverSetupException;
 import com.github.restdriver.clientdriver.jetty.DefaultClientDriverJettyHandler;
+import com.github.restdriver.clientdriver.jetty.VirtualThreadPool;
 
 /**
  * Main entry point to the Rest Client Driver.
+ * 
+ * <p>
+ * The server's threads can be tuned before building the driver, for example when many clients connect to it at once:
+ * </p>
+ * 
+ * <pre>
+ * {@code
+ * ClientDriver driver = new ClientDriverFactory()
+ *         .maxThreads(500)
+ *         .selectors(4)
+ *         .maxQueuedRequests(10000)
+ *         .build();
+ * }
+ * </pre>
  */
 public final class ClientDriverFactory {
     private static final Logger LOGGER = LoggerFactory.getLogger(ClientDriverFactory.class);
     
+    private static final int DEFAULT_MAX_THREADS = 200;
+    private static final int DEFAULT_MIN_THREADS = 8;
+    private static final int IDLE_TIMEOUT_MILLIS = 60000;
+    private static final int JETTY_DEFAULT = -1;
+    private static final ExecutorService STARTUP_EXECUTOR = createStartupExecutor();
+    
+    private int port = 0;
+    private PortReservation portReservation;
+    private File unixSocket;
+    private int maxThreads = DEFAULT_MAX_THREADS;
+    private int minThreads = DEFAULT_MIN_THREADS;
+    private int maxQueuedRequests = JETTY_DEFAULT;
+    private int acceptors = JETTY_DEFAULT;
+    private int selectors = JETTY_DEFAULT;
+    private boolean virtualThreads;
+    private boolean daemonThreads;
+    private int journalCapacity = DefaultClientDriverJettyHandler.UNLIMITED;
+    private int maxJournaledBodyBytes = DefaultClientDriverJettyHandler.UNLIMITED;
+    private long maxRequestBodyBytes = DefaultClientDriverJettyHandler.UNLIMITED;
+    
+    /**
+     * Creates a factory with the default settings.
+     */
+    public ClientDriverFactory() {
+    }
+    
+    /**
+     * Copies the settings of another factory, so that drivers started on other threads aren't affected by later changes to it.
+     * 
+     * @param settings the factory to copy
+     */
+    private ClientDriverFactory(ClientDriverFactory settings) {
+        this.port = settings.port;
+        this.portReservation = settings.portReservation;
+        this.unixSocket = settings.unixSocket;
+        this.maxThreads = settings.maxThreads;
+        this.minThreads = settings.minThreads;
+        this.maxQueuedRequests = settings.maxQueuedRequests;
+        this.acceptors = settings.acceptors;
+        this.selectors = settings.selectors;
+        this.virtualThreads = settings.virtualThreads;
+        this.daemonThreads = settings.daemonThreads;
+        this.journalCapacity = settings.journalCapacity;
+        this.maxJournaledBodyBytes = settings.maxJournaledBodyBytes;
+        this.maxRequestBodyBytes = settings.maxRequestBodyBytes;
+    }
+    
     /**
      * Factory method to create and start a {@link ClientDriver}. A port will be chosen automatically.
      * 
      * @return A new {@link ClientDriver}, which has found a free port, bound to it and started up.
      */
     public ClientDriver createClientDriver() {
-        ClientDriver clientDriver = new ClientDriver(new DefaultClientDriverJettyHandler(new DefaultRequestMatcher()));
-        LOGGER.debug("ClientDriver created at '" + clientDriver.getBaseUrl() + "'.");
-        return clientDriver;
+        return build();
     }
     
     /**
@@ -46,9 +123,339 @@ public final class ClientDriverFactory {
      * @return A new {@link ClientDriver}, which has found a free port, bound to it and started up.
      */
     public ClientDriver createClientDriver(int port) {
-        ClientDriver clientDriver = new ClientDriver(new DefaultClientDriverJettyHandler(new DefaultRequestMatcher()), port);
+        return build(port, null, null);
+    }
+    
+    /**
+     * Sets the port. By default the port is set to 0, which results in a freely chosen port.
+     * 
+     * @param port the port
+     * @return the factory object
+     */
+    public ClientDriverFactory port(int port) {
+        this.port = port;
+        this.portReservation = null;
+        this.unixSocket = null;
+        return this;
+    }
+    
+    /**
+     * Sets a port which is already bound, from {@link com.github.restdriver.PortAllocator}. The driver accepts connections on it directly, so no other
+     * process can take the port between choosing and binding it. A reservation can only be used by one driver.
+     * 
+     * @param portReservation the bound port
+     * @return the factory object
+     */
+    public ClientDriverFactory port(PortReservation portReservation) {
+        this.port = portReservation.getPort();
+        this.portReservation = portReservation;
+        this.unixSocket = null;
+        return this;
+    }
+    
+    /**
+     * Listen on a Unix domain socket instead of a TCP port, so that clients on the same machine avoid the TCP loopback stack and no port is
+     * needed at all. The socket file is created when the driver starts and deleted when it shuts down. Clients must connect through the socket file,
+     * for example with {@code RestServerDriver.viaUnixSocket(file)}.
+     * 
+     * <p>
+     * Unix domain sockets need Java 16 or later; building the driver on an older JVM throws a
+     * {@link com.github.restdriver.clientdriver.exception.ClientDriverSetupException}.
+     * </p>
+     * 
+     * @param socketFile the socket file to create, which must not exist yet
+     * @return the factory object
+     */
+    public ClientDriverFactory unixSocket(File socketFile) {
+        Validate.notNull(socketFile, "Socket file cannot be null.");
+        this.unixSocket = socketFile;
+        this.port = 0;
+        this.portReservation = null;
+        return this;
+    }
+    
+    /**
+     * Sets the most threads the server will use. The default is 200.
+     * 
+     * @param maxThreads the maximum number of threads
+     * @return the factory object
+     */
+    public ClientDriverFactory maxThreads(int maxThreads) {
+        Validate.isTrue(maxThreads > 0, "Max threads must be at least one.");
+        this.maxThreads = maxThreads;
+        return this;
+    }
+    
+    /**
+     * Sets how many threads the server keeps even when idle. The default is 8.
+     * 
+     * @param minThreads the minimum number of threads
+     * @return the factory object
+     */
+    public ClientDriverFactory minThreads(int minThreads) {
+        Validate.isTrue(minThreads >= 0, "Min threads cannot be negative.");
+        this.minThreads = minThreads;
+        return this;
+    }
+    
+    /**
+     * Sets how many requests may wait for a free thread. Connections beyond this are rejected. By default the queue is unbounded.
+     * 
+     * @param maxQueuedRequests the maximum queue size
+     * @return the factory object
+     */
+    public ClientDriverFactory maxQueuedRequests(int maxQueuedRequests) {
+        Validate.isTrue(maxQueuedRequests > 0, "Max queued requests must be at least one.");
+        this.maxQueuedRequests = maxQueuedRequests;
+        return this;
+    }
+    
+    /**
+     * Sets how many threads accept new connections. By default Jetty chooses based on the number of CPUs.
+     * 
+     * @param acceptors the number of acceptor threads
+     * @return the factory object
+     */
+    public ClientDriverFactory acceptors(int acceptors) {
+        Validate.isTrue(acceptors >= 0, "Acceptors cannot be negative.");
+        this.acceptors = acceptors;
+        return this;
+    }
+    
+    /**
+     * Sets how many threads select on open connections. By default Jetty chooses based on the number of CPUs.
+     * 
+     * @param selectors the number of selector threads
+     * @return the factory object
+     */
+    public ClientDriverFactory selectors(int selectors) {
+        Validate.isTrue(selectors > 0, "Selectors must be at least one.");
+        this.selectors = selectors;
+        return this;
+    }
+    
+    /**
+     * Serve every request on its own virtual thread instead of a pool of platform threads, so that tens of thousands of slow connections can be
+     * held open at once. The thread and queue limits are ignored in this mode.
+     * 
+     * <p>
+     * Virtual threads need Java 21 or later; building the driver on an older JVM throws a
+     * {@link com.github.restdriver.clientdriver.exception.ClientDriverSetupException}.
+     * </p>
+     * 
+     * @return the factory object
+     */
+    public ClientDriverFactory virtualThreads() {
+        this.virtualThreads = true;
+        return this;
+    }
+    
+    /**
+     * Only keep the most recent requests for {@link ClientDriver#verify(ClientDriverRequest, int)}, so that a driver serving many requests doesn't
+     * keep growing. By default every request is kept. Expectations still count every request they match.
+     * 
+     * @param requests how many requests to keep
+     * @return the factory object
+     */
+    public ClientDriverFactory keepLastRequests(int requests) {
+        Validate.isTrue(requests > 0, "Must keep at least one request, use noRequestJournal() to keep none.");
+        this.journalCapacity = requests;
+        return this;
+    }
+    
+    /**
+     * Don't keep any requests for {@link ClientDriver#verify(ClientDriverRequest, int)}.
+     * 
+     * @return the factory object
+     */
+    public ClientDriverFactory noRequestJournal() {
+        this.journalCapacity = 0;
+        return this;
+    }
+    
+    /**
+     * Only keep the start of each request body for {@link ClientDriver#verify(ClientDriverRequest, int)}. By default the whole body is kept.
+     * 
+     * @param bytes how many bytes of each body to keep
+     * @return the factory object
+     */
+    public ClientDriverFactory truncateJournaledBodies(int bytes) {
+        Validate.isTrue(bytes >= 0, "Body size cannot be negative.");
+        this.maxJournaledBodyBytes = bytes;
+        return this;
+    }
+    
+    /**
+     * Sets the largest request body the driver will read. A request with a bigger body gets a 413 response instead of being buffered in memory.
+     * Bodies are only read when an expectation needs to look at them or when requests are journaled for
+     * {@link ClientDriver#verify(ClientDriverRequest, int)}, see {@link #noRequestJournal()}. By default there is no limit.
+     * 
+     * @param bytes the maximum body size
+     * @return the factory object
+     */
+    public ClientDriverFactory maxRequestBodySize(long bytes) {
+        Validate.isTrue(bytes >= 0, "Body size cannot be negative.");
+        this.maxRequestBodyBytes = bytes;
+        return this;
+    }
+    
+    boolean usesUnixSocket() {
+        return unixSocket != null;
+    }
+    
+    /**
+     * Makes the server's threads daemon threads, so that drivers which are never shut down, such as those kept in a {@link ClientDriverPool},
+     * don't stop the JVM from exiting.
+     * 
+     * @return the factory object
+     */
+    ClientDriverFactory daemonThreads() {
+        this.daemonThreads = true;
+        return this;
+    }
+    
+    /**
+     * Create and start a {@link ClientDriver} with the given configuration.
+     * 
+     * @return the newly-created driver
+     */
+    public ClientDriver build() {
+        return build(port, portReservation, unixSocket);
+    }
+    
+    private ClientDriver build(int port, PortReservation portReservation, File unixSocket) {
+        ClientDriver clientDriver;
+        
+        if (unixSocket != null) {
+            clientDriver = new ClientDriver(createHandler(), unixSocket, createThreadPool(), acceptors, selectors);
+        } else if (portReservation == null) {
+            clientDriver = new ClientDriver(createHandler(), port, createThreadPool(), acceptors, selectors);
+        } else {
+            clientDriver = new ClientDriver(createHandler(), portReservation, createThreadPool(), acceptors, selectors);
+        }
+        
         LOGGER.debug("ClientDriver created at '" + clientDriver.getBaseUrl() + "'.");
         return clientDriver;
     }
     
+    /**
+     * Create and start a {@link ClientDriver} on another thread, so that it can start while the test does something else. The driver uses the
+     * settings the factory has when this is called.
+     * 
+     * @return the driver, once it has started
+     */
+    public Future<ClientDriver> startAsync() {
+        return startAsync(new ClientDriverFactory(this));
+    }
+    
+    private static Future<ClientDriver> startAsync(final ClientDriverFactory settings) {
+        return STARTUP_EXECUTOR.submit(new Callable<ClientDriver>() {
+            @Override
+            public ClientDriver call() {
+                return settings.build();
+            }
+        });
+    }
+    
+    /**
+     * Create and start several {@link ClientDriver}s at once, each on its own free port. If any of them fails to start, those which did start are
+     * shut down again.
+     * 
+     * @param count how many drivers to start
+     * @return the started drivers
+     */
+    public List<ClientDriver> startAll(int count) {
+        ClientDriverFactory settings = new ClientDriverFactory(this);
+        
+        Validate.isTrue(count > 0, "Must start at least one driver.");
+        Validate.isTrue(count == 1 || settings.port == 0, "Several drivers can't share a fixed port.");
+        Validate.isTrue(count == 1 || settings.unixSocket == null, "Several drivers can't share a Unix domain socket.");
+        
+        List<Future<ClientDriver>> starting = new ArrayList<Future<ClientDriver>>();
+        for (int i = 0; i < count; i++) {
+            starting.add(startAsync(settings));
+        }
+        
+        List<ClientDriver> started = new ArrayList<ClientDriver>();
+        ClientDriverSetupException failure = null;
+        boolean interrupted = false;
+        
+        for (Future<ClientDriver> driver : starting) {
+            while (true) {
+                try {
+                    started.add(driver.get());
+                    break;
+                } catch (ExecutionException e) {
+                    failure = failure == null ? new ClientDriverSetupException("Error starting client drivers", e.getCause()) : failure;
+                    break;
+                } catch (InterruptedException e) {
+                    // a driver which is already starting can't be stopped, so keep waiting for it in order to shut it down again
+                    interrupted = true;
+                    failure = failure == null ? new ClientDriverSetupException("Interrupted while starting client drivers", e) : failure;
+                }
+            }
+        }
+        
+        if (failure != null) {
+            for (ClientDriver driver : started) {
+                driver.shutdownQuietly();
+            }
+        }
+        
+        // only once the drivers have been shut down, as Jetty won't stop cleanly on an interrupted thread
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        
+        if (failure != null) {
+            throw failure;
+        }
+        
+        return started;
+    }
+    
+    /**
+     * Create and start a {@link ClientDriverHost}, which serves many virtual drivers from one server. The server uses this factory's port and
+     * thread settings, and each virtual driver gets its own handler with this factory's journal and body size settings.
+     * 
+     * @return the newly-created host
+     */
+    public ClientDriverHost buildHost() {
+        Validate.isTrue(unixSocket == null, "A client driver host can't listen on a Unix domain socket.");
+        ClientDriverHost host = new ClientDriverHost(this, port, portReservation, createThreadPool(), acceptors, selectors);
+        LOGGER.debug("ClientDriverHost created on port " + host.getPort() + ".");
+        return host;
+    }
+    
+    DefaultClientDriverJettyHandler createHandler() {
+        return new DefaultClientDriverJettyHandler(new DefaultRequestMatcher(), journalCapacity, maxJournaledBodyBytes, maxRequestBodyBytes);
+    }
+    
+    private static ExecutorService createStartupExecutor() {
+        return Executors.newCachedThreadPool(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "rest-client-driver-startup");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+    
+    private ThreadPool createThreadPool() {
+        
+        if (virtualThreads) {
+            return new VirtualThreadPool();
+        }
+        
+        BlockingQueue<Runnable> queue = null;
+        if (maxQueuedRequests != JETTY_DEFAULT) {
+            queue = new BlockingArrayQueue<Runnable>(maxQueuedRequests);
+        }
+        
+        QueuedThreadPool threadPool = new QueuedThreadPool(maxThreads, Math.min(minThreads, maxThreads), IDLE_TIMEOUT_MILLIS, queue);
+        threadPool.setDaemon(daemonThreads);
+        return threadPool;
+    }
+    
 }
@@ -0,0 +1,167 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.clientdriver;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.ContextHandler;
+import org.eclipse.jetty.server.handler.ContextHandlerCollection;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+import com.github.restdriver.PortReservation;
+import com.github.restdriver.clientdriver.exception.ClientDriverInternalException;
+import com.github.restdriver.clientdriver.exception.ClientDriverSetupException;
+import com.github.restdriver.clientdriver.jetty.ClientDriverJettyHandler;
+
+/**
+ * One server which serves many virtual {@link ClientDriver}s, so that a test which mocks several services doesn't need a server for each of them.
+ * Use {@link ClientDriverFactory#buildHost()} to create one.
+ * 
+ * <p>
+ * Each virtual driver has its own expectations, request journal and verification, and is reached either under a path prefix, see
+ * {@link #atPath(String)}, or by the host name in the request, see {@link #forHost(String)}. Requests which don't match any virtual driver get a
+ * 404 response.
+ * </p>
+ */
+public final class ClientDriverHost {
+    
+    private final ClientDriverFactory factory;
+    private final Server jettyServer;
+    private final ContextHandlerCollection contexts = new ContextHandlerCollection();
+    private final ConcurrentMap<String, ContextHandler> virtualDrivers = new ConcurrentHashMap<String, ContextHandler>();
+    private final int port;
+    private final PortReservation portReservation;
+    
+    ClientDriverHost(ClientDriverFactory factory, int port, PortReservation portReservation, ThreadPool threadPool, int acceptors, int selectors) {
+        this.factory = factory;
+        this.portReservation = portReservation;
+        this.jettyServer = new Server(threadPool);
+        jettyServer.setHandler(contexts);
+        
+        ServerConnector connector = new ServerConnector(jettyServer, acceptors, selectors);
+        connector.setPort(port);
+        jettyServer.addConnector(connector);
+        
+        try {
+            if (portReservation != null) {
+                connector.open(portReservation.takeChannel());
+            }
+            jettyServer.start();
+        } catch (Exception e) {
+            throw new ClientDriverSetupException("Error starting jetty on port " + port, e);
+        }
+        
+        this.port = connector.getLocalPort();
+    }
+    
+    /**
+     * Add a virtual driver which serves requests whose path starts with the given prefix. Its expectations are matched against the rest of the
+     * path, and its base URL includes the prefix, eg "http://localhost:1234/payments".
+     * 
+     * @param prefix The first segment of the path, without any slashes
+     * @return The new virtual driver
+     */
+    public ClientDriver atPath(String prefix) {
+        if (prefix == null || prefix.isEmpty() || prefix.contains("/")) {
+            throw new ClientDriverSetupException("Path prefix must be a single, non-empty path segment: " + prefix, null);
+        }
+        
+        ContextHandler context = new ContextHandler("/" + prefix);
+        return addVirtualDriver(context, "http://localhost:" + port + "/" + prefix);
+    }
+    
+    /**
+     * Add a virtual driver which serves requests sent to the given host name, eg "payments.localhost". Its base URL uses that name, so the name must
+     * resolve to this machine for clients to reach it, otherwise clients must send the base URL's host in their Host header themselves.
+     * 
+     * @param hostName The host name
+     * @return The new virtual driver
+     */
+    public ClientDriver forHost(String hostName) {
+        if (hostName == null || hostName.isEmpty()) {
+            throw new ClientDriverSetupException("Host name must not be empty", null);
+        }
+        
+        ContextHandler context = new ContextHandler("/");
+        context.setVirtualHosts(new String[] { hostName });
+        return addVirtualDriver(context, "http://" + hostName + ":" + port);
+    }
+    
+    private ClientDriver addVirtualDriver(ContextHandler context, String baseUrl) {
+        
+        if (virtualDrivers.putIfAbsent(baseUrl, context) != null) {
+            throw new ClientDriverSetupException("There is already a virtual driver at " + baseUrl, null);
+        }
+        
+        ClientDriverJettyHandler handler = factory.createHandler();
+        context.setHandler(handler);
+        
+        // the collection can be changed while it is running
+        contexts.addHandler(context);
+        
+        try {
+            context.start();
+        } catch (Exception e) {
+            virtualDrivers.remove(baseUrl);
+            contexts.removeHandler(context);
+            throw new ClientDriverSetupException("Error starting virtual driver at " + baseUrl, e);
+        }
+        
+        return new VirtualClientDriver(this, handler, baseUrl);
+    }
+    
+    void remove(String baseUrl) {
+        ContextHandler context = virtualDrivers.remove(baseUrl);
+        
+        if (context == null) {
+            return;
+        }
+        
+        contexts.removeHandler(context);
+        try {
+            context.stop();
+        } catch (Exception e) {
+            throw new ClientDriverInternalException("Error stopping virtual driver", e);
+        }
+    }
+    
+    /**
+     * The port which every virtual driver is served on.
+     * 
+     * @return the listening port.
+     */
+    public int getPort() {
+        return port;
+    }
+    
+    /**
+     * Shut down the server and with it every virtual driver, without verifying any of them.
+     */
+    public void shutdown() {
+        try {
+            jettyServer.stop();
+            if (portReservation != null) {
+                portReservation.close();
+            }
+        } catch (Exception e) {
+            throw new ClientDriverInternalException("Error shutting down jetty", e);
+        }
+    }
+    
+}
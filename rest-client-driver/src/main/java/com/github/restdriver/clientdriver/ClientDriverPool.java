@@ -0,0 +1,140 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.clientdriver;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.lang.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A pool of started {@link ClientDriver}s which can be leased and given back, to save starting and stopping Jetty for every test.
+ * 
+ * <pre>
+ * &#64;Rule
+ * public ClientDriverRule driver = new ClientDriverRule(ClientDriverPool.shared());
+ * </pre>
+ * 
+ * <p>
+ * Each test still gets a driver of its own. A driver which is given back moves to a new free port and forgets all of its expectations and requests
+ * before it is leased again, so requests from one test can't reach the next. Drivers are created as they are needed, so the pool grows to the number
+ * of tests running at once. They use daemon threads and are stopped when the JVM exits.
+ * </p>
+ */
+public final class ClientDriverPool {
+    
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClientDriverPool.class);
+    private static final ClientDriverPool SHARED = new ClientDriverPool(new ClientDriverFactory());
+    
+    private final ClientDriverFactory factory;
+    private final Queue<ClientDriver> idle = new ConcurrentLinkedQueue<ClientDriver>();
+    private final Queue<ClientDriver> drivers = new ConcurrentLinkedQueue<ClientDriver>();
+    private final AtomicBoolean shutdownHookAdded = new AtomicBoolean();
+    
+    /**
+     * Creates a new pool, which builds its drivers with the given factory. The factory is changed to use daemon threads, and its port is ignored
+     * once a driver has been leased for the first time. Drivers on a Unix domain socket can't be pooled, as every lease needs a fresh socket.
+     * 
+     * @param factory The factory to build drivers with
+     */
+    public ClientDriverPool(ClientDriverFactory factory) {
+        Validate.isTrue(!factory.usesUnixSocket(), "Drivers on a Unix domain socket can't be pooled.");
+        this.factory = factory.daemonThreads();
+    }
+    
+    /**
+     * The pool shared by the whole JVM, with drivers built by a default {@link ClientDriverFactory}.
+     * 
+     * @return The shared pool
+     */
+    public static ClientDriverPool shared() {
+        return SHARED;
+    }
+    
+    /**
+     * Lease a driver, starting a new one if none are idle.
+     * 
+     * @return A started driver with no expectations
+     */
+    public ClientDriver lease() {
+        ClientDriver driver = idle.poll();
+        
+        if (driver != null) {
+            return driver;
+        }
+        
+        if (shutdownHookAdded.compareAndSet(false, true)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    shutdown();
+                }
+            }, "rest-client-driver-pool-shutdown"));
+        }
+        
+        driver = factory.build();
+        drivers.add(driver);
+        return driver;
+    }
+    
+    /**
+     * Give a driver back to the pool. Its completion listeners are called first, then it is reset ready for the next lease, even if a listener
+     * throws. A driver which can't be reset is shut down instead.
+     * 
+     * @param driver A driver leased from this pool
+     */
+    public void release(ClientDriver driver) {
+        try {
+            driver.completed();
+        } finally {
+            driver.clearListeners();
+            recycle(driver);
+        }
+    }
+    
+    private void recycle(ClientDriver driver) {
+        try {
+            driver.recycle();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Discarding a client driver which couldn't be reset", e);
+            drivers.remove(driver);
+            driver.shutdownQuietly();
+            return;
+        }
+        
+        idle.offer(driver);
+    }
+    
+    /**
+     * Shut down every driver the pool has started, including any which are still leased.
+     */
+    public void shutdown() {
+        ClientDriver driver;
+        
+        while ((driver = drivers.poll()) != null) {
+            idle.remove(driver);
+            try {
+                driver.shutdownQuietly();
+            } catch (RuntimeException e) {
+                LOGGER.warn("Error shutting down pooled client driver", e);
+            }
+        }
+    }
+    
+}
@@ -99,6 +99,7 @@ public final class ClientDriverRequest {
     }
     
     private final Matcher<? extends String> path;
+    private final String literalPath;
     private final Multimap<String, Matcher<? extends String>> params;
     private final Map<String, Matcher<? extends String>> headers;
     private final Set<String> excludedHeaders;
@@ -115,7 +116,12 @@ public final class ClientDriverRequest {
      * @param path The mandatory argument is the path which will be listened on
      */
     public ClientDriverRequest(Matcher<? extends String> path) {
+        this(path, null);
+    }
+    
+    private ClientDriverRequest(Matcher<? extends String> path, String literalPath) {
         this.path = path;
+        this.literalPath = literalPath;
         method = Method.GET;
         params = HashMultimap.create();
         headers = new HashMap<String, Matcher<? extends String>>();
@@ -129,7 +135,7 @@ public final class ClientDriverRequest {
      * @param path The mandatory argument is the path which will be listened on
      */
     public ClientDriverRequest(String path) {
-        this(new IsEqual<String>(path));
+        this(new IsEqual<String>(path), path);
     }
     
     /**
@@ -150,6 +156,15 @@ public final class ClientDriverRequest {
         return path;
     }
     
+    /**
+     * Get the path as a plain string, if it was given as one.
+     * 
+     * @return the exact path which requests are expected on, or null if the path is a {@link Matcher} or {@link Pattern}.
+     */
+    public String getLiteralPath() {
+        return literalPath;
+    }
+    
     /**
      * @param withMethod the method to set
      * @return the object you called the method on, so you can chain these calls.
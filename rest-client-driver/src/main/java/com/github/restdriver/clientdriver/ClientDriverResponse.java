@@ -23,6 +23,7 @@ import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.IOUtils;
 
+import com.github.restdriver.clientdriver.delay.DelayDistribution;
 import com.github.restdriver.clientdriver.exception.ClientDriverResponseCreationException;
 
 /**
@@ -42,6 +43,7 @@ public final class ClientDriverResponse {
     
     private long delayTime;
     private TimeUnit delayTimeUnit = TimeUnit.SECONDS;
+    private DelayDistribution delayDistribution;
     
     private long waitUntil;
     
@@ -162,6 +164,9 @@ public final class ClientDriverResponse {
      * responding. This enables you to simulate slow services or networks, eg
      * for testing timeout behaviour of your clients.
      * 
+     * The delay happens before any of the response is sent, and doesn't tie up
+     * a server thread while it is waiting.
+     * 
      * @param delay
      *            How long to delay for.
      * @param timeUnit
@@ -172,11 +177,42 @@ public final class ClientDriverResponse {
     public ClientDriverResponse after(long delay, TimeUnit timeUnit) {
         this.delayTime = delay;
         this.delayTimeUnit = timeUnit;
+        this.delayDistribution = null;
+        return this;
+    }
+    
+    /**
+     * Modifies a ClientDriverRequest to wait for a different length of time
+     * before each response, chosen from the given distribution. See
+     * {@link com.github.restdriver.clientdriver.delay.DelayDistributions} for
+     * log-normal, Pareto, percentile and recorded delays.
+     * 
+     * @param distribution
+     *            The distribution to choose each delay from.
+     * 
+     * @return The modified ClientDriverRequest.
+     */
+    public ClientDriverResponse after(DelayDistribution distribution) {
+        this.delayTime = 0;
+        this.delayDistribution = distribution;
         return this;
     }
     
     /**
-     * @return the amount of time to delay the response
+     * Choose how long to delay the next response for. This is the fixed
+     * delay, if there is one, or a new sample from the delay distribution.
+     * 
+     * @return the delay in nanoseconds
+     */
+    public long nextDelayNanos() {
+        if (delayDistribution != null) {
+            return delayDistribution.nextDelayNanos();
+        }
+        return delayTimeUnit.toNanos(delayTime);
+    }
+    
+    /**
+     * @return the amount of time to delay the response, when it has a fixed delay
      */
     public long getDelayTime() {
         return delayTime;
@@ -197,6 +233,13 @@ public final class ClientDriverResponse {
         return waitUntil > System.currentTimeMillis();
     }
     
+    /**
+     * @return the time, in milliseconds since the epoch, until which we will wait for this response to be requested, or 0 if there is no limit
+     */
+    public long getExpiryTime() {
+        return waitUntil;
+    }
+    
     /**
      * @return the status
      */
@@ -29,6 +29,7 @@ import org.slf4j.LoggerFactory;
 public class ClientDriverRule implements TestRule {
     
     private ClientDriver clientDriver;
+    private ClientDriverPool pool;
     private static final Logger LOGGER = LoggerFactory.getLogger(ClientDriverRequest.class);
     
     private static final long IMMEDIATELY = 0;
@@ -50,6 +51,16 @@ public class ClientDriverRule implements TestRule {
         clientDriver = new ClientDriverFactory().createClientDriver(port);
     }
     
+    /**
+     * Creates a new rule with a driver leased from the given pool, which is given back once the test has finished instead of being shut down.
+     * 
+     * @param pool The pool to lease from, usually {@link ClientDriverPool#shared()}
+     */
+    public ClientDriverRule(ClientDriverPool pool) {
+        this.pool = pool;
+        this.clientDriver = pool.lease();
+    }
+    
     protected ClientDriverRule(ClientDriver clientDriver) {
         this.clientDriver = clientDriver;
     }
@@ -150,6 +161,28 @@ public class ClientDriverRule implements TestRule {
     public void verify(ClientDriverRequest clientDriverRequest, int times) {
         clientDriver.verify(clientDriverRequest, times);
     }
+    
+    /**
+     * Wait until a request has been matched a number of times. See {@link ClientDriver#await(ClientDriverRequest, int, long, TimeUnit)}.
+     * 
+     * @param request The expected request
+     * @param count The number of matches to wait for
+     * @param timeout How long to wait at most
+     * @param unit The unit of the timeout
+     */
+    public void await(ClientDriverRequest request, int count, long timeout, TimeUnit unit) {
+        clientDriver.await(request, count, timeout, unit);
+    }
+    
+    /**
+     * Wait until every request which has arrived has been responded to. See {@link ClientDriver#awaitIdle(long, TimeUnit)}.
+     * 
+     * @param timeout How long to wait at most
+     * @param unit The unit of the timeout
+     */
+    public void awaitIdle(long timeout, TimeUnit unit) {
+        clientDriver.awaitIdle(timeout, unit);
+    }
 
     /**
      * Statement which evaluates the given Statement and shuts down the client after evaluation.
@@ -178,7 +211,11 @@ public class ClientDriverRule implements TestRule {
                     throw assertionError;
                 }
             } finally {
-                clientDriver.shutdownQuietly();
+                if (pool == null) {
+                    clientDriver.shutdownQuietly();
+                } else {
+                    pool.release(clientDriver);
+                }
             }
         }
         
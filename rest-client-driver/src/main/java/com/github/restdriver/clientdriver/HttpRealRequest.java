@@ -27,57 +27,100 @@ import java.util.Map.Entry;
 import javax.servlet.http.HttpServletRequest;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.eclipse.jetty.util.MultiMap;
 import org.eclipse.jetty.util.UrlEncoded;
 
 import com.github.restdriver.clientdriver.ClientDriverRequest.Method;
+import com.github.restdriver.clientdriver.exception.ClientDriverRequestTooLargeException;
 import com.google.common.base.Joiner;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+/**
+ * A request received by the client driver.
+ * 
+ * <p>
+ * The method, path and content type are read straight away. The query parameters, headers and body are only read from the servlet request when they
+ * are first asked for, so a request which is rejected on its method or path never has its body buffered. A request which is kept after it has been
+ * handled must be {@link #detach() detached} first, because the servlet container reuses its request objects. Detaching doesn't read the body, so
+ * a request detached before anything asked for its body has an empty body.
+ * </p>
+ * 
+ * <p>
+ * Reading a body bigger than the maximum size throws a {@link ClientDriverRequestTooLargeException}, without buffering more than the maximum. Such a
+ * request is detached without its body, see {@link #isBodyTooLarge()}.
+ * </p>
+ */
 public class HttpRealRequest implements RealRequest {
     
+    private static final String UNREAD = "<unread>";
+    
     private final Method method;
     private final String path;
-    private final Multimap<String, String> params;
-    private final Map<String, Object> headers;
-    private final byte[] bodyContent;
+    private final String queryString;
     private final String bodyContentType;
+    private final long maxBodyBytes;
+    
+    private HttpServletRequest request;
+    private Multimap<String, String> params;
+    private Map<String, Object> headers;
+    private byte[] bodyContent;
+    private boolean bodyTooLarge;
+    private boolean bodyDropped;
+    private long droppedBodyLength;
     
     public HttpRealRequest(HttpServletRequest request) {
+        this(request, -1);
+    }
+    
+    /**
+     * @param request The servlet request
+     * @param maxBodyBytes The largest body which will be read, or -1 for no limit
+     */
+    public HttpRealRequest(HttpServletRequest request, long maxBodyBytes) {
+        this.request = request;
+        this.maxBodyBytes = maxBodyBytes;
         this.path = request.getPathInfo();
         this.method = Method.custom(request.getMethod().toUpperCase());
-        this.params = HashMultimap.create();
-        
-        if (request.getQueryString() != null) {
-            MultiMap<String> parameterMap = new MultiMap<String>();
-            UrlEncoded.decodeTo(request.getQueryString(), parameterMap, UTF_8);
-            for (Entry<String, String[]> paramEntry : parameterMap.toStringArrayMap().entrySet()) {
-                String[] values = paramEntry.getValue();
-                for (String value : values) {
-                    this.params.put(paramEntry.getKey(), value);
-                }
-            }
+        this.queryString = request.getQueryString();
+        this.bodyContentType = request.getContentType();
+    }
+    
+    /**
+     * Read the query parameters and headers from the servlet request, and let go of it. A body which hasn't been read is dropped, and only its
+     * declared length is kept.
+     */
+    public final synchronized void detach() {
+        if (request == null) {
+            return;
         }
         
-        headers = new HashMap<>();
-        Enumeration<String> headerNames = request.getHeaderNames();
-        if (headerNames != null) {
-            while (headerNames.hasMoreElements()) {
-                String headerName = headerNames.nextElement();
-                headers.put(headerName.toLowerCase(), request.getHeader(headerName));
-            }
-        }
+        readParams();
+        readHeaders();
         
-        try {
-            this.bodyContent = IOUtils.toByteArray(request.getInputStream());
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to read body of request", e);
+        if (bodyContent == null) {
+            droppedBodyLength = request.getContentLengthLong();
+            
+            if (maxBodyBytes >= 0 && droppedBodyLength > maxBodyBytes) {
+                bodyTooLarge = true;
+            }
+            bodyDropped = !bodyTooLarge;
+            bodyContent = new byte[0];
         }
         
-        this.bodyContentType = request.getContentType();
+        request = null;
+    }
+    
+    /**
+     * Whether the body was bigger than the maximum size. A detached request with a body which was too large has an empty body.
+     * 
+     * @return True if the body couldn't be read
+     */
+    public final synchronized boolean isBodyTooLarge() {
+        return bodyTooLarge;
     }
     
     @Override
@@ -91,18 +134,18 @@ public class HttpRealRequest implements RealRequest {
     }
     
     @Override
-    public final Map<String, Collection<String>> getParams() {
-        return Collections.unmodifiableMap(params.asMap());
+    public final synchronized Map<String, Collection<String>> getParams() {
+        return Collections.unmodifiableMap(readParams().asMap());
     }
     
     @Override
-    public final Map<String, Object> getHeaders() {
-        return Collections.unmodifiableMap(headers);
+    public final synchronized Map<String, Object> getHeaders() {
+        return Collections.unmodifiableMap(readHeaders());
     }
     
     @Override
-    public final byte[] getBodyContent() {
-        return bodyContent;
+    public final synchronized byte[] getBodyContent() {
+        return readBody();
     }
     
     @Override
@@ -110,22 +153,116 @@ public class HttpRealRequest implements RealRequest {
         return bodyContentType;
     }
     
+    private Multimap<String, String> readParams() {
+        if (params != null) {
+            return params;
+        }
+        
+        params = parseParams();
+        return params;
+    }
+    
+    private Multimap<String, String> parseParams() {
+        Multimap<String, String> parsed = HashMultimap.create();
+        
+        if (queryString != null) {
+            MultiMap<String> parameterMap = new MultiMap<String>();
+            UrlEncoded.decodeTo(queryString, parameterMap, UTF_8);
+            for (Entry<String, String[]> paramEntry : parameterMap.toStringArrayMap().entrySet()) {
+                String[] values = paramEntry.getValue();
+                for (String value : values) {
+                    parsed.put(paramEntry.getKey(), value);
+                }
+            }
+        }
+        
+        return parsed;
+    }
+    
+    private Map<String, Object> readHeaders() {
+        if (headers != null) {
+            return headers;
+        }
+        
+        headers = new HashMap<>();
+        Enumeration<String> headerNames = request.getHeaderNames();
+        if (headerNames != null) {
+            while (headerNames.hasMoreElements()) {
+                String headerName = headerNames.nextElement();
+                headers.put(headerName.toLowerCase(), request.getHeader(headerName));
+            }
+        }
+        
+        return headers;
+    }
+    
+    private byte[] readBody() {
+        if (bodyContent != null) {
+            return bodyContent;
+        }
+        
+        if (bodyTooLarge) {
+            throw tooLarge();
+        }
+        
+        try {
+            if (maxBodyBytes < 0) {
+                bodyContent = IOUtils.toByteArray(request.getInputStream());
+                return bodyContent;
+            }
+            
+            if (request.getContentLengthLong() > maxBodyBytes) {
+                throw tooLarge();
+            }
+            
+            byte[] body = IOUtils.toByteArray(new BoundedInputStream(request.getInputStream(), maxBodyBytes + 1));
+            
+            if (body.length > maxBodyBytes) {
+                throw tooLarge();
+            }
+            
+            bodyContent = body;
+            return bodyContent;
+            
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read body of request", e);
+        }
+    }
+    
+    private ClientDriverRequestTooLargeException tooLarge() {
+        bodyTooLarge = true;
+        return new ClientDriverRequestTooLargeException(String.format("Body of %s %s is bigger than the maximum of %d bytes", method, path, maxBodyBytes));
+    }
+    
     /**
-     * toString.
+     * toString. Headers and body which haven't been read from the servlet request yet are shown as {@code <unread>}, rather than read now.
      * 
      * @return a String representation of the request
      */
     @Override
-    public String toString() {
+    public synchronized String toString() {
         
-        String paramsJoined = Joiner.on(",").withKeyValueSeparator("=").useForNull("<null>").join(params.asMap());
-        String headersJoined = Joiner.on(",").withKeyValueSeparator(": ").useForNull("<null>").join(headers);
+        String paramsJoined = Joiner.on(",").withKeyValueSeparator("=").useForNull("<null>").join((params == null ? parseParams() : params).asMap());
+        String headersJoined = headers == null ? UNREAD : Joiner.on(",").withKeyValueSeparator(": ").useForNull("<null>").join(headers);
         
         return "HttpRealRequest: "
                 + method + " " + path + "; "
                 + "PARAMS: [" + paramsJoined + "]; "
                 + "HEADERS: [" + headersJoined + "]; "
                 + "CONTENT TYPE " + bodyContentType + "; "
-                + "BODY " + new String(bodyContent) + ";";
+                + "BODY " + bodyForDisplay() + ";";
+    }
+    
+    private String bodyForDisplay() {
+        if (bodyTooLarge) {
+            return "<too large>";
+        }
+        if (bodyContent == null) {
+            return UNREAD;
+        }
+        if (bodyDropped) {
+            return droppedBodyLength < 0 ? UNREAD : "<unread, " + droppedBodyLength + " bytes>";
+        }
+        return new String(bodyContent, UTF_8);
     }
 }
@@ -0,0 +1,53 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.clientdriver;
+
+import com.github.restdriver.clientdriver.jetty.ClientDriverJettyHandler;
+
+/**
+ * A {@link ClientDriver} served by a {@link ClientDriverHost}, alongside other virtual drivers. Shutting it down only removes it from the host.
+ */
+final class VirtualClientDriver extends ClientDriver {
+    
+    private final ClientDriverHost host;
+    private final String baseUrl;
+    
+    VirtualClientDriver(ClientDriverHost host, ClientDriverJettyHandler handler, String baseUrl) {
+        this.host = host;
+        this.handler = handler;
+        this.baseUrl = baseUrl;
+    }
+    
+    @Override
+    public int getPort() {
+        return host.getPort();
+    }
+    
+    @Override
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+    
+    @Override
+    public void shutdownQuietly() {
+        try {
+            host.remove(baseUrl);
+        } finally {
+            completed();
+        }
+    }
+    
+}
@@ -0,0 +1,34 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.clientdriver.delay;
+
+/**
+ * A source of response delays, sampled once for each request a response is given for. See {@link DelayDistributions} for the built-in ones.
+ * 
+ * <p>
+ * Implementations are called from several threads at once.
+ * </p>
+ */
+public interface DelayDistribution {
+    
+    /**
+     * Choose the delay for the next response.
+     * 
+     * @return The delay in nanoseconds, zero or more
+     */
+    long nextDelayNanos();
+    
+}
@@ -0,0 +1,201 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.clientdriver.delay;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.Validate;
+
+import com.github.restdriver.clientdriver.exception.ClientDriverResponseCreationException;
+
+/**
+ * Factory methods for common {@link DelayDistribution}s, for use with
+ * {@link com.github.restdriver.clientdriver.ClientDriverResponse#after(DelayDistribution)}.
+ * 
+ * <p>
+ * Every distribution takes a seed, so the same seed always gives the same sequence of delays. When requests are served concurrently, which request
+ * gets which delay depends on the order they arrive in.
+ * </p>
+ */
+public final class DelayDistributions {
+    
+    private DelayDistributions() {
+    }
+    
+    /**
+     * Log-normally distributed delays, which is how the latency of most real services looks.
+     * 
+     * @param median The median delay
+     * @param sigma The standard deviation of the natural log of the delay; larger values give a longer tail. 0.5 is a reasonable start.
+     * @param unit The unit of the median
+     * @param seed The seed for the random numbers
+     * @return The distribution
+     */
+    public static DelayDistribution logNormal(final double median, final double sigma, TimeUnit unit, long seed) {
+        Validate.isTrue(median > 0, "Median must be positive.");
+        Validate.isTrue(sigma >= 0, "Sigma cannot be negative.");
+        
+        final double mu = Math.log(median * unit.toNanos(1));
+        
+        return new SeededDistribution(seed) {
+            @Override
+            double sample(Random random) {
+                return Math.exp(mu + sigma * random.nextGaussian());
+            }
+        };
+    }
+    
+    /**
+     * Pareto distributed delays: never below the minimum, with a heavy tail of much slower responses.
+     * 
+     * @param minimum The smallest possible delay
+     * @param shape How quickly the tail falls away; smaller values give more very slow responses. Must be positive.
+     * @param unit The unit of the minimum
+     * @param seed The seed for the random numbers
+     * @return The distribution
+     */
+    public static DelayDistribution pareto(double minimum, final double shape, TimeUnit unit, long seed) {
+        Validate.isTrue(minimum > 0, "Minimum must be positive.");
+        Validate.isTrue(shape > 0, "Shape must be positive.");
+        
+        final double scale = minimum * unit.toNanos(1);
+        
+        return new SeededDistribution(seed) {
+            @Override
+            double sample(Random random) {
+                return scale / Math.pow(1.0 - random.nextDouble(), 1.0 / shape);
+            }
+        };
+    }
+    
+    /**
+     * Delays which follow a table of percentiles, for example from a production dashboard:
+     * 
+     * <pre>
+     * {@code
+     * percentiles(MILLISECONDS, 42).at(50, 20).at(99, 400).at(100, 2000)}
+     * </pre>
+     * 
+     * @param unit The unit of the delays in the table
+     * @param seed The seed for the random numbers
+     * @return The distribution, to which percentiles can be added
+     */
+    public static PercentileDelayDistribution percentiles(TimeUnit unit, long seed) {
+        return new PercentileDelayDistribution(unit, seed);
+    }
+    
+    /**
+     * Delays chosen at random from a file of recorded delays, with one number per line. Blank lines and lines starting with '#' are ignored.
+     * 
+     * @param file The file of delays
+     * @param unit The unit of the delays in the file
+     * @param seed The seed for the random numbers
+     * @return The distribution
+     */
+    public static DelayDistribution empirical(File file, TimeUnit unit, long seed) {
+        List<String> lines;
+        
+        try {
+            lines = FileUtils.readLines(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new ClientDriverResponseCreationException("Couldn't read delays from " + file, e);
+        }
+        
+        List<Double> samples = new ArrayList<Double>();
+        
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            try {
+                samples.add(Double.parseDouble(trimmed));
+            } catch (NumberFormatException e) {
+                throw new ClientDriverResponseCreationException("Couldn't read delay '" + trimmed + "' from " + file, e);
+            }
+        }
+        
+        double[] delays = new double[samples.size()];
+        for (int i = 0; i < delays.length; i++) {
+            delays[i] = samples.get(i);
+        }
+        
+        return empirical(delays, unit, seed);
+    }
+    
+    /**
+     * Delays chosen at random from a set of recorded delays.
+     * 
+     * @param delays The recorded delays
+     * @param unit The unit of the delays
+     * @param seed The seed for the random numbers
+     * @return The distribution
+     */
+    public static DelayDistribution empirical(double[] delays, TimeUnit unit, long seed) {
+        Validate.isTrue(delays.length > 0, "At least one delay is needed.");
+        
+        final double[] nanos = new double[delays.length];
+        for (int i = 0; i < delays.length; i++) {
+            Validate.isTrue(delays[i] >= 0, "Delays cannot be negative.");
+            nanos[i] = delays[i] * unit.toNanos(1);
+        }
+        
+        return new SeededDistribution(seed) {
+            @Override
+            double sample(Random random) {
+                return nanos[random.nextInt(nanos.length)];
+            }
+        };
+    }
+    
+    /**
+     * Base class for distributions which sample from a seeded random number generator.
+     */
+    abstract static class SeededDistribution implements DelayDistribution {
+        
+        private final Random random;
+        
+        SeededDistribution(long seed) {
+            random = new Random(seed);
+        }
+        
+        @Override
+        public final long nextDelayNanos() {
+            double nanos;
+            
+            synchronized (random) {
+                nanos = sample(random);
+            }
+            
+            return Math.max(0, Math.round(Math.min(nanos, Long.MAX_VALUE)));
+        }
+        
+        /**
+         * @param random The random number generator, which is only used by one thread at a time
+         * @return The delay in nanoseconds
+         */
+        abstract double sample(Random random);
+        
+    }
+    
+}
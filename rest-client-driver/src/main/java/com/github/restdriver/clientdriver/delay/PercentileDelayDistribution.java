@@ -0,0 +1,82 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.clientdriver.delay;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * Delays which follow a table of percentiles. Between the percentiles given, delays are interpolated linearly; below the lowest one they are
+ * interpolated up from zero, and above the highest one the highest delay is used. Create one with
+ * {@link DelayDistributions#percentiles(TimeUnit, long)}.
+ */
+public final class PercentileDelayDistribution extends DelayDistributions.SeededDistribution {
+    
+    private final TimeUnit unit;
+    private final TreeMap<Double, Double> table = new TreeMap<Double, Double>();
+    
+    PercentileDelayDistribution(TimeUnit unit, long seed) {
+        super(seed);
+        this.unit = unit;
+        table.put(0.0, 0.0);
+    }
+    
+    /**
+     * Add a percentile to the table.
+     * 
+     * @param percentile The percentile, eg 99.9
+     * @param delay The delay at that percentile, in the table's unit
+     * @return This distribution, so you can chain these calls.
+     */
+    public PercentileDelayDistribution at(double percentile, double delay) {
+        Validate.isTrue(percentile > 0 && percentile <= 100, "Percentile must be greater than 0 and at most 100.");
+        Validate.isTrue(delay >= 0, "Delay cannot be negative.");
+        
+        double nanos = delay * unit.toNanos(1);
+        
+        synchronized (table) {
+            Map.Entry<Double, Double> lower = table.lowerEntry(percentile);
+            Map.Entry<Double, Double> higher = table.higherEntry(percentile);
+            Validate.isTrue(lower.getValue() <= nanos && (higher == null || nanos <= higher.getValue()), "Delays must not decrease as percentiles increase.");
+            
+            table.put(percentile, nanos);
+        }
+        
+        return this;
+    }
+    
+    @Override
+    double sample(Random random) {
+        double percentile = random.nextDouble() * 100;
+        
+        synchronized (table) {
+            Map.Entry<Double, Double> lower = table.floorEntry(percentile);
+            Map.Entry<Double, Double> higher = table.higherEntry(percentile);
+            
+            if (higher == null) {
+                return lower.getValue();
+            }
+            
+            double fraction = (percentile - lower.getKey()) / (higher.getKey() - lower.getKey());
+            return lower.getValue() + fraction * (higher.getValue() - lower.getValue());
+        }
+    }
+    
+}
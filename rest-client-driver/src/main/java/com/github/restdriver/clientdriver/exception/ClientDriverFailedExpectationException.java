@@ -38,6 +38,10 @@ public final class ClientDriverFailedExpectationException extends RuntimeExcepti
         super(createFailedExpectationsMessage(failedExpectations));
     }
     
+    public ClientDriverFailedExpectationException(String message) {
+        super(message);
+    }
+    
     private static String createUnexpectedRequestsMessage(List<HttpRealRequest> unexpectedRequests, List<ClientDriverExpectation> expectations) {
         checkArgument(unexpectedRequests != null && !unexpectedRequests.isEmpty(), "unexpectedRequests cannot be empty");
         
@@ -0,0 +1,34 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.clientdriver.exception;
+
+/**
+ * Exception which is thrown when the body of a request is bigger than the client driver will read. The client gets a 413 response.
+ */
+public class ClientDriverRequestTooLargeException extends RuntimeException {
+    
+    private static final long serialVersionUID = -5802346813577025637L;
+    
+    /**
+     * Creates a new instance of the exception.
+     * 
+     * @param message The message
+     */
+    public ClientDriverRequestTooLargeException(String message) {
+        super(message);
+    }
+    
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.clientdriver.jetty;
+
+import java.util.concurrent.TimeUnit;
+
+import com.github.restdriver.clientdriver.ClientDriverRequest;
+import com.github.restdriver.clientdriver.ClientDriverResponse;
+
+/**
+ * Implemented by {@link ClientDriverJettyHandler}s which let a test wait for requests, for testing clients which send requests asynchronously.
+ * {@link com.github.restdriver.clientdriver.ClientDriver#await(ClientDriverRequest, int, long, TimeUnit)} and
+ * {@link com.github.restdriver.clientdriver.ClientDriver#awaitIdle(long, TimeUnit)} need a handler which implements this.
+ */
+public interface AwaitableClientDriverJettyHandler {
+    
+    /**
+     * Wait until expectations for the given request have been matched a number of times in total, throwing a
+     * ClientDriverFailedExpectationException if that doesn't happen in time.
+     * 
+     * @param request
+     *            The request, as passed to {@link ClientDriverJettyHandler#addExpectation(ClientDriverRequest, ClientDriverResponse)}
+     * @param count
+     *            The number of matches to wait for
+     * @param timeout
+     *            How long to wait at most
+     * @param unit
+     *            The unit of the timeout
+     */
+    void await(ClientDriverRequest request, int count, long timeout, TimeUnit unit);
+    
+    /**
+     * Wait until no requests are being handled, throwing a ClientDriverFailedExpectationException if that doesn't happen in time.
+     * 
+     * @param timeout
+     *            How long to wait at most
+     * @param unit
+     *            The unit of the timeout
+     */
+    void awaitIdle(long timeout, TimeUnit unit);
+    
+}
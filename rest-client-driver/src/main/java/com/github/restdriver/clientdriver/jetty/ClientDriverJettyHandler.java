@@ -53,7 +53,7 @@ public interface ClientDriverJettyHandler extends Handler {
     void noFailFastOnUnexpectedRequest();
     
     /**
-     * Resets the expectations so the current ClientDriver instance can be reused.
+     * Resets the expectations and recorded requests so the current ClientDriver instance can be reused.
      */
     void reset();
 
@@ -17,10 +17,21 @@ package com.github.restdriver.clientdriver.jetty;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -35,28 +46,48 @@ import com.github.restdriver.clientdriver.ClientDriverExpectation;
 import com.github.restdriver.clientdriver.ClientDriverRequest;
 import com.github.restdriver.clientdriver.ClientDriverRequestResponsePair;
 import com.github.restdriver.clientdriver.ClientDriverResponse;
+import com.github.restdriver.clientdriver.DefaultRequestMatcher;
 import com.github.restdriver.clientdriver.HttpRealRequest;
+import com.github.restdriver.clientdriver.RealRequest;
 import com.github.restdriver.clientdriver.RequestMatcher;
 import com.github.restdriver.clientdriver.exception.ClientDriverFailedExpectationException;
 import com.github.restdriver.clientdriver.exception.ClientDriverInternalException;
+import com.github.restdriver.clientdriver.exception.ClientDriverInvalidExpectationException;
+import com.github.restdriver.clientdriver.exception.ClientDriverRequestTooLargeException;
 import com.google.common.collect.Lists;
 
 /**
  * Class which acts as a Jetty Handler to see if the actual incoming HTTP
  * request matches any expectation and to act accordingly. In case of any kind
  * of error, {@link ClientDriverInternalException} is usually thrown.
+ * 
+ * <p>Requests are matched concurrently on Jetty's worker threads, without any global lock. Each matching thread claims a slot on the expectation
+ * atomically, so an expectation is never matched more times than it allows.</p>
  */
-public final class DefaultClientDriverJettyHandler extends AbstractHandler implements ClientDriverJettyHandler {
+public final class DefaultClientDriverJettyHandler extends AbstractHandler implements ClientDriverJettyHandler, AwaitableClientDriverJettyHandler {
     
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultClientDriverJettyHandler.class);
-    private static final long DEFAULT_WAIT_INTERVAL = 500;
+    private static final ScheduledExecutorService DELAY_TIMER = createDelayTimer();
     
-    private final List<ClientDriverExpectation> expectations;
-    private final List<ClientDriverRequestResponsePair> matchedResponses;
+    /**
+     * How long verification lingers after the last response it waited for has been sent, since the client may still be reading it.
+     */
+    private static final long RESPONSE_LINGER_MILLIS = 50;
+    
+    /**
+     * No limit on the number of requests journaled or the size of their bodies.
+     */
+    public static final int UNLIMITED = -1;
+    
+    private final ExpectationIndex expectations;
+    private final ConcurrentMap<ClientDriverRequest, List<ClientDriverExpectation>> expectationsByRequest;
     private final RequestMatcher matcher;
     private final List<HttpRealRequest> unexpectedRequests;
-    private final List<HttpRealRequest> requests;
-    private boolean failFastOnUnexpectedRequest = true;
+    private final RequestJournal requests;
+    private final long maxRequestBodyBytes;
+    private final MatchSignal matchSignal = new MatchSignal();
+    private final AtomicInteger requestsInFlight = new AtomicInteger();
+    private volatile boolean failFastOnUnexpectedRequest = true;
     
     /**
      * Constructor which accepts a {@link RequestMatcher}.
@@ -65,16 +96,66 @@ public final class DefaultClientDriverJettyHandler extends AbstractHandler imple
      *            The {@link RequestMatcher} to use.
      */
     public DefaultClientDriverJettyHandler(RequestMatcher matcher) {
+        this(matcher, UNLIMITED, UNLIMITED);
+    }
+    
+    /**
+     * Constructor which accepts a {@link RequestMatcher} and limits on the journal of requests kept for {@link #verify(ClientDriverRequest, int)}.
+     * 
+     * <p>Limiting the journal keeps memory use flat when a driver serves many requests, for example in a soak test. Expectations still count every
+     * request they match.</p>
+     * 
+     * @param matcher
+     *            The {@link RequestMatcher} to use.
+     * @param journalCapacity
+     *            How many of the most recent requests to keep, 0 to keep none or {@link #UNLIMITED} to keep them all.
+     * @param maxJournaledBodyBytes
+     *            How many bytes of each request body to keep, or {@link #UNLIMITED} to keep the whole body.
+     */
+    public DefaultClientDriverJettyHandler(RequestMatcher matcher, int journalCapacity, int maxJournaledBodyBytes) {
+        this(matcher, journalCapacity, maxJournaledBodyBytes, UNLIMITED);
+    }
+    
+    /**
+     * Constructor which accepts a {@link RequestMatcher}, limits on the journal of requests and a limit on the size of request bodies.
+     * 
+     * <p>A request body is only read if an expectation needs to look at it. Reading a body bigger than the limit gives the client a 413 response,
+     * rather than buffering it all.</p>
+     * 
+     * @param matcher
+     *            The {@link RequestMatcher} to use.
+     * @param journalCapacity
+     *            How many of the most recent requests to keep, 0 to keep none or {@link #UNLIMITED} to keep them all.
+     * @param maxJournaledBodyBytes
+     *            How many bytes of each request body to keep, or {@link #UNLIMITED} to keep the whole body.
+     * @param maxRequestBodyBytes
+     *            The largest request body which will be read, or {@link #UNLIMITED} for no limit.
+     */
+    public DefaultClientDriverJettyHandler(RequestMatcher matcher, int journalCapacity, int maxJournaledBodyBytes, long maxRequestBodyBytes) {
         
-        expectations = new ArrayList<ClientDriverExpectation>();
-        matchedResponses = new ArrayList<ClientDriverRequestResponsePair>();
-        unexpectedRequests = new ArrayList<HttpRealRequest>();
-        requests = new ArrayList<HttpRealRequest>();
+        this.maxRequestBodyBytes = maxRequestBodyBytes;
+        expectations = new ExpectationIndex(matcher instanceof DefaultRequestMatcher);
+        expectationsByRequest = new ConcurrentHashMap<ClientDriverRequest, List<ClientDriverExpectation>>();
+        unexpectedRequests = new CopyOnWriteArrayList<HttpRealRequest>();
+        requests = new RequestJournal(journalCapacity, maxJournaledBodyBytes);
         
         this.matcher = matcher;
         
     }
     
+    private static ScheduledExecutorService createDelayTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "rest-client-driver-delay-timer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+    
     /**
      * {@inheritDoc}
      * 
@@ -86,40 +167,101 @@ public final class DefaultClientDriverJettyHandler extends AbstractHandler imple
         
         LOGGER.info("Handling: {} {}", request.getMethod(), request.getPathInfo());
         
-        ClientDriverRequestResponsePair matchingPair = getMatchingRequestPair(request);
+        requestsInFlight.incrementAndGet();
+        ClientDriverExpectation matchedExpectation = null;
+        boolean respondingLater = false;
         
-        if (matchingPair != null) {
-            matchedResponses.add(matchingPair);
-            
-            ClientDriverResponse matchedResponse = matchingPair.getResponse();
-            
-            response.setContentType(matchedResponse.getContentType());
-            response.setStatus(matchedResponse.getStatus());
-            response.setHeader("Server", "rest-client-driver(" + RestDriverProperties.getVersion() + ")");
-            
-            for (Entry<String, String> thisHeader : matchedResponse.getHeaders().entrySet()) {
-                response.setHeader(thisHeader.getKey(), thisHeader.getValue());
+        try {
+            try {
+                matchedExpectation = getMatchingExpectation(request);
+            } catch (ClientDriverRequestTooLargeException e) {
+                LOGGER.warn(e.getMessage());
+                response.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+                baseRequest.setHandled(true);
+                return;
             }
             
-            if (matchedResponse.hasBody()) {
-                OutputStream output = response.getOutputStream();
-                output.write(matchedResponse.getContentAsBytes());
+            if (matchedExpectation != null) {
+                ClientDriverResponse matchedResponse = matchedExpectation.getPair().getResponse();
+                long delayNanos = matchedResponse.nextDelayNanos();
+                
+                if (delayNanos > 0 && request.isAsyncSupported()) {
+                    respondLater(request.startAsync(), matchedExpectation, delayNanos);
+                    respondingLater = true;
+                } else {
+                    delayIfNecessary(delayNanos);
+                    writeResponse(response, matchedResponse);
+                }
+            } else {
+                response.setStatus(404);
             }
             
-            delayIfNecessary(matchingPair.getResponse());
-        } else {
-            response.setStatus(404);
+            baseRequest.setHandled(true);
+            
+        } finally {
+            if (!respondingLater) {
+                requestFinished(matchedExpectation);
+            }
+        }
+    }
+    
+    private void requestFinished(ClientDriverExpectation matchedExpectation) {
+        if (matchedExpectation != null) {
+            matchedExpectation.responded();
+        }
+        requestsInFlight.decrementAndGet();
+        matchSignal.signal();
+    }
+    
+    /**
+     * Write the response once its delay has passed, without holding on to a Jetty thread in the meantime. The timer only hands the write back to
+     * Jetty's thread pool, so a slow client can't hold up other delayed responses.
+     */
+    private void respondLater(AsyncContext asyncContext, ClientDriverExpectation matchedExpectation, long delayNanos) {
+        
+        final DelayedResponse delayed = new DelayedResponse(asyncContext, matchedExpectation);
+        
+        asyncContext.setTimeout(0);
+        asyncContext.addListener(delayed);
+        
+        try {
+            DELAY_TIMER.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    delayed.start();
+                }
+            }, delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to schedule delayed response", e);
+            delayed.finish();
+        }
+    }
+    
+    private void writeResponse(HttpServletResponse response, ClientDriverResponse matchedResponse) throws IOException {
+        
+        response.setContentType(matchedResponse.getContentType());
+        response.setStatus(matchedResponse.getStatus());
+        response.setHeader("Server", "rest-client-driver(" + RestDriverProperties.getVersion() + ")");
+        
+        for (Entry<String, String> thisHeader : matchedResponse.getHeaders().entrySet()) {
+            response.setHeader(thisHeader.getKey(), thisHeader.getValue());
         }
         
-        baseRequest.setHandled(true);
+        if (matchedResponse.hasBody()) {
+            OutputStream output = response.getOutputStream();
+            output.write(matchedResponse.getContentAsBytes());
+        }
+        
+        // closing sends the whole response now, so anyone waiting on this request sees it completed rather than just matched
+        response.getOutputStream().close();
     }
     
-    private void delayIfNecessary(ClientDriverResponse response) {
+    private void delayIfNecessary(long delayNanos) {
         
-        if (response.getDelayTime() > 0) {
+        if (delayNanos > 0) {
             
             try {
-                response.getDelayTimeUnit().sleep(response.getDelayTime());
+                TimeUnit.NANOSECONDS.sleep(delayNanos);
                 
             } catch (InterruptedException ie) {
                 throw new ClientDriverInternalException("Requested delay was interrupted", ie);
@@ -129,41 +271,139 @@ public final class DefaultClientDriverJettyHandler extends AbstractHandler imple
         
     }
     
-    private synchronized ClientDriverRequestResponsePair getMatchingRequestPair(HttpServletRequest request) {
+    /**
+     * A response which is written once its delay has passed. However the asynchronous request ends, whether written, failed or timed out, it is
+     * completed and counted as finished exactly once.
+     */
+    private final class DelayedResponse implements Runnable, AsyncListener {
         
-        ClientDriverExpectation matchedExpectation = null;
-        HttpRealRequest realRequest = new HttpRealRequest(request);
-        requests.add(realRequest);
-
-        int index;
-        for (index = 0; index < expectations.size(); index++) {
-            ClientDriverExpectation thisExpectation = expectations.get(index);
-            ClientDriverRequestResponsePair thisPair = thisExpectation.getPair();
-            
-            if (matcher.isMatch(realRequest, thisPair.getRequest())) {
-                thisExpectation.match(realRequest);
-                matchedExpectation = thisExpectation;
-                break;
+        private final AsyncContext asyncContext;
+        private final ClientDriverExpectation matchedExpectation;
+        private final AtomicBoolean finished = new AtomicBoolean();
+        
+        private DelayedResponse(AsyncContext asyncContext, ClientDriverExpectation matchedExpectation) {
+            this.asyncContext = asyncContext;
+            this.matchedExpectation = matchedExpectation;
+        }
+        
+        private void start() {
+            try {
+                asyncContext.start(this);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Failed to start writing delayed response", e);
+                finish();
+            }
+        }
+        
+        @Override
+        public void run() {
+            try {
+                writeResponse((HttpServletResponse) asyncContext.getResponse(), matchedExpectation.getPair().getResponse());
+            } catch (IOException e) {
+                LOGGER.warn("Failed to write delayed response", e);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Failed to write delayed response", e);
+            } finally {
+                finish();
             }
         }
         
+        private void finish() {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                asyncContext.complete();
+            } catch (IllegalStateException e) {
+                // the container has already completed it
+            } finally {
+                requestFinished(matchedExpectation);
+            }
+        }
+        
+        @Override
+        public void onComplete(AsyncEvent event) {
+            finish();
+        }
+        
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            finish();
+        }
+        
+        @Override
+        public void onError(AsyncEvent event) {
+            LOGGER.warn("Delayed response failed", event.getThrowable());
+            finish();
+        }
+        
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+        
+    }
+    
+    private ClientDriverExpectation getMatchingExpectation(HttpServletRequest request) {
+        
+        HttpRealRequest realRequest = new HttpRealRequest(request, maxRequestBodyBytes);
+        ClientDriverExpectation matchedExpectation;
+        
+        try {
+            // the body is only read if an expectation for this path looks at it
+            matchedExpectation = claimMatchingExpectation(realRequest);
+        } catch (ClientDriverRequestTooLargeException e) {
+            // nothing was matched, so report it as unexpected when verifying, and answer 413 now
+            realRequest.detach();
+            requests.record(realRequest);
+            unexpectedRequests.add(realRequest);
+            throw e;
+        }
+        
+        if (requests.keepsRequests()) {
+            realRequest.detach();
+        }
+        requests.record(realRequest);
+        
         if (matchedExpectation == null) {
+            realRequest.detach();
             this.unexpectedRequests.add(realRequest);
             
             if (failFastOnUnexpectedRequest) {
-                throw new ClientDriverFailedExpectationException(unexpectedRequests, expectations);
+                throw new ClientDriverFailedExpectationException(unexpectedRequests, expectations.all());
             } else {
                 return null;
             }
         } else {
             if (matchedExpectation.isSatisfied()) {
-                expectations.remove(index);
+                expectations.remove(matchedExpectation);
             }
             
             captureBodyIfRequired(realRequest, matchedExpectation);
             
-            return matchedExpectation.getPair();
+            return matchedExpectation;
+        }
+    }
+    
+    private ClientDriverExpectation claimMatchingExpectation(HttpRealRequest realRequest) {
+        
+        for (ClientDriverExpectation thisExpectation : expectations.candidatesFor(realRequest.getPath())) {
+            ClientDriverRequestResponsePair thisPair = thisExpectation.getPair();
+            
+            if (!matcher.isMatch(realRequest, thisPair.getRequest())) {
+                continue;
+            }
+            
+            if (thisPair.getRequest().getBodyCapture() != null || thisExpectation.hasMatchedRequestHandler()) {
+                // read the body before claiming the match, in case it is too large
+                realRequest.getBodyContent();
+            }
+            
+            if (thisExpectation.tryMatch(realRequest)) {
+                return thisExpectation;
+            }
         }
+        
+        return null;
     }
     
     private void captureBodyIfRequired(HttpRealRequest realRequest,
@@ -178,7 +418,7 @@ public final class DefaultClientDriverJettyHandler extends AbstractHandler imple
     public void checkForUnexpectedRequests() {
         
         if (!unexpectedRequests.isEmpty()) {
-            throw new ClientDriverFailedExpectationException(unexpectedRequests, expectations);
+            throw new ClientDriverFailedExpectationException(unexpectedRequests, expectations.all());
         }
         
     }
@@ -186,48 +426,86 @@ public final class DefaultClientDriverJettyHandler extends AbstractHandler imple
     @Override
     public void checkForUnmatchedExpectations() {
         
-        if (expectations.isEmpty()) {
-            return;
-        }
-        
-        long period = 0;
+        // an expectation which expires unsatisfied has failed, even if it is matched later while we wait for others
         List<ClientDriverExpectation> failedExpectations = Lists.newArrayList();
+        boolean waited = false;
         
         while (true) {
             
-            if (period > 0) {
-                waitFor(period);
-                period = 0;
-            }
+            final List<ClientDriverExpectation> pendingExpectations = respondingExpectations();
+            long soonestExpiry = Long.MAX_VALUE;
             
-            for (ClientDriverExpectation expectation : expectations) {
+            for (ClientDriverExpectation expectation : expectations.all()) {
                 
-                if (expectation.shouldMatchAnyTimes()) {
+                if (expectation.shouldMatchAnyTimes() || expectation.isSatisfied() || failedExpectations.contains(expectation)) {
                     continue;
                 }
                 
                 ClientDriverResponse response = expectation.getPair().getResponse();
                 
                 if (response.canExpire() && response.hasNotExpired()) {
-                    period = DEFAULT_WAIT_INTERVAL;
-                    break;
+                    pendingExpectations.add(expectation);
+                    soonestExpiry = Math.min(soonestExpiry, response.getExpiryTime());
+                    continue;
                 }
                 
                 failedExpectations.add(expectation);
             }
             
-            if (period > 0) {
-                continue;
+            if (pendingExpectations.isEmpty()) {
+                if (!failedExpectations.isEmpty()) {
+                    throw new ClientDriverFailedExpectationException(failedExpectations);
+                }
+                if (waited) {
+                    linger();
+                }
+                return;
             }
             
-            if (!failedExpectations.isEmpty()) {
-                throw new ClientDriverFailedExpectationException(failedExpectations);
-            }
+            // wake up when every pending expectation has been matched and responded to, or the soonest one expires, then look again
+            await(new MatchSignal.Check() {
+                
+                @Override
+                public boolean isMet() {
+                    for (ClientDriverExpectation expectation : pendingExpectations) {
+                        if (!expectation.isCompleted()) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+                
+            }, soonestExpiry - System.currentTimeMillis());
             
-            break;
+            waited = true;
+        }
+    }
+    
+    private static void linger() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(RESPONSE_LINGER_MILLIS);
+        } catch (InterruptedException ie) {
+            throw new ClientDriverInternalException("Waiting for requests was interrupted", ie);
         }
     }
     
+    /**
+     * Expectations which have been matched as many times as they should be, but are still sending a response. They are no longer in the index.
+     */
+    private List<ClientDriverExpectation> respondingExpectations() {
+        List<ClientDriverExpectation> responding = Lists.newArrayList();
+        
+        for (List<ClientDriverExpectation> forRequest : expectationsByRequest.values()) {
+            for (ClientDriverExpectation expectation : forRequest) {
+                if (expectation.isSatisfied() && !expectation.isCompleted()) {
+                    responding.add(expectation);
+                }
+            }
+        }
+        
+        return responding;
+    }
+    
     @Override
     public void noFailFastOnUnexpectedRequest() {
         failFastOnUnexpectedRequest = false;
@@ -236,14 +514,29 @@ public final class DefaultClientDriverJettyHandler extends AbstractHandler imple
     @Override
     public void reset() {
         expectations.clear();
-        matchedResponses.clear();
+        expectationsByRequest.clear();
         unexpectedRequests.clear();
+        requests.clear();
         failFastOnUnexpectedRequest = true;
     }
     
-    private void waitFor(long time) {
+    private List<ClientDriverExpectation> expectationsFor(ClientDriverRequest request) {
+        List<ClientDriverExpectation> forRequest = expectationsByRequest.get(request);
+        
+        if (forRequest == null) {
+            List<ClientDriverExpectation> created = new CopyOnWriteArrayList<ClientDriverExpectation>();
+            forRequest = expectationsByRequest.putIfAbsent(request, created);
+            if (forRequest == null) {
+                forRequest = created;
+            }
+        }
+        
+        return forRequest;
+    }
+    
+    private boolean await(MatchSignal.Check check, long timeoutMillis) {
         try {
-            Thread.sleep(time);
+            return matchSignal.await(check, timeoutMillis, TimeUnit.MILLISECONDS);
         } catch (InterruptedException ie) {
             throw new ClientDriverInternalException("Waiting for requests was interrupted", ie);
         }
@@ -263,20 +556,96 @@ public final class DefaultClientDriverJettyHandler extends AbstractHandler imple
         ClientDriverRequestResponsePair pair = new ClientDriverRequestResponsePair(request, response);
         ClientDriverExpectation expectation = new ClientDriverExpectation(pair);
         expectations.add(expectation);
+        expectationsFor(request).add(expectation);
         return expectation;
     }
 
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>Only requests still in the journal can be counted. If the journal has dropped any requests and the count could be wrong, a
+     * {@link ClientDriverInvalidExpectationException} is thrown. A request's body is only kept if an expectation looked at it while the request was
+     * being matched, so checks on the body only see those requests.</p>
+     */
     @Override
     public void verify(ClientDriverRequest request, int times) {
         int count = 0;
-        for (HttpRealRequest realRequest : requests) {
+        for (RealRequest realRequest : requests.requests()) {
             if (matcher.isMatch(realRequest, request)) {
                 count++;
             }
         }
+        
+        long evicted = requests.evicted();
+        
+        if (evicted > 0 && count <= times) {
+            throw new ClientDriverInvalidExpectationException(String.format("Can't verify %s: %d request(s) have been dropped from the request journal",
+                    request, evicted));
+        }
 
         if (count != times) {
             throw new RuntimeException(String.format("Incorrect request times: %s", request));
         }
     }
+    
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>Matches are counted as they happen, on the expectations which were added with this request, so waiting doesn't look through the
+     * request journal. The request must be the same instance that was passed to {@link #addExpectation(ClientDriverRequest, ClientDriverResponse)},
+     * otherwise a {@link ClientDriverInvalidExpectationException} is thrown.</p>
+     */
+    @Override
+    public void await(ClientDriverRequest request, final int count, long timeout, TimeUnit unit) {
+        
+        if (count < 1) {
+            throw new ClientDriverInvalidExpectationException("Can't wait for fewer than one request");
+        }
+        
+        final List<ClientDriverExpectation> forRequest = expectationsByRequest.get(request);
+        
+        if (forRequest == null) {
+            throw new ClientDriverInvalidExpectationException(String.format("Can't wait for %s: it was not added as an expectation", request));
+        }
+        
+        boolean matched = await(new MatchSignal.Check() {
+            
+            @Override
+            public boolean isMet() {
+                return numberOfMatches(forRequest) >= count;
+            }
+            
+        }, unit.toMillis(timeout));
+        
+        if (!matched) {
+            throw new ClientDriverFailedExpectationException(String.format("Timed out after %d %s waiting for %d request(s), but got %d: %s",
+                    timeout, unit, count, numberOfMatches(forRequest), request));
+        }
+    }
+    
+    private static int numberOfMatches(List<ClientDriverExpectation> forRequest) {
+        int matches = 0;
+        for (ClientDriverExpectation expectation : forRequest) {
+            matches += expectation.getNumberOfMatches();
+        }
+        return matches;
+    }
+    
+    @Override
+    public void awaitIdle(long timeout, TimeUnit unit) {
+        
+        boolean idle = await(new MatchSignal.Check() {
+            
+            @Override
+            public boolean isMet() {
+                return requestsInFlight.get() == 0;
+            }
+            
+        }, unit.toMillis(timeout));
+        
+        if (!idle) {
+            throw new ClientDriverFailedExpectationException(String.format("Timed out after %d %s waiting for %d request(s) to finish",
+                    timeout, unit, requestsInFlight.get()));
+        }
+    }
 }
@@ -0,0 +1,193 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.clientdriver.jetty;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+import com.github.restdriver.clientdriver.ClientDriverExpectation;
+
+/**
+ * The expectations registered with a handler, indexed so that an incoming request only has to be compared with the expectations which could possibly
+ * match it.
+ * 
+ * <p>
+ * Expectations on a literal path are kept in a bucket per path; anything else (regular expressions, custom matchers) is kept in a separate list which
+ * every request is checked against. Candidates are always returned in the order the expectations were registered, so the first registered match
+ * still wins.
+ * </p>
+ * 
+ * <p>
+ * The index is safe to use from several threads without any external locking. A lookup sees a consistent snapshot of each bucket, so an expectation
+ * which is removed concurrently may still be returned as a candidate; callers claim matches with {@link ClientDriverExpectation#tryMatch} to cope with
+ * that.
+ * </p>
+ */
+final class ExpectationIndex {
+    
+    private final boolean indexByPath;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final ConcurrentSkipListMap<Long, ClientDriverExpectation> inOrder = new ConcurrentSkipListMap<Long, ClientDriverExpectation>();
+    private final ConcurrentMap<ClientDriverExpectation, Entry> entries = new ConcurrentHashMap<ClientDriverExpectation, Entry>();
+    private final ConcurrentMap<String, List<Entry>> byPath = new ConcurrentHashMap<String, List<Entry>>();
+    private final List<Entry> unindexed = new CopyOnWriteArrayList<Entry>();
+    
+    /**
+     * @param indexByPath Whether expectations may be looked up by literal path. This is only safe when the request matcher compares literal paths for
+     *            equality.
+     */
+    ExpectationIndex(boolean indexByPath) {
+        this.indexByPath = indexByPath;
+    }
+    
+    void add(ClientDriverExpectation expectation) {
+        String path = literalPathOf(expectation);
+        Entry entry = new Entry(nextSequence.getAndIncrement(), expectation, path);
+        
+        if (entries.putIfAbsent(expectation, entry) != null) {
+            return;
+        }
+        inOrder.put(entry.sequence, expectation);
+        
+        if (path == null) {
+            unindexed.add(entry);
+        } else {
+            addToBucket(path, entry);
+        }
+    }
+    
+    void remove(ClientDriverExpectation expectation) {
+        Entry entry = entries.remove(expectation);
+        
+        if (entry == null) {
+            return;
+        }
+        inOrder.remove(entry.sequence);
+        
+        if (entry.path == null) {
+            unindexed.remove(entry);
+        } else {
+            removeFromBucket(entry.path, entry);
+        }
+    }
+    
+    /**
+     * The expectations which might match a request on the given path, in the order they were registered.
+     * 
+     * @param path The path of the incoming request
+     * @return The candidate expectations
+     */
+    List<ClientDriverExpectation> candidatesFor(String path) {
+        List<Entry> bucket = path == null ? null : byPath.get(path);
+        
+        Entry[] indexed = bucket == null ? new Entry[0] : bucket.toArray(new Entry[0]);
+        Entry[] others = unindexed.toArray(new Entry[0]);
+        
+        if (indexed.length == 0 && others.length == 0) {
+            return Collections.emptyList();
+        }
+        
+        List<ClientDriverExpectation> candidates = new ArrayList<ClientDriverExpectation>(indexed.length + others.length);
+        int i = 0;
+        int o = 0;
+        
+        while (i < indexed.length || o < others.length) {
+            if (o == others.length || (i < indexed.length && indexed[i].sequence < others[o].sequence)) {
+                candidates.add(indexed[i++].expectation);
+            } else {
+                candidates.add(others[o++].expectation);
+            }
+        }
+        
+        return candidates;
+    }
+    
+    /**
+     * @return All expectations, in the order they were registered.
+     */
+    List<ClientDriverExpectation> all() {
+        return new ArrayList<ClientDriverExpectation>(inOrder.values());
+    }
+    
+    boolean isEmpty() {
+        return inOrder.isEmpty();
+    }
+    
+    void clear() {
+        for (ClientDriverExpectation expectation : all()) {
+            remove(expectation);
+        }
+    }
+    
+    /**
+     * @return How many paths currently have a bucket.
+     */
+    int pathCount() {
+        return byPath.size();
+    }
+    
+    // buckets are created and dropped atomically with their contents, so an entry is never added to a bucket which has just been dropped
+    
+    private void addToBucket(String path, final Entry entry) {
+        byPath.compute(path, new BiFunction<String, List<Entry>, List<Entry>>() {
+            @Override
+            public List<Entry> apply(String key, List<Entry> bucket) {
+                List<Entry> result = bucket == null ? new CopyOnWriteArrayList<Entry>() : bucket;
+                result.add(entry);
+                return result;
+            }
+        });
+    }
+    
+    private void removeFromBucket(String path, final Entry entry) {
+        byPath.computeIfPresent(path, new BiFunction<String, List<Entry>, List<Entry>>() {
+            @Override
+            public List<Entry> apply(String key, List<Entry> bucket) {
+                bucket.remove(entry);
+                return bucket.isEmpty() ? null : bucket;
+            }
+        });
+    }
+    
+    private String literalPathOf(ClientDriverExpectation expectation) {
+        if (!indexByPath) {
+            return null;
+        }
+        return expectation.getPair().getRequest().getLiteralPath();
+    }
+    
+    private static final class Entry {
+        
+        private final long sequence;
+        private final ClientDriverExpectation expectation;
+        private final String path;
+        
+        private Entry(long sequence, ClientDriverExpectation expectation, String path) {
+            this.sequence = sequence;
+            this.expectation = expectation;
+            this.path = path;
+        }
+        
+    }
+    
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.clientdriver.jetty;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lets threads wait for requests to be matched, instead of polling.
+ * 
+ * <p>
+ * Matching threads call {@link #signal()} after every match. This only takes a lock when some thread is actually waiting, so matching stays
+ * lock-free the rest of the time.
+ * </p>
+ */
+final class MatchSignal {
+    
+    /**
+     * Something to wait for.
+     */
+    interface Check {
+        
+        boolean isMet();
+        
+    }
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition matched = lock.newCondition();
+    private final AtomicInteger waiters = new AtomicInteger();
+    
+    /**
+     * Wake up any waiting threads so that they check again.
+     */
+    void signal() {
+        if (waiters.get() == 0) {
+            return;
+        }
+        
+        lock.lock();
+        try {
+            matched.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Wait until the check is met, checking again each time a request is matched.
+     * 
+     * @param check What to wait for
+     * @param timeout How long to wait at most
+     * @param unit The unit of the timeout
+     * @return Whether the check was met before the timeout
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    boolean await(Check check, long timeout, TimeUnit unit) throws InterruptedException {
+        // Registering as a waiter before the first check means a match which happens after it always signals.
+        waiters.incrementAndGet();
+        lock.lock();
+        try {
+            long remaining = unit.toNanos(timeout);
+            
+            while (!check.isMet()) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = matched.awaitNanos(remaining);
+            }
+            
+            return true;
+            
+        } finally {
+            lock.unlock();
+            waiters.decrementAndGet();
+        }
+    }
+    
+}
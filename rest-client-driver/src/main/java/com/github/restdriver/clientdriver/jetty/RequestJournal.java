@@ -0,0 +1,183 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.clientdriver.jetty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.github.restdriver.clientdriver.ClientDriverRequest.Method;
+import com.github.restdriver.clientdriver.RealRequest;
+
+/**
+ * The requests a handler has received, kept so that they can be verified afterwards.
+ * 
+ * <p>
+ * The journal can keep every request, only the most recent ones in a ring buffer, or none at all, and can truncate the bodies it keeps. Requests are
+ * recorded without any locking.
+ * </p>
+ */
+final class RequestJournal {
+    
+    private final int capacity;
+    private final int maxBodyBytes;
+    private final ConcurrentLinkedQueue<RealRequest> everything;
+    private final AtomicReferenceArray<RealRequest> ring;
+    private final AtomicLong recorded = new AtomicLong();
+    
+    /**
+     * @param capacity How many requests to keep; {@link DefaultClientDriverJettyHandler#UNLIMITED} to keep them all or 0 to keep none
+     * @param maxBodyBytes How much of each body to keep, or {@link DefaultClientDriverJettyHandler#UNLIMITED} to keep it all
+     */
+    RequestJournal(int capacity, int maxBodyBytes) {
+        this.capacity = capacity;
+        this.maxBodyBytes = maxBodyBytes;
+        this.everything = capacity < 0 ? new ConcurrentLinkedQueue<RealRequest>() : null;
+        this.ring = capacity > 0 ? new AtomicReferenceArray<RealRequest>(capacity) : null;
+    }
+    
+    void record(RealRequest request) {
+        long sequence = recorded.getAndIncrement();
+        
+        if (capacity == 0) {
+            return;
+        }
+        
+        RealRequest entry = request;
+        if (maxBodyBytes >= 0 && request.getBodyContent() != null && request.getBodyContent().length > maxBodyBytes) {
+            entry = new TruncatedRequest(request, maxBodyBytes);
+        }
+        
+        if (everything != null) {
+            everything.add(entry);
+        } else {
+            ring.set((int) (sequence % capacity), entry);
+        }
+    }
+    
+    /**
+     * @return Whether recorded requests are kept, so must be detached before they are recorded
+     */
+    boolean keepsRequests() {
+        return capacity != 0;
+    }
+    
+    /**
+     * @return The requests still in the journal
+     */
+    List<RealRequest> requests() {
+        if (everything != null) {
+            return new ArrayList<RealRequest>(everything);
+        }
+        
+        List<RealRequest> requests = new ArrayList<RealRequest>();
+        
+        if (ring != null) {
+            for (int i = 0; i < ring.length(); i++) {
+                RealRequest request = ring.get(i);
+                if (request != null) {
+                    requests.add(request);
+                }
+            }
+        }
+        
+        return requests;
+    }
+    
+    /**
+     * @return How many requests have been received but are no longer in the journal
+     */
+    long evicted() {
+        if (capacity < 0) {
+            return 0;
+        }
+        return Math.max(0, recorded.get() - capacity);
+    }
+    
+    /**
+     * Forget every request. Requests recorded while this runs may or may not be kept.
+     */
+    void clear() {
+        if (everything != null) {
+            everything.clear();
+        }
+        if (ring != null) {
+            for (int i = 0; i < ring.length(); i++) {
+                ring.set(i, null);
+            }
+        }
+        recorded.set(0);
+    }
+    
+    /**
+     * A copy of a request with its body cut short. It doesn't refer to the original request, so the full body can be collected.
+     */
+    private static final class TruncatedRequest implements RealRequest {
+        
+        private final Method method;
+        private final String path;
+        private final Map<String, Collection<String>> params;
+        private final Map<String, Object> headers;
+        private final String bodyContentType;
+        private final byte[] bodyContent;
+        
+        private TruncatedRequest(RealRequest request, int maxBodyBytes) {
+            this.method = request.getMethod();
+            this.path = request.getPath();
+            this.params = request.getParams();
+            this.headers = request.getHeaders();
+            this.bodyContentType = request.getBodyContentType();
+            this.bodyContent = Arrays.copyOf(request.getBodyContent(), maxBodyBytes);
+        }
+        
+        @Override
+        public Method getMethod() {
+            return method;
+        }
+        
+        @Override
+        public String getPath() {
+            return path;
+        }
+        
+        @Override
+        public Map<String, Collection<String>> getParams() {
+            return params;
+        }
+        
+        @Override
+        public Map<String, Object> getHeaders() {
+            return headers;
+        }
+        
+        @Override
+        public String getBodyContentType() {
+            return bodyContentType;
+        }
+        
+        @Override
+        public byte[] getBodyContent() {
+            return bodyContent;
+        }
+        
+    }
+    
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.clientdriver.jetty;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import org.eclipse.jetty.io.Connection;
+import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.io.ManagedSelector;
+import org.eclipse.jetty.io.SelectorManager;
+import org.eclipse.jetty.io.SocketChannelEndPoint;
+import org.eclipse.jetty.server.AbstractConnector;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Server;
+
+import com.github.restdriver.UnixDomainSockets;
+import com.github.restdriver.clientdriver.exception.ClientDriverSetupException;
+
+/**
+ * A Jetty connector which accepts plain HTTP connections on a Unix domain socket rather than a TCP port. The socket file is created when the
+ * connector is opened and deleted when it stops.
+ * 
+ * <p>
+ * Unix domain socket channels need Java 16 or later, see {@link UnixDomainSockets}; opening this connector on an older JVM throws a
+ * {@link ClientDriverSetupException}.
+ * </p>
+ */
+public final class UnixDomainServerConnector extends AbstractConnector {
+    
+    private final File socketFile;
+    private final SelectorManager selectorManager;
+    private volatile ServerSocketChannel serverChannel;
+    
+    /**
+     * Constructor.
+     * 
+     * @param server The server this connector will be added to.
+     * @param socketFile The socket file to listen on, which must not exist yet.
+     * @param acceptors The number of threads accepting connections, at least one is always used.
+     * @param selectors The number of threads selecting on connections, or -1 for Jetty's default.
+     */
+    public UnixDomainServerConnector(Server server, File socketFile, int acceptors, int selectors) {
+        super(server, null, null, null, Math.max(1, acceptors), new HttpConnectionFactory());
+        this.socketFile = socketFile;
+        this.selectorManager = new UnixDomainSelectorManager(this, selectors);
+        addBean(selectorManager, true);
+    }
+    
+    /**
+     * The socket file this connector listens on.
+     * 
+     * @return The socket file
+     */
+    public File getSocketFile() {
+        return socketFile;
+    }
+    
+    /**
+     * Create the socket file and start listening on it, so that clients can connect as soon as this returns. This is done when the connector
+     * starts, if it hasn't been done before.
+     */
+    public synchronized void open() {
+        if (serverChannel != null) {
+            return;
+        }
+        
+        if (!UnixDomainSockets.isSupported()) {
+            throw new ClientDriverSetupException("Unix domain sockets need Java 16 or later", null);
+        }
+        
+        try {
+            serverChannel = UnixDomainSockets.bind(socketFile);
+        } catch (IOException e) {
+            throw new ClientDriverSetupException("Error binding to Unix domain socket " + socketFile, e);
+        }
+    }
+    
+    @Override
+    public Object getTransport() {
+        return serverChannel;
+    }
+    
+    @Override
+    protected void doStart() throws Exception {
+        open();
+        super.doStart();
+    }
+    
+    @Override
+    protected void doStop() throws Exception {
+        synchronized (this) {
+            if (serverChannel != null) {
+                serverChannel.close();
+                serverChannel = null;
+            }
+        }
+        
+        super.doStop();
+        
+        if (!socketFile.delete() && socketFile.exists()) {
+            LOG.warn("Could not delete Unix domain socket {}", socketFile);
+        }
+    }
+    
+    @Override
+    protected void accept(int acceptorID) throws IOException {
+        ServerSocketChannel channel = serverChannel;
+        
+        if (channel == null) {
+            throw new ClosedChannelException();
+        }
+        
+        SocketChannel accepted = channel.accept();
+        accepted.configureBlocking(false);
+        selectorManager.accept(accepted);
+    }
+    
+    private static final class UnixDomainSelectorManager extends SelectorManager {
+        
+        private final UnixDomainServerConnector connector;
+        
+        UnixDomainSelectorManager(UnixDomainServerConnector connector, int selectors) {
+            super(connector.getExecutor(), connector.getScheduler(), selectors);
+            this.connector = connector;
+        }
+        
+        @Override
+        protected EndPoint newEndPoint(SelectableChannel channel, ManagedSelector selector, SelectionKey key) {
+            SocketChannelEndPoint endPoint = new SocketChannelEndPoint((SocketChannel) channel, selector, key, getScheduler());
+            endPoint.setIdleTimeout(connector.getIdleTimeout());
+            return endPoint;
+        }
+        
+        @Override
+        public Connection newConnection(SelectableChannel channel, EndPoint endPoint, Object attachment) {
+            return connector.getDefaultConnectionFactory().newConnection(connector, endPoint);
+        }
+        
+        @Override
+        protected void endPointOpened(EndPoint endPoint) {
+            super.endPointOpened(endPoint);
+            connector.onEndPointOpened(endPoint);
+        }
+        
+        @Override
+        protected void endPointClosed(EndPoint endPoint) {
+            connector.onEndPointClosed(endPoint);
+            super.endPointClosed(endPoint);
+        }
+        
+    }
+    
+}
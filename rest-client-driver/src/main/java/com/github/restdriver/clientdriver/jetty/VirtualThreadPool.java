@@ -0,0 +1,117 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.clientdriver.jetty;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+import com.github.restdriver.clientdriver.exception.ClientDriverSetupException;
+
+/**
+ * A Jetty {@link ThreadPool} which runs every job on a new virtual thread, so the server can hold tens of thousands of slow connections at once.
+ * 
+ * <p>
+ * Virtual threads need Java 21 or later. They are looked up reflectively, so this class can be compiled for older versions; starting it on an older
+ * JVM throws a {@link ClientDriverSetupException}.
+ * </p>
+ */
+public final class VirtualThreadPool extends AbstractLifeCycle implements ThreadPool {
+    
+    private volatile ExecutorService executor;
+    
+    /**
+     * Whether the running JVM supports virtual threads.
+     * 
+     * @return True if virtual threads are available
+     */
+    public static boolean isSupported() {
+        return factoryMethod() != null;
+    }
+    
+    @Override
+    protected void doStart() throws Exception {
+        executor = newVirtualThreadPerTaskExecutor();
+        super.doStart();
+    }
+    
+    @Override
+    protected void doStop() throws Exception {
+        executor.shutdownNow();
+        super.doStop();
+    }
+    
+    @Override
+    public void execute(Runnable job) {
+        executor.execute(job);
+    }
+    
+    @Override
+    public void join() throws InterruptedException {
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Virtual threads are not pooled, so this is always zero.
+     */
+    @Override
+    public int getThreads() {
+        return 0;
+    }
+    
+    /**
+     * Virtual threads are not pooled, so this is always zero.
+     */
+    @Override
+    public int getIdleThreads() {
+        return 0;
+    }
+    
+    @Override
+    public boolean isLowOnThreads() {
+        return false;
+    }
+    
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        Method factory = factoryMethod();
+        
+        if (factory == null) {
+            throw new ClientDriverSetupException("Virtual threads need Java 21 or later, this is Java " + System.getProperty("java.version"), null);
+        }
+        
+        try {
+            return (ExecutorService) factory.invoke(null);
+        } catch (IllegalAccessException e) {
+            throw new ClientDriverSetupException("Couldn't create virtual thread executor", e);
+        } catch (InvocationTargetException e) {
+            throw new ClientDriverSetupException("Couldn't create virtual thread executor", e.getCause());
+        }
+    }
+    
+    private static Method factoryMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+    
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.clientdriver.delay;
+
+import static com.github.restdriver.clientdriver.delay.DelayDistributions.*;
+import static java.util.concurrent.TimeUnit.*;
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DelayDistributionsTest {
+    
+    private static final int SAMPLES = 10000;
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    @Test
+    public void sameSeedGivesSameDelays() {
+        assertThat(samples(logNormal(20, 0.5, MILLISECONDS, 42)), is(samples(logNormal(20, 0.5, MILLISECONDS, 42))));
+        assertThat(samples(logNormal(20, 0.5, MILLISECONDS, 42)), is(not(samples(logNormal(20, 0.5, MILLISECONDS, 43)))));
+    }
+    
+    @Test
+    public void logNormalDelaysHaveTheGivenMedian() {
+        long[] samples = sorted(logNormal(20, 0.5, MILLISECONDS, 1));
+        
+        assertThat((double) samples[SAMPLES / 2], is(closeTo(MILLISECONDS.toNanos(20), MILLISECONDS.toNanos(1))));
+    }
+    
+    @Test
+    public void paretoDelaysAreNeverBelowTheMinimum() {
+        long[] samples = sorted(pareto(10, 1.5, MILLISECONDS, 1));
+        
+        assertThat(samples[0], is(greaterThanOrEqualTo(MILLISECONDS.toNanos(10))));
+        assertThat(samples[SAMPLES - 1], is(greaterThan(MILLISECONDS.toNanos(100))));
+    }
+    
+    @Test
+    public void percentileDelaysFollowTheTable() {
+        long[] samples = sorted(percentiles(MILLISECONDS, 1).at(50, 20).at(99, 400).at(100, 500));
+        
+        assertThat((double) samples[SAMPLES / 2], is(closeTo(MILLISECONDS.toNanos(20), MILLISECONDS.toNanos(2))));
+        assertThat((double) samples[SAMPLES * 99 / 100], is(closeTo(MILLISECONDS.toNanos(400), MILLISECONDS.toNanos(10))));
+        assertThat(samples[SAMPLES - 1], is(lessThanOrEqualTo(MILLISECONDS.toNanos(500))));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void percentileDelaysMustNotDecrease() {
+        percentiles(MILLISECONDS, 1).at(50, 20).at(99, 10);
+    }
+    
+    @Test
+    public void empiricalDelaysAreChosenFromTheFile() throws IOException {
+        File file = folder.newFile("delays.txt");
+        FileUtils.writeStringToFile(file, "# recorded delays\n5\n\n10\n15\n");
+        
+        long[] samples = sorted(empirical(file, MILLISECONDS, 1));
+        
+        assertThat(samples[0], is(MILLISECONDS.toNanos(5)));
+        assertThat(samples[SAMPLES - 1], is(MILLISECONDS.toNanos(15)));
+        for (long sample : samples) {
+            assertThat(sample, isOneOf(MILLISECONDS.toNanos(5), MILLISECONDS.toNanos(10), MILLISECONDS.toNanos(15)));
+        }
+    }
+    
+    private static long[] samples(DelayDistribution distribution) {
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            samples[i] = distribution.nextDelayNanos();
+        }
+        return samples;
+    }
+    
+    private static long[] sorted(DelayDistribution distribution) {
+        long[] samples = samples(distribution);
+        Arrays.sort(samples);
+        return samples;
+    }
+    
+}
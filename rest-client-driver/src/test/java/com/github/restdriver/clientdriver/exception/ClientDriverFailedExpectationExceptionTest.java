@@ -119,7 +119,10 @@ public class ClientDriverFailedExpectationExceptionTest {
             // Should never happen
         }
         
-        return new HttpRealRequest(mock);
+        // the handler detaches every unexpected request before reporting it
+        HttpRealRequest request = new HttpRealRequest(mock);
+        request.detach();
+        return request;
     }
     
     private Enumeration<String> createHeaderNames() {
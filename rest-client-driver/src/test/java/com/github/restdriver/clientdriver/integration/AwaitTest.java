@@ -0,0 +1,153 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.clientdriver.integration;
+
+import static com.github.restdriver.clientdriver.RestClientDriver.*;
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.restdriver.clientdriver.ClientDriver;
+import com.github.restdriver.clientdriver.ClientDriverFactory;
+import com.github.restdriver.clientdriver.ClientDriverRequest;
+import com.github.restdriver.clientdriver.exception.ClientDriverFailedExpectationException;
+import com.github.restdriver.clientdriver.exception.ClientDriverInvalidExpectationException;
+
+public class AwaitTest {
+    
+    private ClientDriver clientDriver;
+    
+    @Before
+    public void before() {
+        clientDriver = new ClientDriverFactory().createClientDriver();
+    }
+    
+    @After
+    public void after() {
+        clientDriver.shutdownQuietly();
+    }
+    
+    @Test
+    public void awaitReturnsOnceRequestHasBeenMatchedEnoughTimes() {
+        
+        ClientDriverRequest request = onRequestTo("/foo");
+        clientDriver.addExpectation(request, giveEmptyResponse()).anyTimes();
+        
+        sendInBackground("/foo", 3, 50);
+        
+        clientDriver.await(request, 3, 5, TimeUnit.SECONDS);
+        
+        clientDriver.verify(request, 3);
+    }
+    
+    @Test
+    public void requestsMatchedBeforeAwaitingAreCounted() {
+        
+        ClientDriverRequest request = onRequestTo("/foo");
+        clientDriver.addExpectation(request, giveEmptyResponse()).times(2);
+        
+        hitThat(clientDriver.getBaseUrl() + "/foo");
+        hitThat(clientDriver.getBaseUrl() + "/foo");
+        
+        long start = System.currentTimeMillis();
+        
+        clientDriver.await(request, 2, 5, TimeUnit.SECONDS);
+        
+        assertThat(System.currentTimeMillis() - start, is(lessThan(1000L)));
+    }
+    
+    @Test(expected = ClientDriverFailedExpectationException.class)
+    public void awaitFailsWhenRequestIsNotMatchedEnoughTimesInTime() {
+        
+        ClientDriverRequest request = onRequestTo("/foo");
+        clientDriver.addExpectation(request, giveEmptyResponse()).anyTimes();
+        
+        hitThat(clientDriver.getBaseUrl() + "/foo");
+        
+        clientDriver.await(request, 2, 200, TimeUnit.MILLISECONDS);
+    }
+    
+    @Test(expected = ClientDriverInvalidExpectationException.class)
+    public void awaitingRequestWhichWasNotExpectedFails() {
+        
+        clientDriver.addExpectation(onRequestTo("/foo"), giveEmptyResponse());
+        
+        clientDriver.await(onRequestTo("/foo"), 1, 200, TimeUnit.MILLISECONDS);
+    }
+    
+    @Test
+    public void awaitIdleWaitsForSlowResponses() {
+        
+        ClientDriverRequest request = onRequestTo("/slow");
+        clientDriver.addExpectation(request, giveEmptyResponse().after(300, TimeUnit.MILLISECONDS));
+        
+        long start = System.currentTimeMillis();
+        
+        sendInBackground("/slow", 1, 0);
+        
+        clientDriver.await(request, 1, 5, TimeUnit.SECONDS);
+        clientDriver.awaitIdle(5, TimeUnit.SECONDS);
+        
+        assertThat(System.currentTimeMillis() - start, is(greaterThanOrEqualTo(300L)));
+    }
+    
+    @Test
+    public void awaitIdleReturnsImmediatelyWhenNothingIsHappening() {
+        clientDriver.awaitIdle(0, TimeUnit.SECONDS);
+    }
+    
+    private void sendInBackground(final String path, final int times, final long intervalMillis) {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < times; i++) {
+                    schnooze(intervalMillis);
+                    hitThat(clientDriver.getBaseUrl() + path);
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    private static void schnooze(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    private static void hitThat(String url) {
+        try {
+            HttpClient client = new DefaultHttpClient();
+            HttpGet get = new HttpGet(url);
+            client.execute(get);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+}
@@ -28,6 +28,8 @@ import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.DefaultHttpClient;
 import org.junit.Test;
 
+import com.github.restdriver.PortAllocator;
+import com.github.restdriver.PortReservation;
 import com.github.restdriver.SocketUtil;
 import com.github.restdriver.clientdriver.ClientDriver;
 import com.github.restdriver.clientdriver.ClientDriverFactory;
@@ -68,6 +70,25 @@ public class ChooseOwnPortTest {
         
     }
     
+    @Test
+    public void userCanHandOverBoundPort() throws IOException {
+        
+        PortReservation reservation = PortAllocator.bindFreePort();
+        
+        ClientDriver driver = new ClientDriverFactory().port(reservation).build();
+        driver.addExpectation(onRequestTo("/url"), giveResponse("hello", "text/plain"));
+        
+        HttpClient client = new DefaultHttpClient();
+        HttpGet getter = new HttpGet("http://localhost:" + reservation.getPort() + "/url");
+        HttpResponse response = client.execute(getter);
+        
+        assertThat(driver.getPort(), is(reservation.getPort()));
+        assertThat(IOUtils.toString(response.getEntity().getContent()), is("hello"));
+        
+        driver.shutdown();
+        
+    }
+    
     @Test
     public void jettyFindsFreePortItself() {
         
@@ -0,0 +1,134 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.clientdriver.integration;
+
+import static com.github.restdriver.clientdriver.RestClientDriver.*;
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.io.IOException;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.restdriver.clientdriver.ClientDriver;
+import com.github.restdriver.clientdriver.ClientDriverFactory;
+import com.github.restdriver.clientdriver.ClientDriverHost;
+import com.github.restdriver.clientdriver.exception.ClientDriverSetupException;
+
+public class ClientDriverHostTest {
+    
+    private ClientDriverHost host;
+    
+    @Before
+    public void before() {
+        host = new ClientDriverFactory().buildHost();
+    }
+    
+    @After
+    public void after() {
+        host.shutdown();
+    }
+    
+    @Test
+    public void virtualDriversAtPathsServeTheirOwnExpectations() throws IOException {
+        
+        ClientDriver payments = host.atPath("payments");
+        ClientDriver users = host.atPath("users");
+        
+        payments.addExpectation(onRequestTo("/foo"), giveResponse("payments", "text/plain"));
+        users.addExpectation(onRequestTo("/foo"), giveResponse("users", "text/plain"));
+        
+        assertThat(payments.getBaseUrl(), is("http://localhost:" + host.getPort() + "/payments"));
+        assertThat(body(get(payments.getBaseUrl() + "/foo", null)), is("payments"));
+        assertThat(body(get(users.getBaseUrl() + "/foo", null)), is("users"));
+        
+        payments.verify();
+        users.verify();
+        payments.verify(onRequestTo("/foo"), 1);
+    }
+    
+    @Test
+    public void virtualDriversKeepSeparateJournals() throws IOException {
+        
+        ClientDriver payments = host.atPath("payments");
+        ClientDriver users = host.atPath("users");
+        payments.addExpectation(onRequestTo("/foo"), giveEmptyResponse());
+        
+        get(payments.getBaseUrl() + "/foo", null);
+        
+        payments.verify(onRequestTo("/foo"), 1);
+        users.verify(onRequestTo("/foo"), 0);
+    }
+    
+    @Test
+    public void virtualDriverForHostIsRoutedByHostHeader() throws IOException {
+        
+        ClientDriver payments = host.forHost("payments.test");
+        payments.addExpectation(onRequestTo("/foo"), giveResponse("payments", "text/plain"));
+        
+        HttpResponse response = get("http://localhost:" + host.getPort() + "/foo", "payments.test");
+        
+        assertThat(body(response), is("payments"));
+        assertThat(payments.getBaseUrl(), is("http://payments.test:" + host.getPort()));
+        payments.verify();
+    }
+    
+    @Test
+    public void requestsForUnknownVirtualDriversGetNotFound() throws IOException {
+        
+        host.atPath("payments");
+        
+        assertThat(get("http://localhost:" + host.getPort() + "/users/foo", null).getStatusLine().getStatusCode(), is(404));
+    }
+    
+    @Test
+    public void shuttingDownVirtualDriverRemovesItFromTheHost() throws IOException {
+        
+        ClientDriver payments = host.atPath("payments");
+        payments.addExpectation(onRequestTo("/foo"), giveEmptyResponse()).anyTimes();
+        
+        payments.shutdownQuietly();
+        
+        assertThat(get(payments.getBaseUrl() + "/foo", null).getStatusLine().getStatusCode(), is(404));
+    }
+    
+    @Test(expected = ClientDriverSetupException.class)
+    public void pathCanOnlyBeUsedOnce() {
+        host.atPath("payments");
+        host.atPath("payments");
+    }
+    
+    private static HttpResponse get(String url, String hostHeader) throws IOException {
+        HttpClient client = new DefaultHttpClient();
+        HttpGet get = new HttpGet(url);
+        if (hostHeader != null) {
+            get.setHeader("Host", hostHeader);
+        }
+        return client.execute(get);
+    }
+    
+    private static String body(HttpResponse response) throws IOException {
+        return EntityUtils.toString(response.getEntity());
+    }
+    
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.clientdriver.integration;
+
+import static com.github.restdriver.clientdriver.RestClientDriver.*;
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import com.github.restdriver.clientdriver.ClientDriver;
+import com.github.restdriver.clientdriver.ClientDriverCompletedListener;
+import com.github.restdriver.clientdriver.ClientDriverFactory;
+import com.github.restdriver.clientdriver.ClientDriverPool;
+import com.github.restdriver.clientdriver.ClientDriverRule;
+
+public class ClientDriverPoolTest {
+    
+    @Rule
+    public ClientDriverRule driver = new ClientDriverRule(ClientDriverPool.shared());
+    
+    private final ClientDriverPool pool = new ClientDriverPool(new ClientDriverFactory());
+    
+    @After
+    public void after() {
+        pool.shutdown();
+    }
+    
+    @Test
+    public void pooledRuleServesExpectations() throws IOException {
+        
+        driver.addExpectation(onRequestTo("/foo"), giveResponse("pooled", "text/plain"));
+        
+        assertThat(get(driver.getBaseUrl() + "/foo").getStatusLine().getStatusCode(), is(200));
+    }
+    
+    @Test
+    public void releasedDriverIsLeasedAgainOnANewPort() {
+        
+        ClientDriver first = pool.lease();
+        int firstPort = first.getPort();
+        pool.release(first);
+        
+        ClientDriver second = pool.lease();
+        
+        assertThat(second, is(sameInstance(first)));
+        assertThat(second.getPort(), is(not(firstPort)));
+    }
+    
+    @Test
+    public void releasedDriverForgetsExpectationsAndRequests() throws IOException {
+        
+        ClientDriver first = pool.lease();
+        first.addExpectation(onRequestTo("/foo"), giveEmptyResponse()).times(2);
+        get(first.getBaseUrl() + "/foo");
+        pool.release(first);
+        
+        ClientDriver second = pool.lease();
+        
+        second.verify();
+        second.verify(onRequestTo("/foo"), 0);
+    }
+    
+    @Test(expected = IOException.class)
+    public void releasedDriverNoLongerListensOnTheOldPort() throws IOException {
+        
+        ClientDriver first = pool.lease();
+        String oldBaseUrl = first.getBaseUrl();
+        pool.release(first);
+        
+        get(oldBaseUrl + "/foo");
+    }
+    
+    @Test
+    public void listenersAreCalledBeforeTheDriverIsResetEvenIfTheyThrow() throws Throwable {
+        
+        final ClientDriverRule rule = new ClientDriverRule(pool);
+        final int leasedPort = rule.getPort();
+        final int[] portSeenByListener = new int[1];
+        
+        rule.whenCompleted(new ClientDriverCompletedListener() {
+            @Override
+            public void hasCompleted() {
+                portSeenByListener[0] = rule.getPort();
+                throw new IllegalStateException("listener failed");
+            }
+        });
+        
+        try {
+            rule.apply(new Statement() {
+                @Override
+                public void evaluate() {
+                }
+            }, Description.EMPTY).evaluate();
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), is("listener failed"));
+        }
+        
+        ClientDriver next = pool.lease();
+        
+        assertThat(portSeenByListener[0], is(leasedPort));
+        assertThat(next.getPort(), is(not(leasedPort)));
+    }
+    
+    @Test
+    public void concurrentLeasesGetDifferentDrivers() {
+        
+        ClientDriver first = pool.lease();
+        ClientDriver second = pool.lease();
+        
+        assertThat(second, is(not(sameInstance(first))));
+        assertThat(second.getPort(), is(not(first.getPort())));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void driversOnAUnixSocketCannotBePooled() {
+        new ClientDriverPool(new ClientDriverFactory().unixSocket(new File("pooled.sock")));
+    }
+    
+    private static HttpResponse get(String url) throws IOException {
+        HttpClient client = new DefaultHttpClient();
+        return client.execute(new HttpGet(url));
+    }
+    
+}
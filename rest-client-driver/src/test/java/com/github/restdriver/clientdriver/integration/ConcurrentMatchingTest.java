@@ -0,0 +1,90 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.clientdriver.integration;
+
+import static com.github.restdriver.clientdriver.RestClientDriver.*;
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.junit.Test;
+
+import com.github.restdriver.clientdriver.ClientDriver;
+import com.github.restdriver.clientdriver.ClientDriverFactory;
+
+public class ConcurrentMatchingTest {
+    
+    private static final int THREADS = 8;
+    private static final int REQUESTS_PER_THREAD = 10;
+    
+    @Test
+    public void concurrentRequestsMatchAnExpectationExactlyAsManyTimesAsExpected() throws Exception {
+        
+        final ClientDriver driver = new ClientDriverFactory().createClientDriver();
+        driver.noFailFastOnUnexpectedRequest();
+        driver.addExpectation(onRequestTo("/request"), giveResponse("first", "text/plain")).times(25);
+        driver.addExpectation(onRequestTo("/request"), giveResponse("second", "text/plain")).times(25);
+        
+        final AtomicInteger first = new AtomicInteger();
+        final AtomicInteger second = new AtomicInteger();
+        final AtomicInteger notFound = new AtomicInteger();
+        List<Thread> threads = new ArrayList<Thread>();
+        
+        for (int i = 0; i < THREADS; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    DefaultHttpClient client = new DefaultHttpClient();
+                    for (int j = 0; j < REQUESTS_PER_THREAD; j++) {
+                        try {
+                            HttpResponse response = client.execute(new HttpGet(driver.getBaseUrl() + "/request"));
+                            String body = response.getEntity() == null ? "" : EntityUtils.toString(response.getEntity());
+                            if (response.getStatusLine().getStatusCode() == 404) {
+                                notFound.incrementAndGet();
+                            } else if ("first".equals(body)) {
+                                first.incrementAndGet();
+                            } else if ("second".equals(body)) {
+                                second.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        driver.shutdownQuietly();
+        
+        assertThat(first.get(), is(25));
+        assertThat(second.get(), is(25));
+        assertThat(notFound.get(), is(THREADS * REQUESTS_PER_THREAD - 50));
+    }
+    
+}
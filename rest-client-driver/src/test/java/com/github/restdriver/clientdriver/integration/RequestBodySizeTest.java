@@ -0,0 +1,160 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.clientdriver.integration;
+
+import static com.github.restdriver.clientdriver.RestClientDriver.*;
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.github.restdriver.clientdriver.ClientDriver;
+import com.github.restdriver.clientdriver.ClientDriverExpectation;
+import com.github.restdriver.clientdriver.ClientDriverFactory;
+import com.github.restdriver.clientdriver.ClientDriverRequest.Method;
+import com.github.restdriver.clientdriver.exception.ClientDriverFailedExpectationException;
+
+public class RequestBodySizeTest {
+    
+    private static final String LARGE_BODY = StringUtils.repeat("x", 100000);
+    
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+    
+    private ClientDriver driver;
+    
+    @Before
+    public void createDriver() {
+        driver = new ClientDriverFactory().maxRequestBodySize(1000).noRequestJournal().build();
+    }
+    
+    @After
+    public void shutdownDriver() {
+        driver.shutdownQuietly();
+    }
+    
+    @Test
+    public void bodyBiggerThanMaximumGets413WhenAnExpectationNeedsIt() throws Exception {
+        driver.addExpectation(onRequestTo("/upload").withMethod(Method.POST).withBody(containsString("x"), "text/plain"), giveEmptyResponse());
+        
+        assertThat(post("/upload", LARGE_BODY), is(413));
+    }
+    
+    @Test
+    public void bodyBiggerThanMaximumIsNotReadWhenNoExpectationNeedsIt() throws Exception {
+        driver.addExpectation(onRequestTo("/upload").withMethod(Method.POST), giveEmptyResponse().withStatus(202));
+        
+        assertThat(post("/upload", LARGE_BODY), is(202));
+    }
+    
+    @Test
+    public void bodyWithinMaximumIsMatched() throws Exception {
+        driver.addExpectation(onRequestTo("/upload").withMethod(Method.POST).withBody(containsString("x"), "text/plain"), giveEmptyResponse().withStatus(201));
+        
+        assertThat(post("/upload", "xxx"), is(201));
+    }
+    
+    @Test
+    public void journaledBodyBiggerThanMaximumDoesNotUseUpAnExpectation() throws Exception {
+        ClientDriver journaled = new ClientDriverFactory().maxRequestBodySize(1000).build();
+        
+        try {
+            ClientDriverExpectation expectation = journaled.addExpectation(onRequestTo("/upload").withMethod(Method.POST).withBody(containsString("x"),
+                    "text/plain"), giveEmptyResponse().withStatus(202));
+            
+            assertThat(post(journaled, "/upload", LARGE_BODY), is(413));
+            assertThat(expectation.getNumberOfMatches(), is(0));
+            assertThat(post(journaled, "/upload", "xxx"), is(202));
+            
+            thrown.expect(ClientDriverFailedExpectationException.class);
+            journaled.verify();
+        } finally {
+            journaled.shutdownQuietly();
+        }
+    }
+    
+    @Test
+    public void journaledBodyBiggerThanMaximumIsNotReadWhenNoExpectationNeedsIt() throws Exception {
+        ClientDriver journaled = new ClientDriverFactory().maxRequestBodySize(1000).build();
+        
+        try {
+            journaled.addExpectation(onRequestTo("/upload").withMethod(Method.POST), giveEmptyResponse().withStatus(202));
+            
+            assertThat(post(journaled, "/upload", LARGE_BODY), is(202));
+            
+            journaled.verify();
+        } finally {
+            journaled.shutdownQuietly();
+        }
+    }
+    
+    @Test
+    public void unexpectedBodyBiggerThanMaximumIsReported() throws Exception {
+        ClientDriver journaled = new ClientDriverFactory().maxRequestBodySize(1000).build();
+        
+        try {
+            journaled.noFailFastOnUnexpectedRequest();
+            journaled.addExpectation(onRequestTo("/upload").withMethod(Method.POST), giveEmptyResponse());
+            
+            assertThat(post(journaled, "/elsewhere", LARGE_BODY), is(404));
+            
+            thrown.expect(ClientDriverFailedExpectationException.class);
+            thrown.expectMessage("/elsewhere");
+            journaled.verify();
+        } finally {
+            journaled.shutdownQuietly();
+        }
+    }
+    
+    @Test
+    public void unexpectedBodyBiggerThanMaximumIsReportedWithoutJournal() throws Exception {
+        driver.noFailFastOnUnexpectedRequest();
+        driver.addExpectation(onRequestTo("/upload").withMethod(Method.POST), giveEmptyResponse());
+        
+        assertThat(post("/elsewhere", LARGE_BODY), is(404));
+        
+        thrown.expect(ClientDriverFailedExpectationException.class);
+        thrown.expectMessage("/elsewhere");
+        driver.verify();
+    }
+    
+    private int post(String path, String body) throws Exception {
+        return post(driver, path, body);
+    }
+    
+    private static int post(ClientDriver driver, String path, String body) throws Exception {
+        HttpClient client = new DefaultHttpClient();
+        HttpPost post = new HttpPost(driver.getBaseUrl() + path);
+        post.setEntity(new StringEntity(body, "text/plain", "UTF-8"));
+        
+        HttpResponse response = client.execute(post);
+        EntityUtils.consume(response.getEntity());
+        
+        return response.getStatusLine().getStatusCode();
+    }
+    
+}
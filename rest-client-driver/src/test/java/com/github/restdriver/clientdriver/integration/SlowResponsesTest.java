@@ -16,11 +16,16 @@
 package com.github.restdriver.clientdriver.integration;
 
 import static com.github.restdriver.clientdriver.RestClientDriver.*;
+import static com.github.restdriver.clientdriver.delay.DelayDistributions.*;
 import static java.util.concurrent.TimeUnit.*;
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
 
+import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.util.EntityUtils;
 import org.junit.Test;
 
 import com.github.restdriver.clientdriver.ClientDriver;
@@ -44,4 +49,42 @@ public class SlowResponsesTest {
         driver.shutdown();
     }
     
+    @Test
+    public void delayHappensBeforeTheResponseHeadersAreSent() throws Exception {
+        
+        ClientDriver driver = new ClientDriverFactory().createClientDriver();
+        driver.addExpectation(onRequestTo("/request"), giveResponse("slow", "text/plain").withStatus(202).after(300, MILLISECONDS));
+        
+        HttpClient client = new DefaultHttpClient();
+        HttpGet getter = new HttpGet(driver.getBaseUrl() + "/request");
+        
+        long start = System.nanoTime();
+        HttpResponse response = client.execute(getter);
+        long headersReceived = System.nanoTime();
+        
+        assertThat(NANOSECONDS.toMillis(headersReceived - start), is(greaterThanOrEqualTo(300L)));
+        assertThat(response.getStatusLine().getStatusCode(), is(202));
+        assertThat(EntityUtils.toString(response.getEntity()), is("slow"));
+        
+        driver.shutdown();
+    }
+    
+    @Test
+    public void delayCanBeChosenFromADistribution() throws Exception {
+        
+        ClientDriver driver = new ClientDriverFactory().createClientDriver();
+        driver.addExpectation(onRequestTo("/request"), giveEmptyResponse().after(empirical(new double[] { 200, 300 }, MILLISECONDS, 1))).times(2);
+        
+        HttpClient client = new DefaultHttpClient();
+        HttpGet getter = new HttpGet(driver.getBaseUrl() + "/request");
+        
+        for (int i = 0; i < 2; i++) {
+            long start = System.nanoTime();
+            EntityUtils.consume(client.execute(getter).getEntity());
+            assertThat(NANOSECONDS.toMillis(System.nanoTime() - start), is(greaterThanOrEqualTo(200L)));
+        }
+        
+        driver.shutdown();
+    }
+    
 }
@@ -0,0 +1,85 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.clientdriver.integration;
+
+import static com.github.restdriver.clientdriver.RestClientDriver.*;
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assume.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.restdriver.UnixDomainSockets;
+import com.github.restdriver.clientdriver.ClientDriver;
+import com.github.restdriver.clientdriver.ClientDriverFactory;
+import com.github.restdriver.clientdriver.exception.ClientDriverSetupException;
+
+public class UnixDomainSocketTest {
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    @Before
+    public void needsUnixDomainSockets() {
+        assumeTrue(UnixDomainSockets.isSupported());
+    }
+    
+    @Test
+    public void driverServesRequestsOnUnixDomainSocket() throws IOException {
+        File socketFile = new File(folder.getRoot(), "driver.sock");
+        
+        ClientDriver driver = new ClientDriverFactory().unixSocket(socketFile).build();
+        driver.addExpectation(onRequestTo("/url"), giveResponse("hello", "text/plain"));
+        
+        assertThat(driver.getUnixSocket(), is(socketFile));
+        assertThat(driver.getBaseUrl(), is("http://localhost"));
+        
+        SocketChannel channel = UnixDomainSockets.connect(socketFile);
+        String response;
+        
+        try {
+            channel.write(StandardCharsets.US_ASCII.encode("GET /url HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n"));
+            response = IOUtils.toString(Channels.newInputStream(channel), "US-ASCII");
+        } finally {
+            channel.close();
+        }
+        
+        assertThat(response, startsWith("HTTP/1.1 200 OK"));
+        assertThat(response, endsWith("hello"));
+        
+        driver.shutdown();
+        
+        assertThat(socketFile.exists(), is(false));
+    }
+    
+    @Test(expected = ClientDriverSetupException.class)
+    public void correctExceptionIsThrownIfSocketFileExists() throws IOException {
+        File socketFile = folder.newFile("taken.sock");
+        
+        new ClientDriverFactory().unixSocket(socketFile).build();
+    }
+    
+}
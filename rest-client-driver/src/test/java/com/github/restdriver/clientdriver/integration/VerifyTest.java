@@ -28,7 +28,11 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import com.github.restdriver.clientdriver.ClientDriver;
+import com.github.restdriver.clientdriver.ClientDriverExpectation;
+import com.github.restdriver.clientdriver.ClientDriverFactory;
 import com.github.restdriver.clientdriver.ClientDriverRule;
+import com.github.restdriver.clientdriver.exception.ClientDriverInvalidExpectationException;
 
 public class VerifyTest {
 
@@ -103,4 +107,24 @@ public class VerifyTest {
         driver.verify(onRequestTo("/blah"), 0);
     }
 
+    @Test
+    public void verifyingAfterRequestsHaveBeenDroppedFromTheJournalFails() throws Exception {
+
+        ClientDriver boundedDriver = new ClientDriverFactory().keepLastRequests(2).build();
+        ClientDriverExpectation expectation = boundedDriver.addExpectation(onRequestTo("/blah"), giveEmptyResponse()).anyTimes();
+
+        HttpClient client = new DefaultHttpClient();
+        for (int i = 0; i < 5; i++) {
+            client.execute(new HttpGet(boundedDriver.getBaseUrl() + "/blah"));
+        }
+
+        boundedDriver.shutdown();
+
+        assertThat(expectation.getStatusString(), is("expected: any, actual: 5"));
+
+        thrown.expect(ClientDriverInvalidExpectationException.class);
+        thrown.expectMessage("3 request(s) have been dropped");
+        boundedDriver.verify(onRequestTo("/blah"), 5);
+    }
+
 }
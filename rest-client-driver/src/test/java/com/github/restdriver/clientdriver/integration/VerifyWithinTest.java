@@ -99,6 +99,39 @@ public class VerifyWithinTest {
         
     }
     
+    @Test
+    public void verifyReturnsAsSoonAsTheLastExpectationIsMatched() throws Exception {
+        
+        // so that loading the HTTP client's classes doesn't count towards the time taken
+        clientDriver.addExpectation(onRequestTo("/warmup"), giveEmptyResponse());
+        hitThat(clientDriver.getBaseUrl() + "/warmup");
+        
+        clientDriver.addExpectation(
+                onRequestTo("/foo"),
+                giveEmptyResponse().within(10, TimeUnit.SECONDS));
+        
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                schnooze(100, TimeUnit.MILLISECONDS);
+                hitThat(clientDriver.getBaseUrl() + "/foo");
+            }
+        });
+        thread.setDaemon(true);
+        
+        long start = System.currentTimeMillis();
+        
+        thread.start();
+        
+        clientDriver.verify();
+        
+        long end = System.currentTimeMillis();
+        
+        // well under the 500ms it took when verification polled for matches
+        assertThat(end - start, is(lessThan(400L)));
+        
+    }
+    
     @Test
     public void singleRequestThatIsNotMatchedInTimeFailsToVerify() throws Exception {
         
@@ -0,0 +1,115 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.clientdriver.jetty;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import com.github.restdriver.clientdriver.ClientDriverExpectation;
+import com.github.restdriver.clientdriver.ClientDriverRequest;
+import com.github.restdriver.clientdriver.ClientDriverRequestResponsePair;
+import com.github.restdriver.clientdriver.ClientDriverResponse;
+
+public class ExpectationIndexTest {
+    
+    @Test
+    public void onlyExpectationsOnTheSamePathAreCandidates() {
+        ExpectationIndex index = new ExpectationIndex(true);
+        ClientDriverExpectation foo = expectation(new ClientDriverRequest("/foo"));
+        ClientDriverExpectation bar = expectation(new ClientDriverRequest("/bar"));
+        index.add(foo);
+        index.add(bar);
+        
+        assertThat(index.candidatesFor("/foo"), contains(foo));
+        assertThat(index.candidatesFor("/baz"), is(empty()));
+    }
+    
+    @Test
+    public void candidatesAreInRegistrationOrder() {
+        ExpectationIndex index = new ExpectationIndex(true);
+        ClientDriverExpectation first = expectation(new ClientDriverRequest("/foo"));
+        ClientDriverExpectation regex = expectation(new ClientDriverRequest(Pattern.compile("/f.*")));
+        ClientDriverExpectation last = expectation(new ClientDriverRequest("/foo"));
+        index.add(first);
+        index.add(regex);
+        index.add(last);
+        
+        assertThat(index.candidatesFor("/foo"), contains(first, regex, last));
+        assertThat(index.candidatesFor("/bar"), contains(regex));
+    }
+    
+    @Test
+    public void removedExpectationsAreNoLongerCandidates() {
+        ExpectationIndex index = new ExpectationIndex(true);
+        ClientDriverExpectation first = expectation(new ClientDriverRequest("/foo"));
+        ClientDriverExpectation second = expectation(new ClientDriverRequest("/foo"));
+        index.add(first);
+        index.add(second);
+        
+        index.remove(first);
+        
+        assertThat(index.candidatesFor("/foo"), contains(second));
+        assertThat(index.all(), contains(second));
+    }
+    
+    @Test
+    public void emptyBucketsAreDropped() {
+        ExpectationIndex index = new ExpectationIndex(true);
+        ClientDriverExpectation first = expectation(new ClientDriverRequest("/foo"));
+        ClientDriverExpectation second = expectation(new ClientDriverRequest("/foo"));
+        index.add(first);
+        index.add(second);
+        
+        index.remove(first);
+        assertThat(index.pathCount(), is(1));
+        
+        index.remove(second);
+        assertThat(index.pathCount(), is(0));
+        assertThat(index.candidatesFor("/foo"), is(empty()));
+    }
+    
+    @Test
+    public void everythingIsACandidateWhenNotIndexingByPath() {
+        ExpectationIndex index = new ExpectationIndex(false);
+        ClientDriverExpectation foo = expectation(new ClientDriverRequest("/foo"));
+        ClientDriverExpectation bar = expectation(new ClientDriverRequest("/bar"));
+        index.add(foo);
+        index.add(bar);
+        
+        assertThat(index.candidatesFor("/baz"), contains(foo, bar));
+    }
+    
+    @Test
+    public void clearRemovesEverything() {
+        ExpectationIndex index = new ExpectationIndex(true);
+        index.add(expectation(new ClientDriverRequest("/foo")));
+        index.add(expectation(new ClientDriverRequest(Pattern.compile("/f.*"))));
+        
+        index.clear();
+        
+        assertThat(index.isEmpty(), is(true));
+        assertThat(index.candidatesFor("/foo"), is(empty()));
+    }
+    
+    private static ClientDriverExpectation expectation(ClientDriverRequest request) {
+        return new ClientDriverExpectation(new ClientDriverRequestResponsePair(request, new ClientDriverResponse()));
+    }
+    
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.clientdriver.jetty;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Test;
+
+import com.github.restdriver.clientdriver.RealRequest;
+
+public class RequestJournalTest {
+    
+    @Test
+    public void unlimitedJournalKeepsEverything() {
+        RequestJournal journal = new RequestJournal(DefaultClientDriverJettyHandler.UNLIMITED, DefaultClientDriverJettyHandler.UNLIMITED);
+        RealRequest first = request("first");
+        RealRequest second = request("second");
+        
+        journal.record(first);
+        journal.record(second);
+        
+        assertThat(journal.requests(), contains(first, second));
+        assertThat(journal.evicted(), is(0L));
+    }
+    
+    @Test
+    public void boundedJournalKeepsOnlyTheLastRequests() {
+        RequestJournal journal = new RequestJournal(2, DefaultClientDriverJettyHandler.UNLIMITED);
+        RealRequest first = request("first");
+        RealRequest second = request("second");
+        RealRequest third = request("third");
+        
+        journal.record(first);
+        journal.record(second);
+        journal.record(third);
+        
+        assertThat(journal.requests(), containsInAnyOrder(second, third));
+        assertThat(journal.evicted(), is(1L));
+    }
+    
+    @Test
+    public void journalWithNoCapacityKeepsNothing() {
+        RequestJournal journal = new RequestJournal(0, DefaultClientDriverJettyHandler.UNLIMITED);
+        
+        journal.record(request("first"));
+        
+        assertThat(journal.requests(), is(empty()));
+        assertThat(journal.evicted(), is(1L));
+    }
+    
+    @Test
+    public void longBodiesAreTruncated() {
+        RequestJournal journal = new RequestJournal(DefaultClientDriverJettyHandler.UNLIMITED, 3);
+        RealRequest shortBody = request("abc");
+        
+        journal.record(shortBody);
+        journal.record(request("abcdef"));
+        
+        assertThat(journal.requests().get(0), is(sameInstance(shortBody)));
+        assertThat(new String(journal.requests().get(1).getBodyContent()), is("abc"));
+        assertThat(journal.requests().get(1).getPath(), is("/abcdef"));
+    }
+    
+    private static RealRequest request(String body) {
+        RealRequest request = mock(RealRequest.class);
+        when(request.getBodyContent()).thenReturn(body.getBytes());
+        when(request.getPath()).thenReturn("/" + body);
+        return request;
+    }
+    
+}
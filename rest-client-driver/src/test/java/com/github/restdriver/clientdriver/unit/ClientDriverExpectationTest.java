@@ -19,6 +19,16 @@ import static org.hamcrest.MatcherAssert.*;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.Mockito.*;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.io.IOUtils;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -86,17 +96,101 @@ public class ClientDriverExpectationTest {
     }
     
     @Test
-    public void matchingExpectationCallsMatcher() {
+    public void matchingExpectationCallsMatcher() throws IOException {
         MatchedRequestHandler matchHandlerMock = mock(MatchedRequestHandler.class);
         ClientDriverExpectation expectation = new ClientDriverExpectation(PAIR);
         expectation.whenMatched(matchHandlerMock);
         
-        HttpRealRequest realRequest = mock(HttpRealRequest.class);
+        HttpRealRequest realRequest = new HttpRealRequest(servletRequest("body"));
         
         expectation.match(realRequest);
         verify(matchHandlerMock).onMatch(realRequest);
     }
     
+    @Test
+    public void requestIsDetachedBeforeMatchHandlerIsCalled() throws IOException {
+        final HttpServletRequest servletRequest = servletRequest("body");
+        ClientDriverExpectation expectation = new ClientDriverExpectation(PAIR);
+        expectation.whenMatched(new MatchedRequestHandler() {
+            @Override
+            public void onMatch(HttpRealRequest matchedRequest) {
+                reset(servletRequest);
+                assertThat(new String(matchedRequest.getBodyContent()), is("body"));
+                assertThat(matchedRequest.getHeaders().get("accept"), is((Object) "text/plain"));
+            }
+        });
+        
+        assertThat(expectation.tryMatch(new HttpRealRequest(servletRequest)), is(true));
+        verifyZeroInteractions(servletRequest);
+    }
+    
+    private static HttpServletRequest servletRequest(String body) throws IOException {
+        HttpServletRequest servletRequest = mock(HttpServletRequest.class);
+        when(servletRequest.getMethod()).thenReturn("POST");
+        when(servletRequest.getHeaderNames()).thenReturn(Collections.enumeration(Arrays.asList("Accept")));
+        when(servletRequest.getHeader("Accept")).thenReturn("text/plain");
+        when(servletRequest.getInputStream()).thenReturn(new DummyServletInputStream(IOUtils.toInputStream(body)));
+        return servletRequest;
+    }
+    
+    @Test
+    public void tryMatchClaimsNoMoreMatchesThanExpected() {
+        ClientDriverExpectation expectation = new ClientDriverExpectation(PAIR);
+        expectation.times(2);
+        
+        HttpRealRequest realRequest = mock(HttpRealRequest.class);
+        
+        assertThat(expectation.tryMatch(realRequest), is(true));
+        assertThat(expectation.tryMatch(realRequest), is(true));
+        assertThat(expectation.tryMatch(realRequest), is(false));
+        assertThat(expectation.getStatusString(), is("expected: 2, actual: 2"));
+    }
+    
+    @Test
+    public void tryMatchAlwaysSucceedsWhenExpectedAnyNumberOfTimes() {
+        ClientDriverExpectation expectation = new ClientDriverExpectation(PAIR);
+        expectation.anyTimes();
+        
+        HttpRealRequest realRequest = mock(HttpRealRequest.class);
+        
+        for (int i = 0; i < 5; i++) {
+            assertThat(expectation.tryMatch(realRequest), is(true));
+        }
+        assertThat(expectation.getStatusString(), is("expected: any, actual: 5"));
+    }
+    
+    @Test
+    public void concurrentTryMatchesNeverOvershoot() throws InterruptedException {
+        final ClientDriverExpectation expectation = new ClientDriverExpectation(PAIR);
+        expectation.times(100);
+        
+        final HttpRealRequest realRequest = mock(HttpRealRequest.class);
+        final AtomicInteger claimed = new AtomicInteger();
+        List<Thread> threads = new ArrayList<Thread>();
+        
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 50; j++) {
+                        if (expectation.tryMatch(realRequest)) {
+                            claimed.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        assertThat(claimed.get(), is(100));
+        assertThat(expectation.isSatisfied(), is(true));
+    }
+    
     @Test
     public void expectationExpectedAnyNumberOfTimesIsMarkedAsSuch() {
         ClientDriverExpectation expectation = new ClientDriverExpectation(PAIR);
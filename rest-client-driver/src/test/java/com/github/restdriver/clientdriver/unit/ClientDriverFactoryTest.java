@@ -15,13 +15,26 @@
  */
 package com.github.restdriver.clientdriver.unit;
 
+import static com.github.restdriver.clientdriver.RestClientDriver.*;
 import static org.hamcrest.MatcherAssert.*;
 import static org.hamcrest.Matchers.*;
 
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.junit.Assume;
 import org.junit.Test;
 
+import com.github.restdriver.PortAllocator;
+import com.github.restdriver.PortReservation;
 import com.github.restdriver.clientdriver.ClientDriver;
 import com.github.restdriver.clientdriver.ClientDriverFactory;
+import com.github.restdriver.clientdriver.exception.ClientDriverSetupException;
+import com.github.restdriver.clientdriver.jetty.VirtualThreadPool;
 
 public class ClientDriverFactoryTest {
     
@@ -30,4 +43,129 @@ public class ClientDriverFactoryTest {
         // Hopefully no exceptions here
         assertThat(new ClientDriverFactory().createClientDriver(), instanceOf(ClientDriver.class));
     }
+    
+    @Test
+    public void driverWithTunedThreadsServesRequests() throws Exception {
+        ClientDriver driver = new ClientDriverFactory()
+                .maxThreads(10)
+                .minThreads(2)
+                .acceptors(1)
+                .selectors(1)
+                .maxQueuedRequests(50)
+                .build();
+        
+        assertServesRequests(driver);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void maxThreadsMustBePositive() {
+        new ClientDriverFactory().maxThreads(0);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void maxQueuedRequestsMustBePositive() {
+        new ClientDriverFactory().maxQueuedRequests(0);
+    }
+    
+    @Test
+    public void driverWithVirtualThreadsServesRequests() throws Exception {
+        Assume.assumeTrue(VirtualThreadPool.isSupported());
+        
+        assertServesRequests(new ClientDriverFactory().virtualThreads().build());
+    }
+    
+    @Test
+    public void driverStartedAsynchronouslyServesRequests() throws Exception {
+        Future<ClientDriver> driver = new ClientDriverFactory().startAsync();
+        
+        assertServesRequests(driver.get(10, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    public void driverStartedAsynchronouslyKeepsTheSettingsItWasStartedWith() throws Exception {
+        ClientDriverFactory factory = new ClientDriverFactory();
+        Future<ClientDriver> started = factory.startAsync();
+        PortReservation reservation = PortAllocator.bindFreePort();
+        
+        try {
+            factory.port(reservation);
+            ClientDriver driver = started.get(10, TimeUnit.SECONDS);
+            
+            assertThat(driver.getPort(), is(not(reservation.getPort())));
+            assertServesRequests(driver);
+        } finally {
+            reservation.close();
+        }
+    }
+    
+    @Test
+    public void startAllStartsDriversOnDifferentPorts() throws Exception {
+        List<ClientDriver> drivers = new ClientDriverFactory().startAll(3);
+        
+        assertThat(drivers, hasSize(3));
+        assertThat(drivers.get(0).getPort(), is(not(drivers.get(1).getPort())));
+        assertThat(drivers.get(1).getPort(), is(not(drivers.get(2).getPort())));
+        
+        for (ClientDriver driver : drivers) {
+            assertServesRequests(driver);
+        }
+    }
+    
+    @Test
+    public void creatingOnAFixedPortDoesNotChangeTheFactory() throws Exception {
+        ClientDriverFactory factory = new ClientDriverFactory();
+        ClientDriver first = factory.createClientDriver();
+        int port = first.getPort();
+        first.shutdownQuietly();
+        
+        ClientDriver fixed = factory.createClientDriver(port);
+        ClientDriver chosen = factory.createClientDriver();
+        List<ClientDriver> started = factory.startAll(2);
+        
+        assertThat(fixed.getPort(), is(port));
+        assertThat(chosen.getPort(), is(not(port)));
+        assertThat(started, hasSize(2));
+        
+        fixed.shutdownQuietly();
+        chosen.shutdownQuietly();
+        for (ClientDriver driver : started) {
+            driver.shutdownQuietly();
+        }
+    }
+    
+    @Test
+    public void startAllFailsButKeepsTheInterruptWhenInterrupted() {
+        Thread.currentThread().interrupt();
+        
+        try {
+            new ClientDriverFactory().startAll(3);
+        } catch (ClientDriverSetupException e) {
+            assertThat(Thread.interrupted(), is(true));
+            return;
+        }
+        
+        Thread.interrupted();
+        throw new AssertionError("Expected startAll to fail");
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void startAllCannotShareAFixedPort() {
+        new ClientDriverFactory().port(12345).startAll(2);
+    }
+    
+    @Test(expected = ClientDriverSetupException.class)
+    public void virtualThreadsFailClearlyWhenNotSupported() {
+        Assume.assumeFalse(VirtualThreadPool.isSupported());
+        
+        new ClientDriverFactory().virtualThreads().build();
+    }
+    
+    private static void assertServesRequests(ClientDriver driver) throws Exception {
+        driver.addExpectation(onRequestTo("/request"), giveEmptyResponse().withStatus(204));
+        
+        HttpResponse response = new DefaultHttpClient().execute(new HttpGet(driver.getBaseUrl() + "/request"));
+        assertThat(response.getStatusLine().getStatusCode(), is(204));
+        
+        driver.shutdown();
+    }
 }
@@ -27,7 +27,10 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncListener;
 import javax.servlet.ServletException;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.WriteListener;
@@ -39,6 +42,7 @@ import org.eclipse.jetty.server.Request;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 import com.github.restdriver.clientdriver.ClientDriverRequest;
 import com.github.restdriver.clientdriver.ClientDriverRequest.Method;
@@ -114,6 +118,29 @@ public class ClientDriverHandlerTest {
         }
     }
     
+    /**
+     * an unexpected request is journaled and reported without reading its body
+     */
+    @Test
+    public void testUnexpectedRequestBodyIsNotRead() throws IOException, ServletException {
+        
+        HttpServletRequest mockHttpRequest = mock(HttpServletRequest.class);
+        
+        when(mockHttpRequest.getMethod()).thenReturn("POST");
+        when(mockHttpRequest.getPathInfo()).thenReturn("yarr");
+        when(mockHttpRequest.getContentLengthLong()).thenReturn(6L);
+        
+        try {
+            sut.handle("", mock(Request.class), mockHttpRequest, mock(HttpServletResponse.class));
+            Assert.fail();
+        } catch (ClientDriverFailedExpectationException e) {
+            assertThat(e.getMessage(), containsString("BODY <unread, 6 bytes>;"));
+        }
+        
+        verify(mockHttpRequest, never()).getInputStream();
+        verify(mockHttpRequest, never()).getReader();
+    }
+    
     /**
      * with an expectation set, and a request made, the handler checks for a match and returns the match if one is found
      */
@@ -144,6 +171,55 @@ public class ClientDriverHandlerTest {
         assertThat(new String(baos.toByteArray()), equalTo("lovely"));
     }
     
+    /**
+     * a delayed response which can't be handed back to Jetty is completed, and doesn't leave the request counted as in flight
+     */
+    @Test
+    public void testDelayedResponseWhichCannotStart() throws IOException, ServletException {
+        
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        doThrow(new IllegalStateException("Stopped")).when(asyncContext).start((Runnable) anyObject());
+        
+        sut.addExpectation(onRequestTo("yarr"), giveEmptyResponse().after(1, TimeUnit.MILLISECONDS));
+        sut.handle("", mock(Request.class), delayableRequest(asyncContext), mock(HttpServletResponse.class));
+        
+        sut.awaitIdle(5, TimeUnit.SECONDS);
+        verify(asyncContext).complete();
+    }
+    
+    /**
+     * a delayed response which times out is counted as finished once, even when the container also reports it complete
+     */
+    @Test
+    public void testDelayedResponseWhichTimesOut() throws IOException, ServletException {
+        
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+        
+        sut.addExpectation(onRequestTo("yarr"), giveEmptyResponse().after(1, TimeUnit.HOURS));
+        sut.handle("", mock(Request.class), delayableRequest(asyncContext), mock(HttpServletResponse.class));
+        verify(asyncContext).addListener(listener.capture());
+        
+        listener.getValue().onTimeout(null);
+        listener.getValue().onComplete(null);
+        
+        sut.awaitIdle(5, TimeUnit.SECONDS);
+        verify(asyncContext, times(1)).complete();
+    }
+    
+    private HttpServletRequest delayableRequest(AsyncContext asyncContext) throws IOException {
+        HttpServletRequest mockHttpRequest = mock(Request.class);
+        
+        when(mockHttpRequest.getMethod()).thenReturn("GET");
+        when(mockHttpRequest.getPathInfo()).thenReturn("yarr");
+        when(mockHttpRequest.getInputStream()).thenReturn(new DummyServletInputStream(new ByteArrayInputStream("".getBytes())));
+        when(mockHttpRequest.isAsyncSupported()).thenReturn(true);
+        when(mockHttpRequest.startAsync()).thenReturn(asyncContext);
+        when(mockRequestMatcher.isMatch((RealRequest) anyObject(), (ClientDriverRequest) anyObject())).thenReturn(true);
+        
+        return mockHttpRequest;
+    }
+    
     private static class DummyServletOutputStream extends ServletOutputStream {
         private final OutputStream outputStream;
         
@@ -22,6 +22,7 @@ import static org.mockito.Mockito.*;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.Rule;
@@ -29,6 +30,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import com.github.restdriver.clientdriver.ClientDriverResponse;
+import com.github.restdriver.clientdriver.delay.DelayDistribution;
 import com.github.restdriver.clientdriver.exception.ClientDriverResponseCreationException;
 
 public class ClientDriverResponseTest {
@@ -232,4 +234,23 @@ public class ClientDriverResponseTest {
         assertThat(response.getHeaders(), hasEntry("Server", "server-name"));
     }
     
+    @Test
+    public void fixedDelayIsUsedForEveryResponse() {
+        ClientDriverResponse response = new ClientDriverResponse().after(3, TimeUnit.MILLISECONDS);
+        
+        assertThat(response.nextDelayNanos(), is(3000000L));
+        assertThat(response.nextDelayNanos(), is(3000000L));
+    }
+    
+    @Test
+    public void delayDistributionIsSampledForEachResponse() {
+        DelayDistribution distribution = mock(DelayDistribution.class);
+        when(distribution.nextDelayNanos()).thenReturn(10L, 20L);
+        
+        ClientDriverResponse response = new ClientDriverResponse().after(distribution);
+        
+        assertThat(response.nextDelayNanos(), is(10L));
+        assertThat(response.nextDelayNanos(), is(20L));
+    }
+    
 }
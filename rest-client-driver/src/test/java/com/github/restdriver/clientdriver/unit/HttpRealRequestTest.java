@@ -18,6 +18,7 @@ package com.github.restdriver.clientdriver.unit;
 import com.github.restdriver.clientdriver.ClientDriverRequest.Method;
 import com.github.restdriver.clientdriver.HttpRealRequest;
 import com.github.restdriver.clientdriver.RealRequest;
+import com.github.restdriver.clientdriver.exception.ClientDriverRequestTooLargeException;
 import org.apache.commons.io.IOUtils;
 import org.junit.Test;
 
@@ -28,9 +29,14 @@ import java.util.Collections;
 import java.util.Enumeration;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 public class HttpRealRequestTest {
@@ -64,7 +70,8 @@ public class HttpRealRequestTest {
         assertThat(realRequest.getHeaders().get("header1"), is("thisIsHeader1"));
         assertThat(realRequest.getHeaders().get("nullHeader"), nullValue());
         assertThat(realRequest.getBodyContentType(), is(expectedContentType));
-
+        assertThat(new String(realRequest.getBodyContent()), is(bodyContent));
+        
         assertThat(realRequest.toString(), is("HttpRealRequest: GET someUrlPath; " +
                 "PARAMS: [hello=[world]]; " +
                 "HEADERS: [header1: thisIsHeader1,nullheader: <null>]; " +
@@ -72,4 +79,149 @@ public class HttpRealRequestTest {
                 "BODY bodyContent;"));
     }
     
+    @Test
+    public void bodyAndHeadersAreNotReadUntilNeeded() throws IOException {
+        
+        HttpServletRequest mockRequest = mock(HttpServletRequest.class);
+        when(mockRequest.getPathInfo()).thenReturn("/path");
+        when(mockRequest.getMethod()).thenReturn("POST");
+        when(mockRequest.getInputStream()).thenReturn(new DummyServletInputStream(IOUtils.toInputStream("body")));
+        
+        RealRequest realRequest = new HttpRealRequest(mockRequest);
+        
+        assertThat(realRequest.getMethod(), is(Method.POST));
+        assertThat(realRequest.getPath(), is("/path"));
+        verify(mockRequest, never()).getInputStream();
+        verify(mockRequest, never()).getHeaderNames();
+        
+        assertThat(new String(realRequest.getBodyContent()), is("body"));
+        assertThat(new String(realRequest.getBodyContent()), is("body"));
+        verify(mockRequest, times(1)).getInputStream();
+    }
+    
+    @Test
+    public void toStringDoesNotReadFromServletRequest() throws IOException {
+        
+        HttpServletRequest mockRequest = mock(HttpServletRequest.class);
+        when(mockRequest.getPathInfo()).thenReturn("/path");
+        when(mockRequest.getMethod()).thenReturn("POST");
+        when(mockRequest.getQueryString()).thenReturn("a=b");
+        
+        HttpRealRequest realRequest = new HttpRealRequest(mockRequest);
+        
+        assertThat(realRequest.toString(), is("HttpRealRequest: POST /path; PARAMS: [a=[b]]; HEADERS: [<unread>]; CONTENT TYPE null; BODY <unread>;"));
+        verify(mockRequest, never()).getInputStream();
+        verify(mockRequest, never()).getHeaderNames();
+    }
+    
+    @Test
+    public void detachedRequestNoLongerUsesServletRequest() throws IOException {
+        
+        HttpServletRequest mockRequest = mock(HttpServletRequest.class);
+        when(mockRequest.getMethod()).thenReturn("GET");
+        when(mockRequest.getQueryString()).thenReturn("a=b");
+        when(mockRequest.getHeaderNames()).thenReturn(Collections.enumeration(Arrays.asList("Accept")));
+        when(mockRequest.getHeader("Accept")).thenReturn("text/plain");
+        when(mockRequest.getInputStream()).thenReturn(new DummyServletInputStream(IOUtils.toInputStream("body")));
+        
+        HttpRealRequest realRequest = new HttpRealRequest(mockRequest);
+        realRequest.detach();
+        
+        verify(mockRequest).getPathInfo();
+        verify(mockRequest).getMethod();
+        verify(mockRequest).getQueryString();
+        verify(mockRequest).getContentType();
+        verify(mockRequest).getHeaderNames();
+        verify(mockRequest).getHeader("Accept");
+        verify(mockRequest).getContentLengthLong();
+        
+        assertThat(realRequest.getParams().get("a").iterator().next(), is("b"));
+        assertThat(realRequest.getHeaders().get("accept"), is((Object) "text/plain"));
+        assertThat(realRequest.getBodyContent().length, is(0));
+        verifyNoMoreInteractions(mockRequest);
+    }
+    
+    @Test
+    public void bodyReadBeforeDetachingIsKept() throws IOException {
+        
+        HttpServletRequest mockRequest = mock(HttpServletRequest.class);
+        when(mockRequest.getMethod()).thenReturn("POST");
+        when(mockRequest.getInputStream()).thenReturn(new DummyServletInputStream(IOUtils.toInputStream("body")));
+        
+        HttpRealRequest realRequest = new HttpRealRequest(mockRequest);
+        realRequest.getBodyContent();
+        realRequest.detach();
+        
+        assertThat(new String(realRequest.getBodyContent()), is("body"));
+        assertThat(realRequest.toString(), containsString("BODY body;"));
+    }
+    
+    @Test
+    public void bodyNotReadBeforeDetachingKeepsOnlyItsLength() throws IOException {
+        
+        HttpServletRequest mockRequest = mock(HttpServletRequest.class);
+        when(mockRequest.getMethod()).thenReturn("POST");
+        when(mockRequest.getContentLengthLong()).thenReturn(4L);
+        
+        HttpRealRequest realRequest = new HttpRealRequest(mockRequest);
+        realRequest.detach();
+        
+        assertThat(realRequest.getBodyContent().length, is(0));
+        assertThat(realRequest.toString(), containsString("BODY <unread, 4 bytes>;"));
+        verify(mockRequest, never()).getInputStream();
+    }
+    
+    @Test(expected = ClientDriverRequestTooLargeException.class)
+    public void readingBodyBiggerThanMaximumFails() throws IOException {
+        
+        HttpServletRequest mockRequest = mock(HttpServletRequest.class);
+        when(mockRequest.getMethod()).thenReturn("POST");
+        when(mockRequest.getContentLengthLong()).thenReturn(-1L);
+        when(mockRequest.getInputStream()).thenReturn(new DummyServletInputStream(IOUtils.toInputStream("0123456789")));
+        
+        new HttpRealRequest(mockRequest, 9).getBodyContent();
+    }
+    
+    @Test
+    public void bodyUpToMaximumCanBeRead() throws IOException {
+        
+        HttpServletRequest mockRequest = mock(HttpServletRequest.class);
+        when(mockRequest.getMethod()).thenReturn("POST");
+        when(mockRequest.getContentLengthLong()).thenReturn(-1L);
+        when(mockRequest.getInputStream()).thenReturn(new DummyServletInputStream(IOUtils.toInputStream("0123456789")));
+        
+        assertThat(new String(new HttpRealRequest(mockRequest, 10).getBodyContent()), is("0123456789"));
+    }
+    
+    @Test
+    public void declaredBodyBiggerThanMaximumIsNotRead() throws IOException {
+        
+        HttpServletRequest mockRequest = mock(HttpServletRequest.class);
+        when(mockRequest.getMethod()).thenReturn("POST");
+        when(mockRequest.getContentLengthLong()).thenReturn(1000L);
+        
+        try {
+            new HttpRealRequest(mockRequest, 10).getBodyContent();
+        } catch (ClientDriverRequestTooLargeException e) {
+            verify(mockRequest, never()).getInputStream();
+            return;
+        }
+        throw new AssertionError("Expected body to be too large");
+    }
+    
+    @Test
+    public void requestWithBodyBiggerThanMaximumIsDetachedWithoutItsBody() throws IOException {
+        
+        HttpServletRequest mockRequest = mock(HttpServletRequest.class);
+        when(mockRequest.getMethod()).thenReturn("POST");
+        when(mockRequest.getContentLengthLong()).thenReturn(1000L);
+        
+        HttpRealRequest realRequest = new HttpRealRequest(mockRequest, 10);
+        realRequest.detach();
+        
+        assertThat(realRequest.isBodyTooLarge(), is(true));
+        assertThat(realRequest.getBodyContent().length, is(0));
+        assertThat(realRequest.toString(), containsString("BODY <too large>"));
+    }
+    
 }
@@ -23,7 +23,9 @@ import org.hamcrest.TypeSafeMatcher;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.github.restdriver.matchers.HasJsonPath;
 import com.github.restdriver.matchers.HasJsonWhich;
+import com.github.restdriver.matchers.HasStreamedJson;
 import com.github.restdriver.matchers.IsEquivalentXml;
+import com.github.restdriver.matchers.JsonStreamCheck;
 import com.github.restdriver.matchers.MatchesRegex;
 
 public final class Matchers {
@@ -47,6 +49,16 @@ public final class Matchers {
         return new HasJsonWhich(matcher);
     }
     
+    /**
+     * Checks a string containing JSON by reading through it, without building a tree of the whole document.
+     * 
+     * @param check The check to make, eg {@link JsonStreamCheck#jsonValueAt(String, Matcher)}.
+     * @return The new matcher.
+     */
+    public static HasStreamedJson hasStreamedJson(JsonStreamCheck check) {
+        return new HasStreamedJson(check);
+    }
+    
     /**
      * Checks whether the given JSON object matches the JSONpath.
      * 
@@ -0,0 +1,200 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.channels.ServerSocketChannel;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out ports which are already bound, so that there is no window between choosing a port and binding to it in which another process can take
+ * it.
+ * 
+ * <p>
+ * Ports from a fixed range are also reserved in a registry shared by every JVM on the machine, made of file locks in a directory under
+ * {@code java.io.tmpdir} (or the directory given by the {@code rest-driver.port.registry} system property). Test JVMs running in parallel never
+ * reserve the same port, even while none of them has bound it.
+ * </p>
+ */
+public final class PortAllocator {
+    
+    /**
+     * System property naming the directory which holds the port registry.
+     */
+    public static final String REGISTRY_DIRECTORY_PROPERTY = "rest-driver.port.registry";
+    
+    private static final int MAX_PORT = 65535;
+    
+    // closing a second channel on a lock file would drop this JVM's lock on it, so ports reserved here are never locked again
+    private static final Set<Integer> RESERVED_HERE = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+    
+    private PortAllocator() {
+    }
+    
+    /**
+     * Bind a port chosen by the operating system. It is also reserved in the registry, so that a JVM asking for a range which includes it
+     * skips it.
+     * 
+     * @return The reservation, holding the bound channel
+     * @throws IOException If no port could be bound
+     */
+    public static PortReservation bindFreePort() throws IOException {
+        
+        while (true) {
+            ServerSocketChannel channel = bind(0);
+            int port = channel.socket().getLocalPort();
+            FileLock lock;
+            
+            try {
+                lock = lock(port);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            
+            if (lock != null) {
+                return reservation(channel, lock, port);
+            }
+            
+            // the port is reserved by another JVM which hasn't bound it yet, so leave it for them
+            channel.close();
+        }
+    }
+    
+    /**
+     * Reserve and bind the first port in a range which no other JVM has reserved and which can be bound.
+     * 
+     * @param from The lowest port to try
+     * @param to The highest port to try
+     * @return The reservation, holding the bound channel
+     * @throws IOException If every port in the range is reserved or can't be bound
+     */
+    public static PortReservation reserve(int from, int to) throws IOException {
+        
+        if (from < 1 || to > MAX_PORT || from > to) {
+            throw new IllegalArgumentException("Invalid port range " + from + "-" + to);
+        }
+        
+        for (int port = from; port <= to; port++) {
+            
+            FileLock lock = lock(port);
+            if (lock == null) {
+                continue;
+            }
+            
+            ServerSocketChannel channel;
+            try {
+                channel = bind(port);
+            } catch (IOException e) {
+                release(lock, port);
+                continue;
+            }
+            
+            return reservation(channel, lock, port);
+        }
+        
+        throw new IOException("No free port between " + from + " and " + to);
+    }
+    
+    private static PortReservation reservation(ServerSocketChannel channel, FileLock lock, int port) throws IOException {
+        try {
+            return new PortReservation(channel, lock);
+        } catch (IOException e) {
+            try {
+                channel.close();
+            } finally {
+                release(lock, port);
+            }
+            throw e;
+        }
+    }
+    
+    private static ServerSocketChannel bind(int port) throws IOException {
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        try {
+            channel.bind(new InetSocketAddress(port));
+            return channel;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * @return The lock on the port's registry entry, or null if another JVM, or this one, already holds it
+     */
+    private static FileLock lock(int port) throws IOException {
+        
+        if (!RESERVED_HERE.add(port)) {
+            return null;
+        }
+        
+        FileLock lock = null;
+        
+        try {
+            File directory = registryDirectory();
+            
+            if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+                throw new IOException("Can't create port registry " + directory);
+            }
+            
+            FileChannel file = new RandomAccessFile(new File(directory, port + ".lock"), "rw").getChannel();
+            
+            try {
+                lock = file.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            } finally {
+                if (lock == null) {
+                    file.close();
+                }
+            }
+            
+            return lock;
+            
+        } finally {
+            if (lock == null) {
+                RESERVED_HERE.remove(port);
+            }
+        }
+    }
+    
+    static void release(FileLock lock, int port) throws IOException {
+        try {
+            lock.release();
+            lock.channel().close();
+        } finally {
+            RESERVED_HERE.remove(port);
+        }
+    }
+    
+    private static File registryDirectory() {
+        String configured = System.getProperty(REGISTRY_DIRECTORY_PROPERTY);
+        if (configured != null) {
+            return new File(configured);
+        }
+        return new File(System.getProperty("java.io.tmpdir"), "rest-driver-ports");
+    }
+    
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileLock;
+import java.nio.channels.ServerSocketChannel;
+
+/**
+ * A port which has been bound, and possibly also reserved for this JVM in the cross-process registry, by {@link PortAllocator}.
+ * 
+ * <p>
+ * The port stays bound until the channel is taken by a server or the reservation is closed, so nothing else can take it in the meantime. Closing the
+ * reservation releases the registry entry as well.
+ * </p>
+ */
+public final class PortReservation implements Closeable {
+    
+    private final int port;
+    private final FileLock lock;
+    private ServerSocketChannel channel;
+    
+    PortReservation(ServerSocketChannel channel, FileLock lock) throws IOException {
+        this.channel = channel;
+        this.lock = lock;
+        this.port = channel.socket().getLocalPort();
+    }
+    
+    /**
+     * @return The reserved port
+     */
+    public int getPort() {
+        return port;
+    }
+    
+    /**
+     * Take the bound channel, to accept connections on. The caller becomes responsible for closing it, and the port stays reserved in the registry
+     * until this reservation is closed.
+     * 
+     * @return The bound channel
+     * @throws IllegalStateException If the channel has already been taken or the reservation closed
+     */
+    public synchronized ServerSocketChannel takeChannel() {
+        if (channel == null) {
+            throw new IllegalStateException("The channel for port " + port + " has already been taken");
+        }
+        ServerSocketChannel taken = channel;
+        channel = null;
+        return taken;
+    }
+    
+    /**
+     * Close the channel, unless it has been taken, and release the port in the registry.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        } finally {
+            if (lock != null && lock.channel().isOpen()) {
+                PortAllocator.release(lock, port);
+            }
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "PortReservation(" + port + ")";
+    }
+    
+}
@@ -19,7 +19,7 @@ import java.io.IOException;
 import java.net.ServerSocket;
 
 /**
- * Utility class to retrieve a free port number.
+ * Utility class to retrieve a free port number. See {@link PortAllocator} for ports which are handed over already bound.
  *
  * @author bichel
  */
@@ -29,19 +29,35 @@ public final class SocketUtil {
     }
     
     /**
-     * Gets a free port on localhost for binding to.
-     *
-     * @see "http://chaoticjava.com/posts/retrieving-a-free-port-for-socket-binding/"
+     * Gets a free port on localhost for binding to. Ports reserved by other test JVMs through {@link PortAllocator} are skipped, but the port is
+     * neither bound nor reserved once this returns, so another process could take it first. It suits tests which need a port that nothing listens
+     * on; a server should be handed a port from {@link PortAllocator} instead. If the registry can't be written to, any free port is chosen without
+     * looking at it.
      *
      * @return The port number.
      * 
      * @throws IOException When there is a failure getting a free port
      */
     public static int getFreePort() throws IOException {
-        ServerSocket server = new ServerSocket(0);
-        int port = server.getLocalPort();
-        server.close();
-        return port;
+        PortReservation reservation;
+        
+        try {
+            reservation = PortAllocator.bindFreePort();
+        } catch (IOException e) {
+            return getUnreservedFreePort();
+        }
+        
+        reservation.close();
+        return reservation.getPort();
+    }
+    
+    private static int getUnreservedFreePort() throws IOException {
+        ServerSocket socket = new ServerSocket(0);
+        try {
+            return socket.getLocalPort();
+        } finally {
+            socket.close();
+        }
     }
     
 }
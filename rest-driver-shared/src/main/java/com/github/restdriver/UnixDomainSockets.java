@@ -0,0 +1,158 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * Opens channels on Unix domain sockets, which carry local HTTP traffic without going through the TCP loopback stack.
+ * 
+ * <p>
+ * Unix domain socket channels need Java 16 or later. They are looked up reflectively, so this class can be compiled for older versions; opening a
+ * channel on an older JVM throws an {@link UnsupportedOperationException}.
+ * </p>
+ */
+public final class UnixDomainSockets {
+    
+    private UnixDomainSockets() {
+    }
+    
+    /**
+     * Whether the running JVM supports Unix domain socket channels.
+     * 
+     * @return True if Unix domain sockets are available
+     */
+    public static boolean isSupported() {
+        return Holder.UNIX != null;
+    }
+    
+    /**
+     * Bind a server channel to a socket file. The file must not exist yet, and is not removed when the channel is closed.
+     * 
+     * @param socketFile The socket file to create
+     * @return The bound channel, in blocking mode
+     * @throws IOException If the socket file can't be bound
+     */
+    public static ServerSocketChannel bind(File socketFile) throws IOException {
+        ServerSocketChannel channel = (ServerSocketChannel) invoke(Holder.OPEN_SERVER, null, Holder.UNIX);
+        
+        try {
+            channel.bind(address(socketFile));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        
+        return channel;
+    }
+    
+    /**
+     * Connect a channel to the server listening on a socket file.
+     * 
+     * @param socketFile The socket file to connect to
+     * @return The connected channel, in blocking mode
+     * @throws IOException If nothing is listening on the socket file
+     */
+    public static SocketChannel connect(File socketFile) throws IOException {
+        SocketChannel channel = (SocketChannel) invoke(Holder.OPEN_CLIENT, null, Holder.UNIX);
+        
+        try {
+            channel.connect(address(socketFile));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        
+        return channel;
+    }
+    
+    /**
+     * The address of a socket file.
+     * 
+     * @param socketFile The socket file
+     * @return The address, as a {@code java.net.UnixDomainSocketAddress}
+     */
+    public static SocketAddress address(File socketFile) {
+        try {
+            return (SocketAddress) invoke(Holder.ADDRESS_OF, null, socketFile.toPath());
+        } catch (IOException e) {
+            throw new IllegalStateException("Error creating address for " + socketFile, e);
+        }
+    }
+    
+    private static Object invoke(Method method, Object target, Object argument) throws IOException {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("Unix domain sockets need Java 16 or later");
+        }
+        
+        try {
+            return method.invoke(target, argument);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Error using Unix domain sockets", e);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException("Error using Unix domain sockets", e.getCause());
+        }
+    }
+    
+    /*
+     * Looked up once, on first use.
+     */
+    private static final class Holder {
+        
+        static final ProtocolFamily UNIX;
+        static final Method OPEN_SERVER;
+        static final Method OPEN_CLIENT;
+        static final Method ADDRESS_OF;
+        
+        static {
+            ProtocolFamily unix = null;
+            Method openServer = null;
+            Method openClient = null;
+            Method addressOf = null;
+            
+            try {
+                openServer = ServerSocketChannel.class.getMethod("open", ProtocolFamily.class);
+                openClient = SocketChannel.class.getMethod("open", ProtocolFamily.class);
+                addressOf = Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", Path.class);
+                unix = StandardProtocolFamily.valueOf("UNIX");
+            } catch (ReflectiveOperationException e) {
+                unix = null;
+            } catch (IllegalArgumentException e) {
+                // there is no UNIX protocol family before Java 16
+                unix = null;
+            }
+            
+            UNIX = unix;
+            OPEN_SERVER = openServer;
+            OPEN_CLIENT = openClient;
+            ADDRESS_OF = addressOf;
+        }
+        
+    }
+    
+}
@@ -17,6 +17,7 @@ package com.github.restdriver;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.Charset;
 
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -32,6 +33,7 @@ public final class XmlUtil {
     }
     
     private static final int PARSE_ERROR_EXCERPT_LENGTH = 16;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
     
     private static Element throwRuntimeXmlParseException(String xml, Exception e) {
         throw new RuntimeXmlParseException("Can't parse XML.  Bad content >> " + xml.substring(0, PARSE_ERROR_EXCERPT_LENGTH) + "...", e);
@@ -60,4 +62,28 @@ public final class XmlUtil {
         
     }
     
+    /**
+     * Converts the given bytes to an XML element, without decoding them to a string first. The character encoding is taken from the XML declaration,
+     * defaulting to UTF-8.
+     * 
+     * @param xml The XML bytes to be converted
+     * @return The converted element
+     */
+    public static Element asXml(byte[] xml) {
+        
+        try {
+            return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream(xml)).getDocumentElement();
+            
+        } catch (IOException e) {
+            return throwRuntimeXmlParseException(new String(xml, UTF_8), e);
+            
+        } catch (SAXException e) {
+            return throwRuntimeXmlParseException(new String(xml, UTF_8), e);
+            
+        } catch (ParserConfigurationException e) {
+            return throwRuntimeXmlParseException(new String(xml, UTF_8), e);
+        }
+        
+    }
+    
 }
@@ -20,9 +20,17 @@ import org.hamcrest.Matcher;
 import org.hamcrest.TypeSafeMatcher;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.restdriver.exception.RuntimeJsonTypeMismatchException;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.InvalidPathException;
 import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.spi.json.JacksonJsonNodeJsonProvider;
+import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
 
 /**
  * Matcher to enable assertions on JSON objects using JSONpath.
@@ -31,7 +39,32 @@ import com.jayway.jsonpath.JsonPath;
  */
 public final class HasJsonPath<T> extends TypeSafeMatcher<JsonNode> {
     
+    private static final int MAX_COMPILED_PATHS = 1024;
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    /**
+     * Evaluates paths directly against the Jackson tree, rather than writing it out and parsing it again.
+     */
+    private static final Configuration CONFIGURATION = Configuration.builder()
+            .jsonProvider(new JacksonJsonNodeJsonProvider(MAPPER))
+            .mappingProvider(new JacksonMappingProvider(MAPPER))
+            .build();
+    
+    /**
+     * Paths compiled by any matcher, as the same few paths tend to be used over and over.
+     */
+    private static final LoadingCache<String, JsonPath> COMPILED_PATHS = CacheBuilder.newBuilder()
+            .maximumSize(MAX_COMPILED_PATHS)
+            .build(new CacheLoader<String, JsonPath>() {
+                @Override
+                public JsonPath load(String path) {
+                    return JsonPath.compile(path);
+                }
+            });
+    
     private final String jsonPath;
+    private final JsonPath compiledPath;
     private final Matcher<T> matcher;
     
     /**
@@ -51,17 +84,34 @@ public final class HasJsonPath<T> extends TypeSafeMatcher<JsonNode> {
      */
     public HasJsonPath(String jsonPath, Matcher<T> matcher) {
         this.jsonPath = jsonPath;
+        this.compiledPath = compile(jsonPath);
         this.matcher = matcher;
     }
     
+    // an invalid path never matches, rather than failing when the matcher is created
+    private static JsonPath compile(String jsonPath) {
+        try {
+            return COMPILED_PATHS.getUnchecked(jsonPath);
+        } catch (UncheckedExecutionException e) {
+            if (e.getCause() instanceof InvalidPathException) {
+                return null;
+            }
+            throw e;
+        }
+    }
+    
     @Override
     public boolean matchesSafely(JsonNode jsonNode) {
         
+        if (compiledPath == null) {
+            return false;
+        }
+        
         Object jsonPathResult = null;
         
         try {
             
-            jsonPathResult = JsonPath.read(jsonNode.toString(), jsonPath);
+            jsonPathResult = toJavaValue(compiledPath.read(jsonNode, CONFIGURATION));
             
             if (matcher == null) {
                 return jsonPathResult != null;
@@ -91,6 +141,14 @@ public final class HasJsonPath<T> extends TypeSafeMatcher<JsonNode> {
         
     }
     
+    // matchers expect plain values, lists and maps, as they would get from parsing the JSON text
+    private static Object toJavaValue(Object jsonPathResult) {
+        if (jsonPathResult instanceof JsonNode) {
+            return MAPPER.convertValue(jsonPathResult, Object.class);
+        }
+        return jsonPathResult;
+    }
+    
     private long intToLong(Object o) {
         
         int i;
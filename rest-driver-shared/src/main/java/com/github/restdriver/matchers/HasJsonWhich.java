@@ -24,6 +24,8 @@ import org.hamcrest.TypeSafeMatcher;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.restdriver.exception.RuntimeAssertionFailure;
+import com.github.restdriver.matchers.util.ParsedContentCache;
+import com.google.common.base.Function;
 
 /**
  * A matcher for string which treats the string as a JsonNode.
@@ -32,6 +34,17 @@ public class HasJsonWhich extends TypeSafeMatcher<String> {
     
     private static final ObjectMapper MAPPER = new ObjectMapper();
     
+    private static final ParsedContentCache<JsonNode> PARSED_JSON = new ParsedContentCache<JsonNode>(new Function<String, JsonNode>() {
+        @Override
+        public JsonNode apply(String item) {
+            try {
+                return MAPPER.readTree(item);
+            } catch (IOException e) {
+                throw new RuntimeAssertionFailure("Failed to create JsonNode", e);
+            }
+        }
+    });
+    
     private final Matcher<JsonNode> matcher;
     
     public HasJsonWhich(Matcher<JsonNode> matcher) {
@@ -55,11 +68,7 @@ public class HasJsonWhich extends TypeSafeMatcher<String> {
     }
     
     private static JsonNode createNode(String item) {
-        try {
-            return MAPPER.readTree(item);
-        } catch (IOException e) {
-            throw new RuntimeAssertionFailure("Failed to create JsonNode", e);
-        }
+        return PARSED_JSON.parse(item);
     }
     
 }
@@ -0,0 +1,90 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.matchers;
+
+import java.io.IOException;
+
+import org.hamcrest.Description;
+import org.hamcrest.TypeSafeMatcher;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.restdriver.exception.RuntimeAssertionFailure;
+
+/**
+ * A matcher for a string containing JSON, which makes a {@link JsonStreamCheck} without building a tree of the whole document.
+ */
+public final class HasStreamedJson extends TypeSafeMatcher<String> {
+    
+    private static final JsonFactory FACTORY = new ObjectMapper().getFactory();
+    
+    private final JsonStreamCheck check;
+    
+    /**
+     * Creates an instance of this matcher.
+     * 
+     * @param check The check to make against the JSON
+     */
+    public HasStreamedJson(JsonStreamCheck check) {
+        this.check = check;
+    }
+    
+    @Override
+    protected boolean matchesSafely(String item) {
+        JsonParser parser = null;
+        
+        try {
+            parser = FACTORY.createParser(item);
+            return check.matches(parser);
+        } catch (IOException e) {
+            throw new RuntimeAssertionFailure("Failed to read JSON", e);
+        } finally {
+            closeQuietly(parser);
+        }
+    }
+    
+    @Override
+    public void describeTo(Description description) {
+        check.describeTo(description);
+    }
+    
+    @Override
+    protected void describeMismatchSafely(String item, Description mismatchDescription) {
+        JsonParser parser = null;
+        
+        try {
+            parser = FACTORY.createParser(item);
+            check.describeMismatch(parser, mismatchDescription);
+        } catch (IOException e) {
+            throw new RuntimeAssertionFailure("Failed to read JSON", e);
+        } finally {
+            closeQuietly(parser);
+        }
+    }
+    
+    private static void closeQuietly(JsonParser parser) {
+        if (parser == null) {
+            return;
+        }
+        try {
+            parser.close();
+        } catch (IOException e) {
+            // nothing more can be done
+        }
+    }
+    
+}
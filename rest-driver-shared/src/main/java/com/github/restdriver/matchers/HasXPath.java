@@ -22,6 +22,7 @@ import org.w3c.dom.Node;
 
 import com.github.restdriver.XmlUtil;
 import com.github.restdriver.matchers.util.HamcrestConverter;
+import com.github.restdriver.matchers.util.ParsedContentCache;
 import com.google.common.base.Function;
 
 public final class HasXPath {
@@ -29,6 +30,16 @@ public final class HasXPath {
     private HasXPath() {
     }
     
+    /**
+     * The same XML string is often checked against several XPaths, so it is only parsed once.
+     */
+    private static final ParsedContentCache<Node> PARSED_XML = new ParsedContentCache<Node>(new Function<String, Node>() {
+        @Override
+        public Node apply(String s) {
+            return XmlUtil.asXml(s);
+        }
+    });
+    
     /**
      * For wrapping the Node Matcher
      * 
@@ -37,7 +48,7 @@ public final class HasXPath {
     private static final HamcrestConverter<Node, String> NODE_TO_STRING_MATCHER = new HamcrestConverter<Node, String>(new Function<String, Node>() {
         @Override
         public Node apply(String s) {
-            return XmlUtil.asXml(s);
+            return PARSED_XML.parse(s);
         }
     });
     
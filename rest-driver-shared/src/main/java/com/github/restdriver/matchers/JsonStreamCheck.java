@@ -0,0 +1,316 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.matchers;
+
+import java.io.IOException;
+
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.SelfDescribing;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * A check which is made against a JSON document by reading through its tokens, rather than by building a tree of the whole document. Reading stops
+ * as soon as the answer is known, so checks on very large documents run in bounded memory.
+ * 
+ * <p>
+ * Paths are made up of field names and array indexes, eg {@code $.users[2].name}. Numbers are seen as Integer, Long or Double, as with
+ * {@link HasJsonPath}.
+ * </p>
+ */
+public abstract class JsonStreamCheck implements SelfDescribing {
+    
+    /**
+     * Stands for a value which was not in the document.
+     */
+    private static final Object ABSENT = new Object();
+    
+    JsonStreamCheck() {
+    }
+    
+    /**
+     * Check that there is a value at the given path which matches.
+     * 
+     * @param path The path to the value
+     * @param matcher The matcher to apply to the value. Objects and arrays are given to it as a JsonNode.
+     * @return The check
+     */
+    public static JsonStreamCheck jsonValueAt(String path, Matcher<?> matcher) {
+        return new ValueAt(new JsonStreamPath(path), matcher);
+    }
+    
+    /**
+     * Check that there is a value at the given path, even if it is null.
+     * 
+     * @param path The path to the value
+     * @return The check
+     */
+    public static JsonStreamCheck jsonFieldPresent(String path) {
+        return new FieldPresent(new JsonStreamPath(path));
+    }
+    
+    /**
+     * Check that there is an array at the given path whose size matches.
+     * 
+     * @param path The path to the array
+     * @param sizeMatcher The matcher to apply to the number of elements
+     * @return The check
+     */
+    public static JsonStreamCheck jsonArraySize(String path, Matcher<Integer> sizeMatcher) {
+        return new ArraySize(new JsonStreamPath(path), sizeMatcher);
+    }
+    
+    /**
+     * Check that some string, number, boolean or null anywhere in the document matches.
+     * 
+     * @param matcher The matcher to apply to each value in turn
+     * @return The check
+     */
+    public static JsonStreamCheck jsonContainingValue(Matcher<?> matcher) {
+        return new ContainingValue(matcher);
+    }
+    
+    /**
+     * Make the check.
+     * 
+     * @param parser A parser over the document, which has not yet read any tokens
+     * @return Whether the document passes the check
+     * @throws IOException If the document can't be read
+     */
+    public final boolean matches(JsonParser parser) throws IOException {
+        return accepts(observe(parser));
+    }
+    
+    /**
+     * Describe why the document did not pass the check.
+     * 
+     * @param parser A parser over the document, which has not yet read any tokens
+     * @param description The description to add to
+     * @throws IOException If the document can't be read
+     */
+    public final void describeMismatch(JsonParser parser, Description description) throws IOException {
+        describeObserved(observe(parser), description);
+    }
+    
+    /**
+     * Make the check, describing why the document did not pass it. The document is read only once, so this suits a stream which can't be read
+     * again.
+     * 
+     * @param parser A parser over the document, which has not yet read any tokens
+     * @param mismatchDescription The description to add to if the document does not pass
+     * @return Whether the document passes the check
+     * @throws IOException If the document can't be read
+     */
+    public final boolean matches(JsonParser parser, Description mismatchDescription) throws IOException {
+        Object observed = observe(parser);
+        
+        if (accepts(observed)) {
+            return true;
+        }
+        
+        describeObserved(observed, mismatchDescription);
+        return false;
+    }
+    
+    abstract Object observe(JsonParser parser) throws IOException;
+    
+    abstract boolean accepts(Object observed);
+    
+    abstract void describeObserved(Object observed, Description description);
+    
+    private static Object valueOf(JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+                return parser.getNumberValue();
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return null;
+            default:
+                return parser.readValueAsTree();
+        }
+    }
+    
+    // if the matcher is for longs and the value is an integer, do our best
+    private static boolean valueMatches(Matcher<?> matcher, Object value) {
+        return matcher.matches(value) || (value instanceof Integer && matcher.matches(((Integer) value).longValue()));
+    }
+    
+    private static final class ValueAt extends JsonStreamCheck {
+        
+        private final JsonStreamPath path;
+        private final Matcher<?> matcher;
+        
+        private ValueAt(JsonStreamPath path, Matcher<?> matcher) {
+            this.path = path;
+            this.matcher = matcher;
+        }
+        
+        @Override
+        Object observe(JsonParser parser) throws IOException {
+            JsonToken token = path.follow(parser);
+            return token == null ? ABSENT : valueOf(parser, token);
+        }
+        
+        @Override
+        boolean accepts(Object observed) {
+            return observed != ABSENT && valueMatches(matcher, observed);
+        }
+        
+        @Override
+        public void describeTo(Description description) {
+            description.appendText("JSON with value at '" + path + "' matching: ");
+            matcher.describeTo(description);
+        }
+        
+        @Override
+        void describeObserved(Object observed, Description description) {
+            if (observed == ABSENT) {
+                description.appendText("JSON has no value at '" + path + "'");
+            } else {
+                description.appendText("value at '" + path + "' was ").appendValue(observed);
+            }
+        }
+        
+    }
+    
+    private static final class FieldPresent extends JsonStreamCheck {
+        
+        private final JsonStreamPath path;
+        
+        private FieldPresent(JsonStreamPath path) {
+            this.path = path;
+        }
+        
+        @Override
+        Object observe(JsonParser parser) throws IOException {
+            return path.follow(parser) != null;
+        }
+        
+        @Override
+        boolean accepts(Object observed) {
+            return (Boolean) observed;
+        }
+        
+        @Override
+        public void describeTo(Description description) {
+            description.appendText("JSON with a value at '" + path + "'");
+        }
+        
+        @Override
+        void describeObserved(Object observed, Description description) {
+            description.appendText("JSON has no value at '" + path + "'");
+        }
+        
+    }
+    
+    private static final class ArraySize extends JsonStreamCheck {
+        
+        private final JsonStreamPath path;
+        private final Matcher<Integer> sizeMatcher;
+        
+        private ArraySize(JsonStreamPath path, Matcher<Integer> sizeMatcher) {
+            this.path = path;
+            this.sizeMatcher = sizeMatcher;
+        }
+        
+        @Override
+        Object observe(JsonParser parser) throws IOException {
+            if (path.follow(parser) != JsonToken.START_ARRAY) {
+                return ABSENT;
+            }
+            
+            int size = 0;
+            
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                parser.skipChildren();
+                size++;
+            }
+            
+            return size;
+        }
+        
+        @Override
+        boolean accepts(Object observed) {
+            return observed != ABSENT && sizeMatcher.matches(observed);
+        }
+        
+        @Override
+        public void describeTo(Description description) {
+            description.appendText("JSON with array at '" + path + "' of size matching: ");
+            sizeMatcher.describeTo(description);
+        }
+        
+        @Override
+        void describeObserved(Object observed, Description description) {
+            if (observed == ABSENT) {
+                description.appendText("JSON has no array at '" + path + "'");
+            } else {
+                description.appendText("array at '" + path + "' had size " + observed);
+            }
+        }
+        
+    }
+    
+    private static final class ContainingValue extends JsonStreamCheck {
+        
+        private final Matcher<?> matcher;
+        
+        private ContainingValue(Matcher<?> matcher) {
+            this.matcher = matcher;
+        }
+        
+        @Override
+        Object observe(JsonParser parser) throws IOException {
+            JsonToken token;
+            
+            while ((token = parser.nextToken()) != null) {
+                if (token.isScalarValue() && valueMatches(matcher, valueOf(parser, token))) {
+                    return true;
+                }
+            }
+            
+            return false;
+        }
+        
+        @Override
+        boolean accepts(Object observed) {
+            return (Boolean) observed;
+        }
+        
+        @Override
+        public void describeTo(Description description) {
+            description.appendText("JSON containing a value matching: ");
+            matcher.describeTo(description);
+        }
+        
+        @Override
+        void describeObserved(Object observed, Description description) {
+            description.appendText("JSON has no value matching: ");
+            matcher.describeTo(description);
+        }
+        
+    }
+    
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.matchers;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * A simple path into a JSON document, made up of field names and array indexes, eg {@code $.users[2].name}. Unlike a JSONpath there are no wildcards,
+ * filters or deep scans, so it can be followed through a stream of tokens without reading the rest of the document.
+ */
+final class JsonStreamPath {
+    
+    private static final Pattern SEGMENT = Pattern.compile("([^.\\[\\]]+)|\\[(\\d+)\\]");
+    
+    private final String path;
+    private final List<Object> segments;
+    
+    JsonStreamPath(String path) {
+        this.path = path;
+        this.segments = parse(path);
+    }
+    
+    private static List<Object> parse(String path) {
+        String remaining = path.startsWith("$") ? path.substring(1) : path;
+        List<Object> segments = new ArrayList<Object>();
+        Matcher matcher = SEGMENT.matcher(remaining);
+        int position = 0;
+        
+        while (position < remaining.length()) {
+            if (remaining.charAt(position) == '.') {
+                position++;
+                continue;
+            }
+            if (!matcher.find(position) || matcher.start() != position) {
+                throw new IllegalArgumentException("Invalid path: " + path);
+            }
+            if (matcher.group(1) != null) {
+                segments.add(matcher.group(1));
+            } else {
+                segments.add(Integer.valueOf(matcher.group(2)));
+            }
+            position = matcher.end();
+        }
+        
+        return Collections.unmodifiableList(segments);
+    }
+    
+    /**
+     * Read tokens until the parser is positioned on the first token of the value at this path.
+     * 
+     * @param parser A parser which has not yet read any tokens
+     * @return The first token of the value, or null if there is no value at this path
+     * @throws IOException If the JSON can't be read
+     */
+    JsonToken follow(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        
+        for (Object segment : segments) {
+            if (segment instanceof String) {
+                token = enterField(parser, token, (String) segment);
+            } else {
+                token = enterElement(parser, token, (Integer) segment);
+            }
+            
+            if (token == null) {
+                return null;
+            }
+        }
+        
+        return token;
+    }
+    
+    private static JsonToken enterField(JsonParser parser, JsonToken token, String fieldName) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            return null;
+        }
+        
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String currentName = parser.getCurrentName();
+            JsonToken valueToken = parser.nextToken();
+            
+            if (fieldName.equals(currentName)) {
+                return valueToken;
+            }
+            parser.skipChildren();
+        }
+        
+        return null;
+    }
+    
+    private static JsonToken enterElement(JsonParser parser, JsonToken token, int index) throws IOException {
+        if (token != JsonToken.START_ARRAY) {
+            return null;
+        }
+        
+        for (int i = 0;; i++) {
+            JsonToken elementToken = parser.nextToken();
+            
+            if (elementToken == JsonToken.END_ARRAY || elementToken == null) {
+                return null;
+            }
+            if (i == index) {
+                return elementToken;
+            }
+            parser.skipChildren();
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return path;
+    }
+    
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.matchers.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Remembers the result of parsing a string, so that several matchers applied to the same content only parse it once.
+ * 
+ * <p>
+ * Entries are keyed on the identity of the string and are held weakly, so they disappear along with the content they were parsed from. Callers must
+ * not modify the parsed values, as they are shared.
+ * </p>
+ * 
+ * @param <V> The type of the parsed value
+ */
+public final class ParsedContentCache<V> {
+    
+    private static final long MAX_ENTRIES = 64;
+    
+    private final Function<String, V> parser;
+    private final Cache<String, V> cache;
+    
+    public ParsedContentCache(Function<String, V> parser) {
+        this.parser = parser;
+        this.cache = CacheBuilder.newBuilder().weakKeys().maximumSize(MAX_ENTRIES).build();
+    }
+    
+    /**
+     * Parse the content, or return the value it was parsed to previously.
+     * 
+     * @param content The content to parse
+     * @return The parsed value
+     */
+    public V parse(final String content) {
+        if (content == null) {
+            return parser.apply(null);
+        }
+        
+        try {
+            return cache.get(content, new Callable<V>() {
+                
+                @Override
+                public V call() {
+                    return parser.apply(content);
+                }
+                
+            });
+            
+        } catch (UncheckedExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw e;
+            
+        } catch (ExecutionError e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw e;
+            
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Parser threw a checked exception", e.getCause());
+        }
+    }
+    
+}
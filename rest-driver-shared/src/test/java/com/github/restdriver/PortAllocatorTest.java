@@ -0,0 +1,144 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.io.IOException;
+import java.net.BindException;
+import java.net.ServerSocket;
+import java.nio.channels.ServerSocketChannel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PortAllocatorTest {
+    
+    @Rule
+    public TemporaryFolder registry = new TemporaryFolder();
+    
+    @Before
+    public void useTemporaryRegistry() {
+        System.setProperty(PortAllocator.REGISTRY_DIRECTORY_PROPERTY, registry.getRoot().getAbsolutePath());
+    }
+    
+    @After
+    public void clearRegistry() {
+        System.clearProperty(PortAllocator.REGISTRY_DIRECTORY_PROPERTY);
+    }
+    
+    @Test(expected = BindException.class)
+    public void freePortIsAlreadyBound() throws IOException {
+        PortReservation reservation = PortAllocator.bindFreePort();
+        
+        try {
+            new ServerSocket(reservation.getPort()).close();
+        } finally {
+            reservation.close();
+        }
+    }
+    
+    @Test
+    public void boundChannelCanBeTakenOnce() throws IOException {
+        PortReservation reservation = PortAllocator.bindFreePort();
+        
+        ServerSocketChannel channel = reservation.takeChannel();
+        assertThat(channel.socket().getLocalPort(), is(reservation.getPort()));
+        channel.close();
+        
+        try {
+            reservation.takeChannel();
+        } catch (IllegalStateException e) {
+            return;
+        } finally {
+            reservation.close();
+        }
+        throw new AssertionError("channel was taken twice");
+    }
+    
+    @Test
+    public void reservedPortIsNotReservedAgainUntilReleased() throws IOException {
+        PortReservation first = PortAllocator.bindFreePort();
+        int port = first.getPort();
+        
+        // the port is no longer bound, but is still reserved
+        first.takeChannel().close();
+        
+        try {
+            PortAllocator.reserve(port, port).close();
+            throw new AssertionError("port was reserved twice");
+        } catch (IOException e) {
+            assertThat(e.getMessage(), containsString("No free port"));
+        }
+        
+        first.close();
+        
+        PortReservation second = PortAllocator.reserve(port, port);
+        assertThat(second.getPort(), is(port));
+        second.close();
+    }
+    
+    @Test
+    public void reserveSkipsPortsWhichAreInUse() throws IOException {
+        ServerSocket inUse = new ServerSocket(0);
+        int port = inUse.getLocalPort();
+        
+        try {
+            PortReservation reservation = PortAllocator.reserve(port, port + 1);
+            assertThat(reservation.getPort(), is(port + 1));
+            reservation.close();
+        } catch (IOException e) {
+            // port + 1 happened to be taken too
+        } finally {
+            inUse.close();
+        }
+    }
+    
+    @Test
+    public void freePortFromSocketUtilIsNotHeld() throws IOException {
+        int port = SocketUtil.getFreePort();
+        
+        // neither bound nor reserved any more, so this JVM can reserve it again
+        PortAllocator.reserve(port, port).close();
+    }
+    
+    @Test(expected = IOException.class)
+    public void freePortCannotBeBoundWithoutTheRegistry() throws IOException {
+        System.setProperty(PortAllocator.REGISTRY_DIRECTORY_PROPERTY, registry.newFile("not-a-directory").getAbsolutePath());
+        
+        PortAllocator.bindFreePort();
+    }
+    
+    @Test
+    public void freePortFromSocketUtilDoesNotNeedTheRegistry() throws IOException {
+        System.setProperty(PortAllocator.REGISTRY_DIRECTORY_PROPERTY, registry.newFile("not-a-directory").getAbsolutePath());
+        
+        int port = SocketUtil.getFreePort();
+        
+        assertThat(port, is(greaterThan(0)));
+        new ServerSocket(port).close();
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void rangeMustBeValid() throws IOException {
+        PortAllocator.reserve(2000, 1000);
+    }
+    
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assume.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class UnixDomainSocketsTest {
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    @Before
+    public void needsUnixDomainSockets() {
+        assumeTrue(UnixDomainSockets.isSupported());
+    }
+    
+    @Test
+    public void bytesCanBeSentThroughSocketFile() throws IOException {
+        File socketFile = new File(folder.getRoot(), "test.sock");
+        
+        ServerSocketChannel server = UnixDomainSockets.bind(socketFile);
+        SocketChannel client = UnixDomainSockets.connect(socketFile);
+        SocketChannel accepted = server.accept();
+        
+        try {
+            client.write(ByteBuffer.wrap(new byte[] { 1, 2, 3 }));
+            ByteBuffer received = ByteBuffer.allocate(3);
+            
+            while (received.hasRemaining()) {
+                accepted.read(received);
+            }
+            
+            assertThat(received.array(), is(new byte[] { 1, 2, 3 }));
+            assertThat(socketFile.exists(), is(true));
+        } finally {
+            accepted.close();
+            client.close();
+            server.close();
+        }
+    }
+    
+    @Test(expected = IOException.class)
+    public void connectingToMissingSocketFileFails() throws IOException {
+        UnixDomainSockets.connect(new File(folder.getRoot(), "missing.sock"));
+    }
+    
+}
@@ -151,6 +151,30 @@ public class HasJsonPathTest {
         assertThat(hasJsonPath.matchesSafely(json), is(true));
     }
     
+    @Test
+    public void invalidPathDoesntMatch() {
+        JsonNode json = makeJson("{'foo': 23}");
+        
+        hasJsonPath = new HasJsonPath<Object>("$.foo..");
+        assertThat(hasJsonPath.matchesSafely(json), is(false));
+    }
+    
+    @Test
+    public void matcherCanBeReusedOnDifferentJson() {
+        hasJsonPath = new HasJsonPath<String>("$.foo", is("bar"));
+        
+        assertThat(hasJsonPath.matchesSafely(makeJson("{'foo': 'bar'}")), is(true));
+        assertThat(hasJsonPath.matchesSafely(makeJson("{'foo': 'baz'}")), is(false));
+    }
+    
+    @Test
+    public void jsonMatchesListOfObjects() {
+        JsonNode json = makeJson("{'foo': [{'id': 1}, {'id': 2}]}");
+        
+        hasJsonPath = new HasJsonPath<Iterable<? extends Object>>("$.foo[*].id", contains((Object) 1, 2));
+        assertThat(hasJsonPath.matchesSafely(json), is(true));
+    }
+    
     @Test
     public void describeToDoesntThrowNPE() {
         // bugfix for issue #47
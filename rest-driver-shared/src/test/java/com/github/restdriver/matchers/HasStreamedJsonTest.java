@@ -0,0 +1,132 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.matchers;
+
+import static com.github.restdriver.matchers.JsonStreamCheck.*;
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import org.hamcrest.Description;
+import org.hamcrest.StringDescription;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.restdriver.exception.RuntimeAssertionFailure;
+
+public class HasStreamedJsonTest {
+    
+    private static final String JSON = "{'name': 'Jeff', 'age': 35, 'height': 1.8, 'tall': true, 'pet': null, "
+            + "'address': {'town': 'Bath', 'lines': ['1 High St', 'Widcombe']}, "
+            + "'friends': [{'name': 'Bob'}, {'name': 'Sue'}, {'name': 'Ann'}]}";
+    
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+    
+    @Test
+    public void valueAtMatchesTopLevelValues() {
+        assertThat(json(JSON), new HasStreamedJson(jsonValueAt("name", is("Jeff"))));
+        assertThat(json(JSON), new HasStreamedJson(jsonValueAt("$.age", is(35))));
+        assertThat(json(JSON), new HasStreamedJson(jsonValueAt("age", is(35L))));
+        assertThat(json(JSON), new HasStreamedJson(jsonValueAt("height", is(1.8))));
+        assertThat(json(JSON), new HasStreamedJson(jsonValueAt("tall", is(true))));
+        assertThat(json(JSON), new HasStreamedJson(jsonValueAt("pet", is(nullValue()))));
+    }
+    
+    @Test
+    public void valueAtFollowsNestedFieldsAndIndexes() {
+        assertThat(json(JSON), new HasStreamedJson(jsonValueAt("address.town", is("Bath"))));
+        assertThat(json(JSON), new HasStreamedJson(jsonValueAt("address.lines[1]", is("Widcombe"))));
+        assertThat(json(JSON), new HasStreamedJson(jsonValueAt("$.friends[2].name", is("Ann"))));
+    }
+    
+    @Test
+    public void valueAtGivesObjectsAsJsonNodes() {
+        assertThat(json(JSON), new HasStreamedJson(jsonValueAt("friends[0]", instanceOf(JsonNode.class))));
+    }
+    
+    @Test
+    public void valueAtDoesntMatchMissingOrDifferentValues() {
+        assertThat(new HasStreamedJson(jsonValueAt("name", is("Bob"))).matches(json(JSON)), is(false));
+        assertThat(new HasStreamedJson(jsonValueAt("address.postcode", is("BA1"))).matches(json(JSON)), is(false));
+        assertThat(new HasStreamedJson(jsonValueAt("friends[3].name", is("Ann"))).matches(json(JSON)), is(false));
+        assertThat(new HasStreamedJson(jsonValueAt("name.first", is("Jeff"))).matches(json(JSON)), is(false));
+    }
+    
+    @Test
+    public void readingStopsOnceTheValueIsFound() {
+        assertThat(json("{'name': 'Jeff', 'rest': [this is not json"), new HasStreamedJson(jsonValueAt("name", is("Jeff"))));
+    }
+    
+    @Test
+    public void fieldPresentMatchesNullValues() {
+        assertThat(json(JSON), new HasStreamedJson(jsonFieldPresent("pet")));
+        assertThat(new HasStreamedJson(jsonFieldPresent("cat")).matches(json(JSON)), is(false));
+    }
+    
+    @Test
+    public void arraySizeCountsElements() {
+        assertThat(json(JSON), new HasStreamedJson(jsonArraySize("friends", is(3))));
+        assertThat(json(JSON), new HasStreamedJson(jsonArraySize("address.lines", greaterThan(1))));
+        assertThat(new HasStreamedJson(jsonArraySize("name", is(4))).matches(json(JSON)), is(false));
+    }
+    
+    @Test
+    public void containingValueSearchesTheWholeDocument() {
+        assertThat(json(JSON), new HasStreamedJson(jsonContainingValue(is("Sue"))));
+        assertThat(json(JSON), new HasStreamedJson(jsonContainingValue(is(35L))));
+        assertThat(new HasStreamedJson(jsonContainingValue(is("Fred"))).matches(json(JSON)), is(false));
+    }
+    
+    @Test
+    public void matcherDescribesItselfCorrectly() {
+        Description description = new StringDescription();
+        new HasStreamedJson(jsonValueAt("address.town", is("Bath"))).describeTo(description);
+        assertThat(description.toString(), is("JSON with value at 'address.town' matching: is \"Bath\""));
+    }
+    
+    @Test
+    public void matcherDescribesMismatchCorrectly() {
+        Description description = new StringDescription();
+        new HasStreamedJson(jsonValueAt("address.town", is("York"))).describeMismatchSafely(json(JSON), description);
+        assertThat(description.toString(), is("value at 'address.town' was \"Bath\""));
+    }
+    
+    @Test
+    public void matcherDescribesMissingValueCorrectly() {
+        Description description = new StringDescription();
+        new HasStreamedJson(jsonArraySize("enemies", is(0))).describeMismatchSafely(json(JSON), description);
+        assertThat(description.toString(), is("JSON has no array at 'enemies'"));
+    }
+    
+    @Test
+    public void invalidPathIsRejected() {
+        thrown.expect(IllegalArgumentException.class);
+        jsonValueAt("friends[x]", is("Bob"));
+    }
+    
+    @Test
+    public void matcherThrowsAnExceptionIfGivenInvalidJson() {
+        thrown.expect(RuntimeAssertionFailure.class);
+        new HasStreamedJson(jsonValueAt("name", is("Jeff"))).matches("{name\":10}");
+    }
+    
+    private static String json(String fakeJson) {
+        return fakeJson.replace("'", "\"");
+    }
+    
+}
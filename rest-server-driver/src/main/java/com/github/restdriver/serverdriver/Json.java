@@ -16,6 +16,7 @@
 package com.github.restdriver.serverdriver;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
 
 import org.hamcrest.Matcher;
 import org.hamcrest.TypeSafeMatcher;
@@ -36,6 +37,7 @@ import com.github.restdriver.serverdriver.http.response.Response;
 public final class Json {
     
     private static final int PARSE_ERROR_EXCERPT_LENGTH = 16;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
     
     private Json() {
     }
@@ -43,13 +45,13 @@ public final class Json {
     private static final ObjectMapper MAPPER = new ObjectMapper();
     
     /**
-     * Converts the content of the response to a JSON node.
+     * Converts the content of the response to a JSON node. The response only parses its content once.
      * 
      * @param response The response whose content is to be converted
      * @return The converted JSON node
      */
     public static JsonNode asJson(Response response) {
-        return asJson(response.getContent());
+        return response.asJson();
     }
     
     /**
@@ -66,6 +68,21 @@ public final class Json {
         }
     }
     
+    /**
+     * Converts the given bytes to a JSON node, without decoding them to a string first. The character encoding is detected from the bytes.
+     * 
+     * @param json The bytes which are to be converted
+     * @return The converted JSON node
+     */
+    public static JsonNode asJson(byte[] json) {
+        try {
+            return MAPPER.readTree(json);
+        } catch (IOException e) {
+            String excerpt = new String(json, 0, Math.min(json.length, PARSE_ERROR_EXCERPT_LENGTH), UTF_8);
+            throw new RuntimeMappingException("Can't parse JSON.  Bad content >> " + excerpt + "...", e);
+        }
+    }
+    
     /**
      * Creates a new instance of HasJsonValue.
      * 
@@ -17,17 +17,27 @@ package com.github.restdriver.serverdriver;
 
 import static org.hamcrest.Matchers.*;
 
+import java.util.concurrent.TimeUnit;
+
 import org.hamcrest.Matcher;
 import org.hamcrest.TypeSafeMatcher;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.github.restdriver.matchers.HasJsonPath;
+import com.github.restdriver.matchers.JsonStreamCheck;
 import com.github.restdriver.serverdriver.http.Header;
+import com.github.restdriver.serverdriver.http.response.ReadableResponse;
 import com.github.restdriver.serverdriver.http.response.Response;
+import com.github.restdriver.serverdriver.http.response.ResponseTimings.Phase;
+import com.github.restdriver.serverdriver.http.response.StreamingResponse;
+import com.github.restdriver.serverdriver.matchers.HasBodyDigest;
 import com.github.restdriver.serverdriver.matchers.HasHeader;
 import com.github.restdriver.serverdriver.matchers.HasHeaderWithValue;
 import com.github.restdriver.serverdriver.matchers.HasResponseBody;
+import com.github.restdriver.serverdriver.matchers.HasResponseTiming;
 import com.github.restdriver.serverdriver.matchers.HasStatusCode;
+import com.github.restdriver.serverdriver.matchers.HasStreamedBodyLength;
+import com.github.restdriver.serverdriver.matchers.HasStreamedJsonBody;
 import com.github.restdriver.serverdriver.matchers.Rfc1123DateMatcher;
 
 /**
@@ -68,6 +78,104 @@ public final class Matchers {
         return new HasResponseBody(bodyMatcher);
     }
     
+    /**
+     * Checks the time spent on resolving the host name.
+     * 
+     * @param timeMatcher The matcher against which the time will be evaluated
+     * @param timeUnit The unit in which the time is given to the matcher
+     * @return The new matcher
+     */
+    public static TypeSafeMatcher<Response> hasDnsResolutionTime(Matcher<Long> timeMatcher, TimeUnit timeUnit) {
+        return new HasResponseTiming(Phase.DNS_RESOLUTION, timeMatcher, timeUnit);
+    }
+    
+    /**
+     * Checks the time spent on establishing the TCP connection.
+     * 
+     * @param timeMatcher The matcher against which the time will be evaluated
+     * @param timeUnit The unit in which the time is given to the matcher
+     * @return The new matcher
+     */
+    public static TypeSafeMatcher<Response> hasConnectTime(Matcher<Long> timeMatcher, TimeUnit timeUnit) {
+        return new HasResponseTiming(Phase.CONNECT, timeMatcher, timeUnit);
+    }
+    
+    /**
+     * Checks the time spent on the TLS handshake.
+     * 
+     * @param timeMatcher The matcher against which the time will be evaluated
+     * @param timeUnit The unit in which the time is given to the matcher
+     * @return The new matcher
+     */
+    public static TypeSafeMatcher<Response> hasTlsHandshakeTime(Matcher<Long> timeMatcher, TimeUnit timeUnit) {
+        return new HasResponseTiming(Phase.TLS_HANDSHAKE, timeMatcher, timeUnit);
+    }
+    
+    /**
+     * Checks the time spent on waiting for the response status line and headers after the request was sent.
+     * 
+     * @param timeMatcher The matcher against which the time will be evaluated
+     * @param timeUnit The unit in which the time is given to the matcher
+     * @return The new matcher
+     */
+    public static TypeSafeMatcher<Response> hasTimeToFirstByte(Matcher<Long> timeMatcher, TimeUnit timeUnit) {
+        return new HasResponseTiming(Phase.TIME_TO_FIRST_BYTE, timeMatcher, timeUnit);
+    }
+    
+    /**
+     * Checks the time spent on reading the response body.
+     * 
+     * @param timeMatcher The matcher against which the time will be evaluated
+     * @param timeUnit The unit in which the time is given to the matcher
+     * @return The new matcher
+     */
+    public static TypeSafeMatcher<Response> hasBodyTransferTime(Matcher<Long> timeMatcher, TimeUnit timeUnit) {
+        return new HasResponseTiming(Phase.BODY_TRANSFER, timeMatcher, timeUnit);
+    }
+    
+    /**
+     * Checks the time spent on the whole request, including reading the response body.
+     * 
+     * @param timeMatcher The matcher against which the time will be evaluated
+     * @param timeUnit The unit in which the time is given to the matcher
+     * @return The new matcher
+     */
+    public static TypeSafeMatcher<Response> hasTotalTime(Matcher<Long> timeMatcher, TimeUnit timeUnit) {
+        return new HasResponseTiming(Phase.TOTAL, timeMatcher, timeUnit);
+    }
+    
+    /**
+     * Creates a new instance of HasBodyDigest, for a {@link Response} or a {@link StreamingResponse}.
+     * 
+     * @param algorithm The name of the digest algorithm, eg "SHA-256"
+     * @param digestMatcher The matcher to use against the digest, as a lower-case hex string
+     * @return The new matcher
+     */
+    public static TypeSafeMatcher<ReadableResponse> hasBodyDigest(String algorithm, Matcher<String> digestMatcher) {
+        return new HasBodyDigest(algorithm, digestMatcher);
+    }
+    
+    /**
+     * Creates a new instance of HasStreamedJsonBody, which checks a JSON body without building a tree of the whole document. It takes
+     * a {@link Response} or a {@link StreamingResponse}.
+     * 
+     * @param check The check to make, eg {@link JsonStreamCheck#jsonValueAt(String, Matcher)}
+     * @return The new matcher
+     */
+    public static TypeSafeMatcher<ReadableResponse> hasStreamedJsonBody(JsonStreamCheck check) {
+        return new HasStreamedJsonBody(check);
+    }
+    
+    /**
+     * Creates a new instance of HasStreamedBodyLength. Matching reads the rest of the body.
+     * 
+     * @param lengthMatcher The matcher to use against the number of bytes in the body
+     * @return The new matcher
+     */
+    public static TypeSafeMatcher<StreamingResponse> hasStreamedBodyLength(Matcher<Long> lengthMatcher) {
+        return new HasStreamedBodyLength(lengthMatcher);
+    }
+    
     /**
      * Creates a new instance of HasHeader.
      * 
@@ -15,17 +15,23 @@
  */
 package com.github.restdriver.serverdriver;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.net.ConnectException;
 import java.net.UnknownHostException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpOptions;
 import org.apache.http.client.methods.HttpPost;
@@ -43,13 +49,16 @@ import com.github.restdriver.serverdriver.http.AnyRequestModifier;
 import com.github.restdriver.serverdriver.http.BasicAuth;
 import com.github.restdriver.serverdriver.http.ByteArrayRequestBody;
 import com.github.restdriver.serverdriver.http.Header;
+import com.github.restdriver.serverdriver.http.HttpConnectionPool;
 import com.github.restdriver.serverdriver.http.HttpMethod;
 import com.github.restdriver.serverdriver.http.NoOpRequestProxy;
 import com.github.restdriver.serverdriver.http.RequestBody;
 import com.github.restdriver.serverdriver.http.RequestConnectionTimeout;
 import com.github.restdriver.serverdriver.http.RequestProxy;
 import com.github.restdriver.serverdriver.http.RequestSocketTimeout;
+import com.github.restdriver.serverdriver.http.RequestTimer;
 import com.github.restdriver.serverdriver.http.RequestTimeout;
+import com.github.restdriver.serverdriver.http.RequestUnixSocket;
 import com.github.restdriver.serverdriver.http.ServerDriverHttpUriRequest;
 import com.github.restdriver.serverdriver.http.Url;
 import com.github.restdriver.serverdriver.http.exception.RuntimeClientProtocolException;
@@ -59,6 +68,7 @@ import com.github.restdriver.serverdriver.http.request.HttpDeleteWithEntity;
 import com.github.restdriver.serverdriver.http.request.HttpGetWithEntity;
 import com.github.restdriver.serverdriver.http.response.DefaultResponse;
 import com.github.restdriver.serverdriver.http.response.Response;
+import com.github.restdriver.serverdriver.http.response.StreamingResponse;
 
 /**
  * Provides static methods for performing HTTP requests against a resource.
@@ -77,6 +87,9 @@ public final class RestServerDriver {
     
     private static ClientConnectionManager ccm = null;
     private static HttpParams httpParams = null;
+    private static HttpConnectionPool connectionPool = null;
+    private static final Map<File, HttpConnectionPool> unixSocketPools = new HashMap<File, HttpConnectionPool>();
+    private static volatile long responseSpillThreshold = DefaultResponse.NEVER_SPILL;
     
     private RestServerDriver() {
     }
@@ -265,6 +278,19 @@ public final class RestServerDriver {
         return new RequestSocketTimeout(timeUnit.toMillis(timeout));
     }
     
+    /**
+     * Send the request through a Unix domain socket instead of connecting to the URL's host and port, for example to a
+     * {@code ClientDriver} built with {@code unixSocket(file)}. The URL's host is still sent in the Host header, so
+     * "http://localhost/path" is a good choice. Unix domain sockets need Java 16 or later, and can't be used for asynchronous requests.
+     * 
+     * @param socketFile The socket file of the server.
+     * 
+     * @return The RequestUnixSocket instance.
+     */
+    public static AnyRequestModifier viaUnixSocket(File socketFile) {
+        return new RequestUnixSocket(socketFile);
+    }
+    
     /**
      * Creates a new {@link Url} object.
      * 
@@ -600,6 +626,124 @@ public final class RestServerDriver {
         return head(url, modifiers);
     }
     
+    /* ****************************************************************************
+     * Asynchronous methods *
+     * ****************************************************************************
+     */
+    
+    /**
+     * Perform an HTTP GET on a resource without blocking the calling thread.
+     * 
+     * @param url The URL of a resource. Accepts any Object and calls .toString() on it.
+     * @param modifiers Optional HTTP headers to put on the request.
+     * @return A future which completes with a Response encapsulating the server's reply.
+     */
+    public static CompletableFuture<Response> getAsync(Object url, AnyRequestModifier... modifiers) {
+        ServerDriverHttpUriRequest request = new ServerDriverHttpUriRequest(new HttpGetWithEntity(url.toString()));
+        applyModifiersToRequest(modifiers, request);
+        return doHttpRequestAsync(request);
+    }
+    
+    /**
+     * Perform an HTTP POST to the given URL without blocking the calling thread.
+     * 
+     * @param url The URL. Any object may be passed, we will call .toString() on it.
+     * @param modifiers The modifiers to be applied to the request.
+     * @return A future which completes with a Response encapsulating the server's reply.
+     */
+    public static CompletableFuture<Response> postAsync(Object url, AnyRequestModifier... modifiers) {
+        ServerDriverHttpUriRequest request = new ServerDriverHttpUriRequest(new HttpPost(url.toString()));
+        applyModifiersToRequest(modifiers, request);
+        return doHttpRequestAsync(request);
+    }
+    
+    /**
+     * Perform an HTTP PUT to the given URL without blocking the calling thread.
+     * 
+     * @param url The URL. Any object may be passed, we will call .toString() on it.
+     * @param modifiers The modifiers to be applied to the request.
+     * @return A future which completes with a Response encapsulating the server's reply.
+     */
+    public static CompletableFuture<Response> putAsync(Object url, AnyRequestModifier... modifiers) {
+        ServerDriverHttpUriRequest request = new ServerDriverHttpUriRequest(new HttpPut(url.toString()));
+        applyModifiersToRequest(modifiers, request);
+        return doHttpRequestAsync(request);
+    }
+    
+    /**
+     * Send an HTTP DELETE without blocking the calling thread.
+     * 
+     * @param url The resource to delete
+     * @param modifiers Any http headers
+     * @return A future which completes with a Response encapsulating the server's reply.
+     */
+    public static CompletableFuture<Response> deleteAsync(Object url, AnyRequestModifier... modifiers) {
+        ServerDriverHttpUriRequest request = new ServerDriverHttpUriRequest(new HttpDeleteWithEntity(url.toString()));
+        applyModifiersToRequest(modifiers, request);
+        return doHttpRequestAsync(request);
+    }
+    
+    /**
+     * Perform an HTTP HEAD on a resource without blocking the calling thread.
+     * 
+     * @param url The URL of a resource. Accepts any Object and calls .toString() on it.
+     * @param modifiers Optional HTTP headers to put on the request.
+     * @return A future which completes with a Response encapsulating the server's reply.
+     */
+    public static CompletableFuture<Response> headAsync(Object url, AnyRequestModifier... modifiers) {
+        ServerDriverHttpUriRequest request = new ServerDriverHttpUriRequest(new HttpHead(url.toString()));
+        applyModifiersToRequest(modifiers, request);
+        return doHttpRequestAsync(request);
+    }
+    
+    /**
+     * Perform a request with a specified method to the given URL without blocking the calling thread.
+     * 
+     * @param method The method to be used.
+     * @param url The URL. Any object may be passed, we will call .toString() on it.
+     * @param modifiers The modifiers to be applied to the request.
+     * @return A future which completes with a Response encapsulating the server's reply.
+     */
+    public static CompletableFuture<Response> methodAsync(String method, Object url, AnyRequestModifier... modifiers) {
+        ServerDriverHttpUriRequest request = new ServerDriverHttpUriRequest(new HttpMethod(method, url.toString()));
+        applyModifiersToRequest(modifiers, request);
+        return doHttpRequestAsync(request);
+    }
+    
+    /* ****************************************************************************
+     * Streaming methods *
+     * ****************************************************************************
+     */
+    
+    /**
+     * Perform an HTTP GET on a resource, returning as soon as the status and headers have arrived. The body is read from the connection as it is
+     * consumed, so it is never held in memory. The returned response must be closed.
+     * 
+     * @param url The URL of a resource. Accepts any Object and calls .toString() on it.
+     * @param modifiers Optional HTTP headers to put on the request.
+     * @return A StreamingResponse encapsulating the server's reply.
+     */
+    public static StreamingResponse getStream(Object url, AnyRequestModifier... modifiers) {
+        ServerDriverHttpUriRequest request = new ServerDriverHttpUriRequest(new HttpGetWithEntity(url.toString()));
+        applyModifiersToRequest(modifiers, request);
+        return doHttpRequestStreaming(request);
+    }
+    
+    /**
+     * Perform a request with a specified method to the given URL, returning as soon as the status and headers have arrived. The body is read from the
+     * connection as it is consumed, so it is never held in memory. The returned response must be closed.
+     * 
+     * @param method The method to be used.
+     * @param url The URL. Any object may be passed, we will call .toString() on it.
+     * @param modifiers The modifiers to be applied to the request.
+     * @return A StreamingResponse encapsulating the server's reply.
+     */
+    public static StreamingResponse methodStream(String method, Object url, AnyRequestModifier... modifiers) {
+        ServerDriverHttpUriRequest request = new ServerDriverHttpUriRequest(new HttpMethod(method, url.toString()));
+        applyModifiersToRequest(modifiers, request);
+        return doHttpRequestStreaming(request);
+    }
+    
     /*
      * Internal methods for creating requests and responses
      */
@@ -618,6 +762,38 @@ public final class RestServerDriver {
      */
     private static Response doHttpRequest(ServerDriverHttpUriRequest request) {
         
+        if (request.getUnixSocket() == null && (RestServerDriver.ccm != null || RestServerDriver.httpParams != null)) {
+            return doHttpRequestWithoutPool(request);
+        }
+        
+        HttpUriRequest httpUriRequest = request.getHttpUriRequest();
+        
+        if (!httpUriRequest.containsHeader(USER_AGENT)) {
+            httpUriRequest.addHeader(USER_AGENT, DEFAULT_USER_AGENT);
+        }
+        
+        CloseableHttpResponse response = null;
+        
+        try {
+            long startTime = System.currentTimeMillis();
+            RequestTimer timer = new RequestTimer();
+            response = getConnectionPool(request).execute(request, timer);
+            long endTime = System.currentTimeMillis();
+            
+            return new DefaultResponse(response, (endTime - startTime), timer, responseSpillThreshold);
+        } catch (IOException e) {
+            throw asRuntimeException(e);
+        } finally {
+            IOUtils.closeQuietly(response);
+        }
+        
+    }
+    
+    /*
+     * Makes a request using a dedicated client, for when a ClientConnectionManager or HttpParams have been supplied.
+     */
+    private static Response doHttpRequestWithoutPool(ServerDriverHttpUriRequest request) {
+        
         @SuppressWarnings("resource")
         HttpClient httpClient = new DefaultHttpClient(RestServerDriver.ccm,
                 RestServerDriver.httpParams);
@@ -644,24 +820,160 @@ public final class RestServerDriver {
             response = httpClient.execute(httpUriRequest);
             long endTime = System.currentTimeMillis();
             
-            return new DefaultResponse(response, (endTime - startTime));
-        } catch (ClientProtocolException cpe) {
-            throw new RuntimeClientProtocolException(cpe);
-        } catch (UnknownHostException uhe) {
-            throw new RuntimeUnknownHostException(uhe);
-        } catch (ConnectException ce) {
-            throw new RuntimeConnectException(ce);
+            return new DefaultResponse(response, (endTime - startTime), null, responseSpillThreshold);
         } catch (IOException e) {
-            throw new RuntimeException("Error executing request", e);
+            throw asRuntimeException(e);
         } finally {
-            httpClient.getConnectionManager().shutdown();
+            if (RestServerDriver.ccm == null) {
+                httpClient.getConnectionManager().shutdown();
+            }
+        }
+        
+    }
+    
+    /*
+     * Makes a request on the shared pool, leaving the entity to be read and the connection to be released by the caller.
+     */
+    private static StreamingResponse doHttpRequestStreaming(ServerDriverHttpUriRequest request) {
+        
+        HttpUriRequest httpUriRequest = request.getHttpUriRequest();
+        
+        if (!httpUriRequest.containsHeader(USER_AGENT)) {
+            httpUriRequest.addHeader(USER_AGENT, DEFAULT_USER_AGENT);
+        }
+        
+        try {
+            long startTime = System.currentTimeMillis();
+            RequestTimer timer = new RequestTimer();
+            CloseableHttpResponse response = getConnectionPool(request).execute(request, timer);
+            long endTime = System.currentTimeMillis();
+            
+            return new StreamingResponse(response, (endTime - startTime), timer.finish(0));
+        } catch (IOException e) {
+            throw asRuntimeException(e);
+        }
+        
+    }
+    
+    /*
+     * Makes a request on the shared pool's asynchronous client.
+     */
+    private static CompletableFuture<Response> doHttpRequestAsync(ServerDriverHttpUriRequest request) {
+        
+        HttpUriRequest httpUriRequest = request.getHttpUriRequest();
+        
+        if (!httpUriRequest.containsHeader(USER_AGENT)) {
+            httpUriRequest.addHeader(USER_AGENT, DEFAULT_USER_AGENT);
         }
         
+        final long startTime = System.currentTimeMillis();
+        
+        return getConnectionPool(request).executeAsync(request).handle(new BiFunction<HttpResponse, Throwable, Response>() {
+            
+            @Override
+            public Response apply(HttpResponse response, Throwable failure) {
+                if (failure instanceof IOException) {
+                    throw asRuntimeException((IOException) failure);
+                } else if (failure instanceof RuntimeException) {
+                    throw (RuntimeException) failure;
+                } else if (failure != null) {
+                    throw new RuntimeException("Error executing request", failure);
+                }
+                
+                long endTime = System.currentTimeMillis();
+                return new DefaultResponse(response, (endTime - startTime), null, responseSpillThreshold);
+            }
+            
+        });
+        
+    }
+    
+    private static RuntimeException asRuntimeException(IOException e) {
+        if (e instanceof ClientProtocolException) {
+            return new RuntimeClientProtocolException((ClientProtocolException) e);
+        } else if (e instanceof UnknownHostException) {
+            return new RuntimeUnknownHostException((UnknownHostException) e);
+        } else if (e instanceof ConnectException) {
+            return new RuntimeConnectException((ConnectException) e);
+        }
+        return new RuntimeException("Error executing request", e);
+    }
+    
+    /**
+     * Get the connection pool which is shared by all HTTP requests, creating it with default settings if necessary.
+     * 
+     * @return The shared connection pool
+     */
+    public static synchronized HttpConnectionPool getConnectionPool() {
+        if (connectionPool == null) {
+            connectionPool = new HttpConnectionPool();
+        }
+        return connectionPool;
+    }
+    
+    /*
+     * Requests through a Unix domain socket get a pool of their own for each socket file, so their connections are never handed to other requests.
+     */
+    private static synchronized HttpConnectionPool getConnectionPool(ServerDriverHttpUriRequest request) {
+        File unixSocket = request.getUnixSocket();
+        
+        if (unixSocket == null) {
+            return getConnectionPool();
+        }
+        
+        HttpConnectionPool pool = unixSocketPools.get(unixSocket);
+        if (pool == null) {
+            pool = HttpConnectionPool.overUnixSocket(unixSocket);
+            unixSocketPools.put(unixSocket, pool);
+        }
+        return pool;
+    }
+    
+    /**
+     * Replace the connection pool which is shared by all HTTP requests, for example to change the connection limits. The previous pool is closed.
+     * 
+     * @param pool The connection pool to use
+     */
+    public static synchronized void setConnectionPool(HttpConnectionPool pool) {
+        if (connectionPool != null && connectionPool != pool) {
+            connectionPool.close();
+        }
+        connectionPool = pool;
+    }
+    
+    /**
+     * Close every pooled connection, including those through Unix domain sockets, keeping the pool's settings. Subsequent requests will open new
+     * connections.
+     */
+    public static synchronized void resetConnectionPool() {
+        if (connectionPool != null) {
+            connectionPool.reset();
+        }
+        closeUnixSocketPools();
+    }
+    
+    /**
+     * Close the shared connection pool and all of its connections. A new pool with default settings will be created if further requests are made.
+     */
+    public static synchronized void closeConnectionPool() {
+        if (connectionPool != null) {
+            connectionPool.close();
+            connectionPool = null;
+        }
+        closeUnixSocketPools();
+    }
+    
+    private static void closeUnixSocketPools() {
+        for (HttpConnectionPool pool : unixSocketPools.values()) {
+            pool.close();
+        }
+        unixSocketPools.clear();
     }
     
     /**
      * Set the default ClientConnectionManager for all HTTP requests. <br>
-     * Pass null to use default ClientConnectionManager
+     * Pass null to use default ClientConnectionManager. <br>
+     * While a ClientConnectionManager or HttpParams are set, requests do not use the shared {@link HttpConnectionPool}.
      * 
      * @param ccm the connection manager to use
      */
@@ -671,7 +983,8 @@ public final class RestServerDriver {
     
     /**
      * Set the default HttpParams for all HTTP requests. <br>
-     * Pass null to use default HttpParams
+     * Pass null to use default HttpParams. <br>
+     * While a ClientConnectionManager or HttpParams are set, requests do not use the shared {@link HttpConnectionPool}.
      * 
      * @param httpParams the HTTP parameters to use 
      */
@@ -679,4 +992,15 @@ public final class RestServerDriver {
         RestServerDriver.httpParams = httpParams;
     }
     
+    /**
+     * Keep response bodies larger than the given size in a memory-mapped temporary file rather than on the heap. Such responses should be read with
+     * {@link Response#asStream()}, as {@link Response#asBytes()} and {@link Response#getContent()} copy the whole body onto the heap. <br>
+     * Pass {@link DefaultResponse#NEVER_SPILL} to keep every body on the heap, which is the default.
+     * 
+     * @param bytes the size in bytes above which bodies are kept in a file
+     */
+    public static void setResponseSpillThreshold(long bytes) {
+        RestServerDriver.responseSpillThreshold = bytes;
+    }
+    
 }
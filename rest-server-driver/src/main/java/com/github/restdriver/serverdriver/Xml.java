@@ -49,13 +49,13 @@ public final class Xml {
     }
     
     /**
-     * Converts the body of the given Response to an XML element.
+     * Converts the body of the given Response to an XML element. The response only parses its body once.
      * 
      * @param response The response to be converted
      * @return The converted element
      */
     public static Element asXml(Response response) {
-        return XmlUtil.asXml(response.getContent());
+        return response.asXml();
     }
     
     /**
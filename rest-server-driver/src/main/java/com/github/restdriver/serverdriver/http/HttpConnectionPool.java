@@ -0,0 +1,342 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.http;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.UnsupportedSchemeException;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.nio.reactor.IOReactorException;
+
+/**
+ * A thread-safe pool of HTTP connections which is shared between requests, so that keep-alive connections to the same host are reused rather than
+ * being opened (and closed) for every call.
+ * 
+ * <p>
+ * Asynchronous requests use a separate non-blocking client with the same limits, which is only started the first time it is needed. Its idle
+ * connections are closed as further asynchronous requests are made.
+ * </p>
+ * 
+ * <p>
+ * Connections which have been idle for longer than the idle timeout are evicted in the background. The pool can be emptied with {@link #reset()}, and
+ * must be closed with {@link #close()} once it is no longer needed.
+ * </p>
+ * 
+ * <p>
+ * A pool created with {@link #overUnixSocket(File)} sends every request through one Unix domain socket, whatever its URL's host and port. It
+ * can't send asynchronous requests.
+ * </p>
+ */
+public final class HttpConnectionPool implements Closeable {
+    
+    public static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 200;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+    public static final long DEFAULT_IDLE_TIMEOUT = 30000;
+    
+    private final int maxTotalConnections;
+    private final int maxConnectionsPerRoute;
+    private final long idleTimeoutMillis;
+    private final Map<HttpRoute, Integer> routeLimits = new HashMap<HttpRoute, Integer>();
+    private final File unixSocket;
+    
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient httpClient;
+    private PoolingNHttpClientConnectionManager asyncConnectionManager;
+    private CloseableHttpAsyncClient asyncHttpClient;
+    
+    /**
+     * Creates a pool with the default limits.
+     */
+    public HttpConnectionPool() {
+        this(DEFAULT_MAX_TOTAL_CONNECTIONS, DEFAULT_MAX_CONNECTIONS_PER_ROUTE, DEFAULT_IDLE_TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Creates a pool with the given limits.
+     * 
+     * @param maxTotalConnections The maximum number of connections open across all hosts.
+     * @param maxConnectionsPerRoute The maximum number of connections open to any one host, unless overridden with {@link #setMaxConnections(String, int, int)}.
+     * @param idleTimeout How long a connection may sit unused in the pool before it is closed.
+     * @param timeUnit The unit of the idle timeout.
+     */
+    public HttpConnectionPool(int maxTotalConnections, int maxConnectionsPerRoute, long idleTimeout, TimeUnit timeUnit) {
+        this(maxTotalConnections, maxConnectionsPerRoute, timeUnit.toMillis(idleTimeout), (File) null);
+    }
+    
+    private HttpConnectionPool(int maxTotalConnections, int maxConnectionsPerRoute, long idleTimeoutMillis, File unixSocket) {
+        this.maxTotalConnections = maxTotalConnections;
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.unixSocket = unixSocket;
+        createClient();
+    }
+    
+    /**
+     * Creates a pool with the default limits which sends every plain HTTP request through a Unix domain socket, whatever its URL's host and port.
+     * Unix domain sockets need Java 16 or later.
+     * 
+     * @param socketFile The socket file of the server.
+     * @return The new pool.
+     */
+    public static HttpConnectionPool overUnixSocket(File socketFile) {
+        return new HttpConnectionPool(DEFAULT_MAX_TOTAL_CONNECTIONS, DEFAULT_MAX_CONNECTIONS_PER_ROUTE, DEFAULT_IDLE_TIMEOUT, socketFile);
+    }
+    
+    /**
+     * Override the maximum number of connections which may be open to a single host.
+     * 
+     * @param host The host name.
+     * @param port The port.
+     * @param maxConnections The maximum number of connections to that host and port.
+     */
+    public synchronized void setMaxConnections(String host, int port, int maxConnections) {
+        HttpRoute route = new HttpRoute(new HttpHost(host, port));
+        routeLimits.put(route, maxConnections);
+        
+        if (connectionManager != null) {
+            connectionManager.setMaxPerRoute(route, maxConnections);
+        }
+        
+        if (asyncConnectionManager != null) {
+            asyncConnectionManager.setMaxPerRoute(route, maxConnections);
+        }
+    }
+    
+    /**
+     * Execute a request using a pooled connection. The caller is responsible for closing the returned response, which releases the connection back to
+     * the pool once its entity has been consumed.
+     * 
+     * @param request The request to execute.
+     * @return The response from the server.
+     * @throws IOException If the request fails.
+     */
+    public CloseableHttpResponse execute(ServerDriverHttpUriRequest request) throws IOException {
+        return execute(request, new RequestTimer());
+    }
+    
+    /**
+     * Execute a request using a pooled connection, recording the time taken by each phase of the request on the given timer. The caller is
+     * responsible for closing the returned response, which releases the connection back to the pool once its entity has been consumed.
+     * 
+     * @param request The request to execute.
+     * @param timer The timer on which to record the request phases.
+     * @return The response from the server.
+     * @throws IOException If the request fails.
+     */
+    public CloseableHttpResponse execute(ServerDriverHttpUriRequest request, RequestTimer timer) throws IOException {
+        HttpClientContext context = HttpClientContext.create();
+        context.setRequestConfig(request.getRequestConfig());
+        
+        timer.attach();
+        
+        try {
+            return client().execute(request.getHttpUriRequest(), context);
+        } catch (UnsupportedSchemeException use) {
+            throw new ClientProtocolException(use);
+        } finally {
+            timer.detach();
+        }
+    }
+    
+    /**
+     * Execute a request without blocking the calling thread. The returned future completes once the whole response has been received, on one of the
+     * client's I/O threads, so any further processing which may block should be chained with one of the {@code *Async} methods of
+     * {@link CompletableFuture}.
+     * 
+     * @param request The request to execute.
+     * @return A future which completes with the response from the server, or exceptionally if the request fails.
+     */
+    public CompletableFuture<HttpResponse> executeAsync(ServerDriverHttpUriRequest request) {
+        final CompletableFuture<HttpResponse> future = new CompletableFuture<HttpResponse>();
+        
+        if (unixSocket != null) {
+            // the non-blocking client only connects over TCP
+            future.completeExceptionally(new ClientProtocolException("Asynchronous requests can't be sent through a Unix domain socket"));
+            return future;
+        }
+        
+        HttpClientContext context = HttpClientContext.create();
+        context.setRequestConfig(request.getRequestConfig());
+        
+        asyncClient().execute(request.getHttpUriRequest(), context, new FutureCallback<HttpResponse>() {
+            
+            @Override
+            public void completed(HttpResponse response) {
+                future.complete(response);
+            }
+            
+            @Override
+            public void failed(Exception e) {
+                if (e instanceof UnsupportedSchemeException) {
+                    future.completeExceptionally(new ClientProtocolException(e));
+                } else {
+                    future.completeExceptionally(e);
+                }
+            }
+            
+            @Override
+            public void cancelled() {
+                future.cancel(false);
+            }
+            
+        });
+        
+        return future;
+    }
+    
+    /**
+     * How many connections are currently in use.
+     * 
+     * @return The number of leased connections.
+     */
+    public synchronized int getLeasedConnections() {
+        return connectionManager == null ? 0 : connectionManager.getTotalStats().getLeased();
+    }
+    
+    /**
+     * How many connections are open and waiting to be reused.
+     * 
+     * @return The number of idle connections in the pool.
+     */
+    public synchronized int getAvailableConnections() {
+        return connectionManager == null ? 0 : connectionManager.getTotalStats().getAvailable();
+    }
+    
+    /**
+     * Closes every pooled connection and starts again with an empty pool. Route limits set with {@link #setMaxConnections(String, int, int)} are kept.
+     */
+    public synchronized void reset() {
+        close();
+        createClient();
+    }
+    
+    /**
+     * Closes every pooled connection and stops the background eviction of idle connections. A request made on the pool afterwards starts it again
+     * with an empty pool.
+     */
+    @Override
+    public synchronized void close() {
+        IOUtils.closeQuietly(httpClient);
+        IOUtils.closeQuietly(asyncHttpClient);
+        connectionManager = null;
+        httpClient = null;
+        asyncConnectionManager = null;
+        asyncHttpClient = null;
+    }
+    
+    private synchronized CloseableHttpClient client() {
+        if (httpClient == null) {
+            createClient();
+        }
+        return httpClient;
+    }
+    
+    private synchronized CloseableHttpAsyncClient asyncClient() {
+        if (asyncHttpClient == null) {
+            createAsyncClient();
+        } else {
+            asyncConnectionManager.closeExpiredConnections();
+            asyncConnectionManager.closeIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        return asyncHttpClient;
+    }
+    
+    private void createClient() {
+        if (unixSocket == null) {
+            Registry<ConnectionSocketFactory> socketFactories = RegistryBuilder.<ConnectionSocketFactory> create()
+                    .register("http", new TimingPlainConnectionSocketFactory())
+                    .register("https", new TimingSslConnectionSocketFactory())
+                    .build();
+            
+            connectionManager = new PoolingHttpClientConnectionManager(socketFactories, new TimingDnsResolver());
+        } else {
+            Registry<ConnectionSocketFactory> socketFactories = RegistryBuilder.<ConnectionSocketFactory> create()
+                    .register("http", new UnixDomainConnectionSocketFactory(unixSocket))
+                    .build();
+            
+            // the host name is only sent in the Host header, so there is nothing to look up
+            connectionManager = new PoolingHttpClientConnectionManager(socketFactories, new DnsResolver() {
+                @Override
+                public InetAddress[] resolve(String host) {
+                    return new InetAddress[] { InetAddress.getLoopbackAddress() };
+                }
+            });
+        }
+        
+        connectionManager.setMaxTotal(maxTotalConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        
+        for (Map.Entry<HttpRoute, Integer> routeLimit : routeLimits.entrySet()) {
+            connectionManager.setMaxPerRoute(routeLimit.getKey(), routeLimit.getValue());
+        }
+        
+        httpClient = HttpClientBuilder.create()
+                .setConnectionManager(connectionManager)
+                .setRequestExecutor(new TimingRequestExecutor())
+                .disableRedirectHandling()
+                .disableCookieManagement()
+                .disableContentCompression()
+                .evictExpiredConnections()
+                .evictIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+    
+    private void createAsyncClient() {
+        try {
+            asyncConnectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor());
+        } catch (IOReactorException e) {
+            throw new RuntimeException("Error starting asynchronous HTTP client", e);
+        }
+        asyncConnectionManager.setMaxTotal(maxTotalConnections);
+        asyncConnectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        
+        for (Map.Entry<HttpRoute, Integer> routeLimit : routeLimits.entrySet()) {
+            asyncConnectionManager.setMaxPerRoute(routeLimit.getKey(), routeLimit.getValue());
+        }
+        
+        asyncHttpClient = HttpAsyncClientBuilder.create()
+                .setConnectionManager(asyncConnectionManager)
+                .disableCookieManagement()
+                .build();
+        asyncHttpClient.start();
+    }
+    
+}
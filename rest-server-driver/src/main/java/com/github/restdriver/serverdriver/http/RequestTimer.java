@@ -0,0 +1,99 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.http;
+
+import com.github.restdriver.serverdriver.http.response.ResponseTimings;
+
+/**
+ * Records when each phase of a request happens while it is executed by the {@link HttpConnectionPool}.
+ * 
+ * <p>
+ * The connection pool's DNS resolver, socket factories and request executor find the timer for the request they are working on through a thread-local,
+ * which is set for the duration of {@link HttpConnectionPool#execute(ServerDriverHttpUriRequest, RequestTimer)}.
+ * </p>
+ */
+public final class RequestTimer {
+    
+    private static final ThreadLocal<RequestTimer> CURRENT = new ThreadLocal<RequestTimer>();
+    
+    private final long startTime;
+    
+    private long dnsResolution;
+    private long connect;
+    private long tlsHandshake;
+    private long requestSentTime;
+    private long responseReceivedTime;
+    
+    /**
+     * Creates a timer, starting now.
+     */
+    public RequestTimer() {
+        this.startTime = System.nanoTime();
+    }
+    
+    /**
+     * Complete the timings once the response body has been read.
+     * 
+     * @param bodyTransfer Nanoseconds spent reading the response body.
+     * @return The timings for the whole request.
+     */
+    public ResponseTimings finish(long bodyTransfer) {
+        long timeToFirstByte = 0;
+        
+        if (requestSentTime != 0 && responseReceivedTime != 0) {
+            timeToFirstByte = responseReceivedTime - requestSentTime;
+        }
+        
+        return new ResponseTimings(dnsResolution, connect, tlsHandshake, timeToFirstByte, bodyTransfer, System.nanoTime() - startTime);
+    }
+    
+    static RequestTimer current() {
+        return CURRENT.get();
+    }
+    
+    void attach() {
+        CURRENT.set(this);
+    }
+    
+    void detach() {
+        CURRENT.remove();
+    }
+    
+    void addDnsResolution(long nanos) {
+        dnsResolution += nanos;
+    }
+    
+    void addConnect(long nanos) {
+        connect += nanos;
+    }
+    
+    void addTlsHandshake(long nanos) {
+        tlsHandshake += nanos;
+    }
+    
+    long getTlsHandshake() {
+        return tlsHandshake;
+    }
+    
+    void requestSent() {
+        requestSentTime = System.nanoTime();
+    }
+    
+    void responseReceived() {
+        responseReceivedTime = System.nanoTime();
+    }
+    
+}
@@ -15,7 +15,10 @@
  */
 package com.github.restdriver.serverdriver.http;
 
+import java.io.File;
+
 import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpUriRequest;
 
 import com.github.restdriver.serverdriver.RestServerDriver;
@@ -30,6 +33,7 @@ public final class ServerDriverHttpUriRequest {
     private HttpHost proxyHost;
     private long connectionTimeout = RestServerDriver.DEFAULT_CONNECTION_TIMEOUT;
     private long socketTimeout = RestServerDriver.DEFAULT_SOCKET_TIMEOUT;
+    private File unixSocket;
     
     /**
      * Constructor.
@@ -103,4 +107,37 @@ public final class ServerDriverHttpUriRequest {
         this.socketTimeout = socketTimeout;
     }
     
+    /**
+     * Getter.
+     * 
+     * @return The Unix domain socket to send the request through, or null to connect to the URL's host and port.
+     */
+    public File getUnixSocket() {
+        return unixSocket;
+    }
+    
+    /**
+     * Send the request through a Unix domain socket instead of connecting to the URL's host and port.
+     * 
+     * @param unixSocket The socket file of the server.
+     */
+    public void setUnixSocket(File unixSocket) {
+        this.unixSocket = unixSocket;
+    }
+    
+    /**
+     * Build the per-request configuration (timeouts, proxy and redirect handling) to use when executing this request on a shared client.
+     * 
+     * @return The {@link RequestConfig} for this request.
+     */
+    public RequestConfig getRequestConfig() {
+        return RequestConfig.custom()
+                .setConnectTimeout((int) connectionTimeout)
+                .setConnectionRequestTimeout((int) connectionTimeout)
+                .setSocketTimeout((int) socketTimeout)
+                .setProxy(proxyHost)
+                .setRedirectsEnabled(false)
+                .build();
+    }
+    
 }
@@ -0,0 +1,57 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.http;
+
+import java.io.IOException;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+
+/**
+ * Records on the current {@link RequestTimer} when the request has been sent and when the response status line and headers have been received.
+ */
+final class TimingRequestExecutor extends HttpRequestExecutor {
+    
+    @Override
+    protected HttpResponse doSendRequest(HttpRequest request, HttpClientConnection connection, HttpContext context) throws IOException, HttpException {
+        HttpResponse response = super.doSendRequest(request, connection, context);
+        RequestTimer timer = RequestTimer.current();
+        
+        if (timer != null) {
+            timer.requestSent();
+        }
+        
+        return response;
+    }
+    
+    @Override
+    protected HttpResponse doReceiveResponse(HttpRequest request, HttpClientConnection connection, HttpContext context) throws HttpException,
+            IOException {
+        HttpResponse response = super.doReceiveResponse(request, connection, context);
+        RequestTimer timer = RequestTimer.current();
+        
+        if (timer != null) {
+            timer.responseReceived();
+        }
+        
+        return response;
+    }
+    
+}
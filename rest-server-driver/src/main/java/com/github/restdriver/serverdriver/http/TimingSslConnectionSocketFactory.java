@@ -0,0 +1,68 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.http;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.ssl.SSLContexts;
+
+/**
+ * Opens TLS sockets, recording the TCP connect and the TLS handshake separately on the current {@link RequestTimer}.
+ */
+final class TimingSslConnectionSocketFactory extends SSLConnectionSocketFactory {
+    
+    TimingSslConnectionSocketFactory() {
+        super(SSLContexts.createDefault(), getDefaultHostnameVerifier());
+    }
+    
+    @Override
+    public Socket connectSocket(int connectTimeout, Socket socket, HttpHost host, InetSocketAddress remoteAddress, InetSocketAddress localAddress,
+            HttpContext context) throws IOException {
+        RequestTimer timer = RequestTimer.current();
+        long tlsHandshakeBefore = timer == null ? 0 : timer.getTlsHandshake();
+        long start = System.nanoTime();
+        
+        try {
+            return super.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+        } finally {
+            if (timer != null) {
+                long tlsHandshake = timer.getTlsHandshake() - tlsHandshakeBefore;
+                timer.addConnect(System.nanoTime() - start - tlsHandshake);
+            }
+        }
+    }
+    
+    @Override
+    public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context) throws IOException {
+        long start = System.nanoTime();
+        
+        try {
+            return super.createLayeredSocket(socket, target, port, context);
+        } finally {
+            RequestTimer timer = RequestTimer.current();
+            
+            if (timer != null) {
+                timer.addTlsHandshake(System.nanoTime() - start);
+            }
+        }
+    }
+    
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.http;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Opens sockets on a single Unix domain socket file whatever host is asked for, recording how long each connect takes on the current
+ * {@link RequestTimer}.
+ */
+final class UnixDomainConnectionSocketFactory implements ConnectionSocketFactory {
+    
+    private final File socketFile;
+    
+    UnixDomainConnectionSocketFactory(File socketFile) {
+        this.socketFile = socketFile;
+    }
+    
+    @Override
+    public Socket createSocket(HttpContext context) {
+        return new UnixDomainSocket(socketFile);
+    }
+    
+    @Override
+    public Socket connectSocket(int connectTimeout, Socket socket, HttpHost host, InetSocketAddress remoteAddress, InetSocketAddress localAddress,
+            HttpContext context) throws IOException {
+        Socket connecting = socket == null ? createSocket(context) : socket;
+        long start = System.nanoTime();
+        
+        try {
+            connecting.connect(remoteAddress, connectTimeout);
+        } catch (IOException e) {
+            connecting.close();
+            throw e;
+        } finally {
+            RequestTimer timer = RequestTimer.current();
+            
+            if (timer != null) {
+                timer.addConnect(System.nanoTime() - start);
+            }
+        }
+        
+        return connecting;
+    }
+    
+}
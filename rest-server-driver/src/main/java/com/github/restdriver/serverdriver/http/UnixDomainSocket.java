@@ -0,0 +1,328 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.http;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+import com.github.restdriver.UnixDomainSockets;
+
+/**
+ * A {@link Socket} backed by a Unix domain socket channel, so that the blocking HTTP client can talk to a server listening on a socket file. The
+ * address passed to {@link #connect(SocketAddress, int)} is ignored.
+ * 
+ * <p>
+ * The channel is used in non-blocking mode with a selector for each direction, so that reads honour the socket timeout, which the HTTP client
+ * also relies on to check whether pooled connections are stale.
+ * </p>
+ */
+final class UnixDomainSocket extends Socket {
+    
+    private final File socketFile;
+    
+    private volatile SocketChannel channel;
+    private Selector readSelector;
+    private Selector writeSelector;
+    private volatile int soTimeout;
+    
+    UnixDomainSocket(File socketFile) {
+        this.socketFile = socketFile;
+    }
+    
+    @Override
+    public synchronized void connect(SocketAddress endpoint, int timeout) throws IOException {
+        if (channel != null) {
+            throw new SocketException("Already connected");
+        }
+        
+        SocketChannel connected = UnixDomainSockets.connect(socketFile);
+        
+        try {
+            connected.configureBlocking(false);
+            readSelector = Selector.open();
+            writeSelector = Selector.open();
+            connected.register(readSelector, SelectionKey.OP_READ);
+            connected.register(writeSelector, SelectionKey.OP_WRITE);
+        } catch (IOException e) {
+            closeQuietly(readSelector);
+            closeQuietly(writeSelector);
+            connected.close();
+            throw e;
+        }
+        
+        channel = connected;
+    }
+    
+    @Override
+    public void connect(SocketAddress endpoint) throws IOException {
+        connect(endpoint, 0);
+    }
+    
+    @Override
+    public InputStream getInputStream() throws IOException {
+        connectedChannel();
+        return new ChannelInputStream();
+    }
+    
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        connectedChannel();
+        return new ChannelOutputStream();
+    }
+    
+    @Override
+    public void setSoTimeout(int timeout) throws SocketException {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Timeout cannot be negative");
+        }
+        this.soTimeout = timeout;
+    }
+    
+    @Override
+    public int getSoTimeout() {
+        return soTimeout;
+    }
+    
+    // TCP options mean nothing on a Unix domain socket, and would otherwise create a TCP socket underneath
+    
+    @Override
+    public void setTcpNoDelay(boolean on) {
+    }
+    
+    @Override
+    public boolean getTcpNoDelay() {
+        return true;
+    }
+    
+    @Override
+    public void setKeepAlive(boolean on) {
+    }
+    
+    @Override
+    public boolean getKeepAlive() {
+        return false;
+    }
+    
+    @Override
+    public void setReuseAddress(boolean on) {
+    }
+    
+    @Override
+    public boolean getReuseAddress() {
+        return false;
+    }
+    
+    @Override
+    public void setSoLinger(boolean on, int linger) {
+    }
+    
+    @Override
+    public int getSoLinger() {
+        return -1;
+    }
+    
+    @Override
+    public void setSendBufferSize(int size) {
+    }
+    
+    @Override
+    public void setReceiveBufferSize(int size) {
+    }
+    
+    @Override
+    public InetAddress getInetAddress() {
+        return InetAddress.getLoopbackAddress();
+    }
+    
+    @Override
+    public InetAddress getLocalAddress() {
+        return InetAddress.getLoopbackAddress();
+    }
+    
+    @Override
+    public int getPort() {
+        return 0;
+    }
+    
+    @Override
+    public int getLocalPort() {
+        return -1;
+    }
+    
+    @Override
+    public SocketAddress getRemoteSocketAddress() {
+        return channel == null ? null : UnixDomainSockets.address(socketFile);
+    }
+    
+    @Override
+    public SocketAddress getLocalSocketAddress() {
+        return null;
+    }
+    
+    @Override
+    public boolean isConnected() {
+        return channel != null;
+    }
+    
+    @Override
+    public boolean isBound() {
+        return channel != null;
+    }
+    
+    @Override
+    public void shutdownInput() throws IOException {
+        connectedChannel().shutdownInput();
+    }
+    
+    @Override
+    public void shutdownOutput() throws IOException {
+        connectedChannel().shutdownOutput();
+    }
+    
+    @Override
+    public boolean isInputShutdown() {
+        return isClosed();
+    }
+    
+    @Override
+    public boolean isOutputShutdown() {
+        return isClosed();
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        closeQuietly(readSelector);
+        closeQuietly(writeSelector);
+        
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } finally {
+            super.close();
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "UnixDomainSocket[" + socketFile + "]";
+    }
+    
+    private SocketChannel connectedChannel() throws SocketException {
+        if (isClosed()) {
+            throw new SocketException("Socket is closed");
+        }
+        if (channel == null) {
+            throw new SocketException("Socket is not connected");
+        }
+        return channel;
+    }
+    
+    private static void closeQuietly(Selector selector) {
+        try {
+            if (selector != null) {
+                selector.close();
+            }
+        } catch (IOException e) {
+            // nothing more can be done with it
+        }
+    }
+    
+    private final class ChannelInputStream extends InputStream {
+        
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int read = read(single, 0, 1);
+            return read < 0 ? -1 : single[0] & 0xff;
+        }
+        
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            
+            synchronized (readSelector) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+                int timeout = soTimeout;
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+                int read = connectedChannel().read(buffer);
+                
+                while (read == 0) {
+                    long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    
+                    if (timeout > 0 && remaining <= 0) {
+                        throw new SocketTimeoutException("Read timed out");
+                    }
+                    
+                    readSelector.select(timeout > 0 ? remaining : 0);
+                    readSelector.selectedKeys().clear();
+                    read = connectedChannel().read(buffer);
+                }
+                
+                return read;
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            UnixDomainSocket.this.close();
+        }
+        
+    }
+    
+    private final class ChannelOutputStream extends OutputStream {
+        
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+        
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            synchronized (writeSelector) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+                
+                while (buffer.hasRemaining()) {
+                    if (connectedChannel().write(buffer) == 0) {
+                        writeSelector.select();
+                        writeSelector.selectedKeys().clear();
+                    }
+                }
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            UnixDomainSocket.this.close();
+        }
+        
+    }
+    
+}
@@ -18,10 +18,12 @@ package com.github.restdriver.serverdriver.http.response;
 import static org.apache.commons.lang.StringUtils.*;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
@@ -35,21 +37,35 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.github.restdriver.XmlUtil;
 import com.github.restdriver.serverdriver.Json;
 import com.github.restdriver.serverdriver.http.Header;
+import com.github.restdriver.serverdriver.http.RequestTimer;
 
 /**
  * Our class which describes an HTTP response.
  */
 public final class DefaultResponse implements Response {
     
+    /**
+     * The spill threshold which keeps every body in memory, however large.
+     */
+    public static final long NEVER_SPILL = Long.MAX_VALUE;
+    
     private static final String DEFAULT_ENCODING = "UTF-8";
+    private static final int READ_BUFFER_SIZE = 8192;
     
     private final String protocolVersion;
     private final int statusCode;
     private final String statusMessage;
-    private final String content;
+    private final String contentEncoding;
     private final List<Header> headers;
     private final long responseTime;
-    private final byte[] binaryContent;
+    private final ResponseBody body;
+    private final ResponseTimings timings;
+    
+    // decoded on first use, so assertions on status, headers or bytes never pay for it
+    private String content;
+    private boolean contentDecoded;
+    private JsonNode json;
+    private Element xml;
     
     /**
      * Constructor from apache HttpResponse.
@@ -58,13 +74,41 @@ public final class DefaultResponse implements Response {
      * @param responseTime time taken for the request in milliseconds
      */
     public DefaultResponse(HttpResponse response, long responseTime) {
+        this(response, responseTime, null);
+    }
+    
+    /**
+     * Constructor from apache HttpResponse, with the timings recorded while the request was executed.
+     * 
+     * @param response the HttpResponse
+     * @param responseTime time taken for the request in milliseconds
+     * @param timer the timer on which the request phases were recorded, or null if they were not recorded
+     */
+    public DefaultResponse(HttpResponse response, long responseTime, RequestTimer timer) {
+        this(response, responseTime, timer, NEVER_SPILL);
+    }
+    
+    /**
+     * Constructor from apache HttpResponse, keeping a body larger than the given threshold in a memory-mapped temporary file rather than on the heap.
+     * 
+     * @param response the HttpResponse
+     * @param responseTime time taken for the request in milliseconds
+     * @param timer the timer on which the request phases were recorded, or null if they were not recorded
+     * @param spillThreshold the size in bytes above which the body is kept in a file, or {@link #NEVER_SPILL}
+     */
+    public DefaultResponse(HttpResponse response, long responseTime, RequestTimer timer, long spillThreshold) {
         this.protocolVersion = response.getStatusLine().getProtocolVersion().toString();
         this.statusCode = response.getStatusLine().getStatusCode();
         this.statusMessage = response.getStatusLine().getReasonPhrase();
-        this.binaryContent = binaryContentFromResponse(response);
-        this.content = contentFromResponse(response, this.binaryContent);
+        
+        long bodyTransferStart = System.nanoTime();
+        this.body = bodyFromResponse(response, spillThreshold);
+        long bodyTransfer = System.nanoTime() - bodyTransferStart;
+        
+        this.contentEncoding = contentEncodingFromResponse(response);
         this.headers = headersFromResponse(response);
         this.responseTime = responseTime;
+        this.timings = timingsFor(timer, responseTime, bodyTransfer);
     }
     
     @Override
@@ -73,13 +117,17 @@ public final class DefaultResponse implements Response {
     }
     
     @Override
-    public String getContent() {
+    public synchronized String getContent() {
+        if (!contentDecoded) {
+            content = contentFromBody(body, contentEncoding);
+            contentDecoded = true;
+        }
         return content;
     }
     
     @Override
     public String asText() {
-        return content;
+        return getContent();
     }
     
     @Override
@@ -123,13 +171,29 @@ public final class DefaultResponse implements Response {
     }
     
     @Override
-    public JsonNode asJson() {
-        return Json.asJson(this);
+    public ResponseTimings getTimings() {
+        return timings;
     }
     
     @Override
-    public Element asXml() {
-        return XmlUtil.asXml(this.getContent());
+    public synchronized JsonNode asJson() {
+        if (json == null) {
+            json = canParseBytes() ? Json.asJson(body.toByteArray()) : Json.asJson(getContent());
+        }
+        return json;
+    }
+    
+    @Override
+    public synchronized Element asXml() {
+        if (xml == null) {
+            xml = canParseBytes() ? XmlUtil.asXml(body.toByteArray()) : XmlUtil.asXml(getContent());
+        }
+        return xml;
+    }
+    
+    // parsers detect the character encoding themselves, unless the server told us a different one
+    private boolean canParseBytes() {
+        return body != null && contentEncoding == null;
     }
     
     @Override
@@ -139,7 +203,7 @@ public final class DefaultResponse implements Response {
     
     @Override
     public String toBigString() {
-        return createSummaryString(this.content.length());
+        return createSummaryString(getContent().length());
     }
     
     private String createSummaryString(int truncateLength) {
@@ -149,6 +213,8 @@ public final class DefaultResponse implements Response {
         
         httpString.appendWithSeparators(headers, SystemUtils.LINE_SEPARATOR);
         
+        String content = getContent();
+        
         if (StringUtils.isNotEmpty(content)) {
             httpString.appendNewLine();
             httpString.appendNewLine();
@@ -160,7 +226,7 @@ public final class DefaultResponse implements Response {
     
     @Override
     public String toCompactString() {
-        return "status=" + statusCode + "|content=" + StringUtils.abbreviate(content, Response.MAX_BODY_DISPLAY_LENGTH) + "|headers=[" + join(headers, ",") + "]";
+        return "status=" + statusCode + "|content=" + StringUtils.abbreviate(getContent(), Response.MAX_BODY_DISPLAY_LENGTH) + "|headers=[" + join(headers, ",") + "]";
     }
     
     @Override
@@ -180,10 +246,29 @@ public final class DefaultResponse implements Response {
     
     @Override
     public byte[] asBytes() {
-        return binaryContent;
+        if (body == null) {
+            return null;
+        }
+        return body.toByteArray();
+    }
+    
+    @Override
+    public InputStream asStream() {
+        if (body == null) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        return body.openStream();
     }
     
-    private byte[] binaryContentFromResponse(HttpResponse response) {
+    @Override
+    public long getContentLength() {
+        if (body == null) {
+            return 0;
+        }
+        return body.length();
+    }
+    
+    private static ResponseBody bodyFromResponse(HttpResponse response, long spillThreshold) {
         
         InputStream stream = null;
         
@@ -195,7 +280,24 @@ public final class DefaultResponse implements Response {
             }
             
             stream = entity.getContent();
-            return IOUtils.toByteArray(stream);
+            
+            if (spillThreshold == NEVER_SPILL) {
+                return new HeapResponseBody(IOUtils.toByteArray(stream));
+            }
+            
+            ByteArrayOutputStream head = new ByteArrayOutputStream();
+            byte[] buffer = new byte[READ_BUFFER_SIZE];
+            int read;
+            
+            while ((read = stream.read(buffer)) != -1) {
+                head.write(buffer, 0, read);
+                
+                if (head.size() > spillThreshold) {
+                    return MappedResponseBody.spill(head, stream);
+                }
+            }
+            
+            return new HeapResponseBody(head.toByteArray());
             
         } catch (IOException e) {
             throw new RuntimeException("Error getting response entity", e);
@@ -205,17 +307,36 @@ public final class DefaultResponse implements Response {
         }
     }
     
-    private String contentFromResponse(HttpResponse response, byte[] bytes) {
-        // we have to take binary content as a param here because we can't read the inputstream twice.
+    private static ResponseTimings timingsFor(RequestTimer timer, long responseTime, long bodyTransfer) {
+        if (timer != null) {
+            return timer.finish(bodyTransfer);
+        }
+        
+        long timeToFirstByte = TimeUnit.MILLISECONDS.toNanos(responseTime);
+        return new ResponseTimings(0, 0, 0, timeToFirstByte, bodyTransfer, timeToFirstByte + bodyTransfer);
+    }
+    
+    private static String contentEncodingFromResponse(HttpResponse response) {
+        HttpEntity entity = response.getEntity();
+        
+        if (entity == null || entity.getContentEncoding() == null) {
+            return null;
+        }
+        
+        return entity.getContentEncoding().getValue();
+    }
+    
+    private static String contentFromBody(ResponseBody body, String contentEncoding) {
+        // we work from the stored body here because we can't read the inputstream twice.
         
-        if (bytes == null) {
+        if (body == null) {
             return null;
         }
         
-        InputStream stream = new ByteArrayInputStream(bytes);
+        InputStream stream = body.openStream();
         
         try {
-            return readWithEncoding(stream, response.getEntity().getContentEncoding());
+            return readWithEncoding(stream, contentEncoding);
         } catch (IOException e) {
             throw new RuntimeException("Error converting response entity to string", e);
         }
@@ -233,11 +354,11 @@ public final class DefaultResponse implements Response {
         return parsedHeaders;
     }
     
-    private String readWithEncoding(InputStream stream, org.apache.http.Header contentEncoding) throws IOException {
+    private static String readWithEncoding(InputStream stream, String contentEncoding) throws IOException {
         if (contentEncoding == null) {
             return IOUtils.toString(stream, DEFAULT_ENCODING);
         } else {
-            return IOUtils.toString(stream, contentEncoding.getValue());
+            return IOUtils.toString(stream, contentEncoding);
         }
     }
     
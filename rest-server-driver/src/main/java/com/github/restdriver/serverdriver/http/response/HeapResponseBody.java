@@ -0,0 +1,47 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.http.response;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+/**
+ * A response body held in a byte array.
+ */
+final class HeapResponseBody implements ResponseBody {
+    
+    private final byte[] bytes;
+    
+    HeapResponseBody(byte[] bytes) {
+        this.bytes = bytes;
+    }
+    
+    @Override
+    public long length() {
+        return bytes.length;
+    }
+    
+    @Override
+    public byte[] toByteArray() {
+        return bytes;
+    }
+    
+    @Override
+    public InputStream openStream() {
+        return new ByteArrayInputStream(bytes);
+    }
+    
+}
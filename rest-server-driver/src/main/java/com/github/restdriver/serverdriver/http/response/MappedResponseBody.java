@@ -0,0 +1,169 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.http.response;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * A response body held in a memory-mapped temporary file, so that it takes up no heap.
+ * 
+ * <p>
+ * The file is deleted as soon as it has been mapped. Its disk space is given back once the response has been garbage-collected. Where the file system
+ * will not delete a file which is open, it is deleted when the JVM exits instead.
+ * </p>
+ */
+final class MappedResponseBody implements ResponseBody {
+    
+    // a single mapping cannot be larger than Integer.MAX_VALUE bytes
+    private static final long CHUNK_SIZE = 1L << 30;
+    private static final int WRITE_BUFFER_SIZE = 65536;
+    
+    private final long length;
+    private final List<MappedByteBuffer> chunks;
+    
+    private MappedResponseBody(long length, List<MappedByteBuffer> chunks) {
+        this.length = length;
+        this.chunks = chunks;
+    }
+    
+    /**
+     * Write the part of the body already read, followed by the rest of the stream, to a temporary file and map it.
+     * 
+     * @param head The part of the body which has already been read
+     * @param rest The rest of the body
+     * @return The mapped body
+     * @throws IOException If the file can't be written
+     */
+    static MappedResponseBody spill(ByteArrayOutputStream head, InputStream rest) throws IOException {
+        File file = File.createTempFile("rest-driver-", ".body");
+        RandomAccessFile randomAccessFile = null;
+        
+        try {
+            randomAccessFile = new RandomAccessFile(file, "rw");
+            FileChannel channel = randomAccessFile.getChannel();
+            
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), WRITE_BUFFER_SIZE);
+            head.writeTo(out);
+            IOUtils.copyLarge(rest, out);
+            out.flush();
+            
+            long length = channel.size();
+            List<MappedByteBuffer> chunks = new ArrayList<MappedByteBuffer>();
+            
+            for (long position = 0; position < length; position += CHUNK_SIZE) {
+                chunks.add(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(CHUNK_SIZE, length - position)));
+            }
+            
+            return new MappedResponseBody(length, chunks);
+            
+        } finally {
+            IOUtils.closeQuietly(randomAccessFile);
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+    
+    @Override
+    public long length() {
+        return length;
+    }
+    
+    @Override
+    public byte[] toByteArray() {
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Response body of " + length + " bytes is too large for a byte array, read it as a stream instead");
+        }
+        
+        byte[] bytes = new byte[(int) length];
+        int offset = 0;
+        
+        for (MappedByteBuffer chunk : chunks) {
+            int chunkLength = chunk.limit();
+            chunk.duplicate().get(bytes, offset, chunkLength);
+            offset += chunkLength;
+        }
+        
+        return bytes;
+    }
+    
+    @Override
+    public InputStream openStream() {
+        return new MappedInputStream();
+    }
+    
+    /**
+     * Reads through each of the mapped chunks in turn.
+     */
+    private final class MappedInputStream extends InputStream {
+        
+        private int chunkIndex;
+        private ByteBuffer current;
+        
+        @Override
+        public int read() {
+            if (!advance()) {
+                return -1;
+            }
+            return current.get() & 0xff;
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!advance()) {
+                return -1;
+            }
+            
+            int count = Math.min(len, current.remaining());
+            current.get(b, off, count);
+            return count;
+        }
+        
+        @Override
+        public int available() {
+            return current == null ? 0 : current.remaining();
+        }
+        
+        private boolean advance() {
+            while (current == null || !current.hasRemaining()) {
+                if (chunkIndex == chunks.size()) {
+                    return false;
+                }
+                current = chunks.get(chunkIndex++).duplicate();
+            }
+            return true;
+        }
+        
+    }
+    
+}
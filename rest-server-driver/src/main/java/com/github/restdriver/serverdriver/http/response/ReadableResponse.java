@@ -0,0 +1,32 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.http.response;
+
+import java.io.InputStream;
+
+/**
+ * A response whose body can be read as a stream, whether it has been kept in full or is still being read from the connection.
+ */
+public interface ReadableResponse {
+    
+    /**
+     * The body of the response as a stream.
+     * 
+     * @return A stream over the body of the HTTP response
+     */
+    InputStream asStream();
+    
+}
@@ -15,6 +15,8 @@
  */
 package com.github.restdriver.serverdriver.http.response;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.List;
 
 import org.w3c.dom.Element;
@@ -25,7 +27,7 @@ import com.github.restdriver.serverdriver.http.Header;
 /**
  * Encapsulates a response from an HTTP server.
  */
-public interface Response {
+public interface Response extends ReadableResponse {
     
     /**
      * The maximum number of response body characters to display.
@@ -55,12 +57,32 @@ public interface Response {
     
     /**
      * The body of the response as a byte array, for dealing with binary data or
-     * troubleshooting encoding issues.
+     * troubleshooting encoding issues. A body which has been kept in a file is copied into a new array on each call.
      * 
      * @return The body of the HTTP response as a byte array
      */
     byte[] asBytes();
     
+    /**
+     * The body of the response as a stream. Unlike {@link #asBytes()}, this does not copy a body which has been kept in a file onto the heap. The
+     * default reads from a copy made with {@link #asBytes()}.
+     * 
+     * @return A new stream over the body of the HTTP response
+     */
+    @Override
+    default InputStream asStream() {
+        return new ByteArrayInputStream(asBytes());
+    }
+    
+    /**
+     * How long was the body of the response? The default counts the bytes returned by {@link #asBytes()}.
+     * 
+     * @return The number of bytes in the body
+     */
+    default long getContentLength() {
+        return asBytes().length;
+    }
+    
     /**
      * What headers did the server send?
      * 
@@ -94,14 +116,25 @@ public interface Response {
     long getResponseTime();
     
     /**
-     * Returns the JSON response content as a JsonNode, or throws RuntimeMappingException.
+     * How long did each phase of the request take? The default reports every phase as zero.
+     * 
+     * @return The timings, in nanoseconds, for DNS resolution, connect, TLS handshake, time to first byte and body transfer
+     */
+    default ResponseTimings getTimings() {
+        return new ResponseTimings(0, 0, 0, 0, 0, 0);
+    }
+    
+    /**
+     * Returns the JSON response content as a JsonNode, or throws RuntimeMappingException. The content is parsed the first time this is called and the
+     * same node is returned afterwards, so it should not be modified.
      * 
      * @return The JsonNode
      */
     JsonNode asJson();
     
     /**
-     * Returns the XML response content as an org.w3c.Element, or throws RuntimeMappingException.
+     * Returns the XML response content as an org.w3c.Element, or throws RuntimeMappingException. The content is parsed the first time this is called
+     * and the same element is returned afterwards, so it should not be modified.
      * 
      * @return The Element
      */
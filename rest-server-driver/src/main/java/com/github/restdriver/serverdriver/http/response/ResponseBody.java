@@ -0,0 +1,40 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.http.response;
+
+import java.io.InputStream;
+
+/**
+ * Where the body of a {@link DefaultResponse} is kept once it has been read from the connection.
+ */
+interface ResponseBody {
+    
+    /**
+     * @return The number of bytes in the body
+     */
+    long length();
+    
+    /**
+     * @return The whole body as a byte array
+     */
+    byte[] toByteArray();
+    
+    /**
+     * @return A new stream over the body, starting at the first byte
+     */
+    InputStream openStream();
+    
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.http.response;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How long each phase of an HTTP request took, measured in nanoseconds.
+ * 
+ * <p>
+ * Phases which did not happen are reported as zero. In particular, when a pooled connection is reused there is no DNS resolution, connect or TLS
+ * handshake. Requests which do not go through the shared connection pool only report the time to first byte, body transfer and total.
+ * </p>
+ */
+public final class ResponseTimings {
+    
+    /**
+     * The phases of an HTTP request.
+     */
+    public enum Phase {
+        
+        DNS_RESOLUTION("DNS resolution"),
+        CONNECT("connect"),
+        TLS_HANDSHAKE("TLS handshake"),
+        TIME_TO_FIRST_BYTE("time to first byte"),
+        BODY_TRANSFER("body transfer"),
+        TOTAL("total");
+        
+        private final String description;
+        
+        private Phase(String description) {
+            this.description = description;
+        }
+        
+        @Override
+        public String toString() {
+            return description;
+        }
+        
+    }
+    
+    private final Map<Phase, Long> nanos = new EnumMap<Phase, Long>(Phase.class);
+    
+    /**
+     * Constructor.
+     * 
+     * @param dnsResolution Nanoseconds spent resolving the host name.
+     * @param connect Nanoseconds spent establishing the TCP connection.
+     * @param tlsHandshake Nanoseconds spent on the TLS handshake.
+     * @param timeToFirstByte Nanoseconds between the request being sent and the response status line and headers being received.
+     * @param bodyTransfer Nanoseconds spent reading the response body.
+     * @param total Nanoseconds from the start of the request until the response body was read.
+     */
+    public ResponseTimings(long dnsResolution, long connect, long tlsHandshake, long timeToFirstByte, long bodyTransfer, long total) {
+        nanos.put(Phase.DNS_RESOLUTION, dnsResolution);
+        nanos.put(Phase.CONNECT, connect);
+        nanos.put(Phase.TLS_HANDSHAKE, tlsHandshake);
+        nanos.put(Phase.TIME_TO_FIRST_BYTE, timeToFirstByte);
+        nanos.put(Phase.BODY_TRANSFER, bodyTransfer);
+        nanos.put(Phase.TOTAL, total);
+    }
+    
+    /**
+     * How long a phase took.
+     * 
+     * @param phase The phase.
+     * @param timeUnit The unit to return the time in.
+     * @return The time taken, truncated to the given unit.
+     */
+    public long get(Phase phase, TimeUnit timeUnit) {
+        return timeUnit.convert(nanos.get(phase), TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * @return Nanoseconds spent resolving the host name.
+     */
+    public long getDnsResolution() {
+        return nanos.get(Phase.DNS_RESOLUTION);
+    }
+    
+    /**
+     * @return Nanoseconds spent establishing the TCP connection.
+     */
+    public long getConnect() {
+        return nanos.get(Phase.CONNECT);
+    }
+    
+    /**
+     * @return Nanoseconds spent on the TLS handshake.
+     */
+    public long getTlsHandshake() {
+        return nanos.get(Phase.TLS_HANDSHAKE);
+    }
+    
+    /**
+     * @return Nanoseconds between the request being sent and the response status line and headers being received.
+     */
+    public long getTimeToFirstByte() {
+        return nanos.get(Phase.TIME_TO_FIRST_BYTE);
+    }
+    
+    /**
+     * @return Nanoseconds spent reading the response body.
+     */
+    public long getBodyTransfer() {
+        return nanos.get(Phase.BODY_TRANSFER);
+    }
+    
+    /**
+     * @return Nanoseconds from the start of the request until the response body was read.
+     */
+    public long getTotal() {
+        return nanos.get(Phase.TOTAL);
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder timings = new StringBuilder();
+        
+        for (Map.Entry<Phase, Long> phase : nanos.entrySet()) {
+            if (timings.length() > 0) {
+                timings.append(", ");
+            }
+            timings.append(phase.getKey()).append("=").append(phase.getValue()).append("ns");
+        }
+        
+        return timings.toString();
+    }
+    
+}
@@ -0,0 +1,220 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.http.response;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.io.input.NullInputStream;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+
+import com.github.restdriver.serverdriver.http.Header;
+
+/**
+ * An HTTP response whose body is read from the connection as it is consumed, rather than being held in memory.
+ * 
+ * <p>
+ * The status and headers are available as soon as the response is returned. The body can be read once, either as an {@link InputStream} or as a
+ * {@link ReadableByteChannel}. The response must be closed when it is no longer needed: if the body was read to the end the connection goes back to
+ * the pool, otherwise it is discarded.
+ * </p>
+ */
+public final class StreamingResponse implements Closeable, ReadableResponse {
+    
+    private final CloseableHttpResponse response;
+    private final String protocolVersion;
+    private final int statusCode;
+    private final String statusMessage;
+    private final List<Header> headers;
+    private final long responseTime;
+    private final ResponseTimings timings;
+    private final CountingInputStream body;
+    
+    private ReadableByteChannel channel;
+    
+    /**
+     * Constructor from apache CloseableHttpResponse, whose entity has not yet been read.
+     * 
+     * @param response the CloseableHttpResponse
+     * @param responseTime time taken for the status and headers to arrive, in milliseconds
+     * @param timings the timings recorded up until the status and headers arrived
+     */
+    public StreamingResponse(CloseableHttpResponse response, long responseTime, ResponseTimings timings) {
+        this.response = response;
+        this.protocolVersion = response.getStatusLine().getProtocolVersion().toString();
+        this.statusCode = response.getStatusLine().getStatusCode();
+        this.statusMessage = response.getStatusLine().getReasonPhrase();
+        this.headers = headersFromResponse(response);
+        this.responseTime = responseTime;
+        this.timings = timings;
+        this.body = new CountingInputStream(bodyFromResponse(response));
+    }
+    
+    /**
+     * What was the response code?
+     * 
+     * @return the HTTP status code of the response
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+    
+    /**
+     * What headers did the server send?
+     * 
+     * @return A list of headers
+     */
+    public List<Header> getHeaders() {
+        return headers;
+    }
+    
+    /**
+     * Get the all headers with the specified name.
+     * 
+     * @param headerName The name of the header
+     * @return The Headers associated with that name. Possibly an empty list.
+     */
+    public List<Header> getHeaders(String headerName) {
+        
+        List<Header> matchingHeaders = new ArrayList<Header>();
+        
+        for (Header header : headers) {
+            if (header.getName().equalsIgnoreCase(headerName)) {
+                matchingHeaders.add(header);
+            }
+        }
+        
+        return matchingHeaders;
+    }
+    
+    /**
+     * Get the value of an individual Header.
+     * 
+     * @param headerName The name of the header
+     * @return The Header associated with that name. Possibly null.
+     * @throws IllegalStateException if there is more than one header with that name
+     */
+    public Header getHeader(String headerName) {
+        
+        List<Header> matchingHeaders = getHeaders(headerName);
+        
+        if (matchingHeaders.isEmpty()) {
+            return null;
+        }
+        
+        if (matchingHeaders.size() > 1) {
+            throw new IllegalStateException("Attempt to get single header '" + headerName + "' but more than one value found.");
+        }
+        
+        return matchingHeaders.get(0);
+    }
+    
+    /**
+     * How long did the status and headers take to arrive?
+     * 
+     * @return Response time in milliseconds, not including reading the body
+     */
+    public long getResponseTime() {
+        return responseTime;
+    }
+    
+    /**
+     * How long did each phase of the request take, up until the status and headers arrived?
+     * 
+     * @return The timings, with no body transfer time
+     */
+    public ResponseTimings getTimings() {
+        return timings;
+    }
+    
+    /**
+     * The body of the response, read from the connection as it is consumed.
+     * 
+     * @return The body as a stream
+     */
+    @Override
+    public InputStream asStream() {
+        return body;
+    }
+    
+    /**
+     * The body of the response, read from the connection as it is consumed.
+     * 
+     * @return The body as a channel
+     */
+    public synchronized ReadableByteChannel asChannel() {
+        if (channel == null) {
+            channel = Channels.newChannel(body);
+        }
+        return channel;
+    }
+    
+    /**
+     * How much of the body has been read so far.
+     * 
+     * @return The number of bytes read
+     */
+    public long getBytesRead() {
+        return body.getByteCount();
+    }
+    
+    /**
+     * Release the connection. If the body was read to the end the connection is returned to the pool, otherwise it is closed.
+     */
+    @Override
+    public void close() {
+        IOUtils.closeQuietly(response);
+    }
+    
+    @Override
+    public String toString() {
+        return protocolVersion + " " + statusCode + " " + statusMessage;
+    }
+    
+    private static InputStream bodyFromResponse(CloseableHttpResponse response) {
+        HttpEntity entity = response.getEntity();
+        
+        if (entity == null) {
+            return new NullInputStream(0);
+        }
+        
+        try {
+            return entity.getContent();
+        } catch (IOException e) {
+            IOUtils.closeQuietly(response);
+            throw new RuntimeException("Error getting response entity", e);
+        }
+    }
+    
+    private static List<Header> headersFromResponse(CloseableHttpResponse response) {
+        List<Header> parsedHeaders = new ArrayList<Header>();
+        
+        for (org.apache.http.Header currentHeader : response.getAllHeaders()) {
+            parsedHeaders.add(new Header(currentHeader.getName(), currentHeader.getValue()));
+        }
+        
+        return parsedHeaders;
+    }
+    
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.load;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * The results of a {@link LoadRun}.
+ * 
+ * <p>
+ * Latency is measured in nanoseconds from the time each request <em>should</em> have been sent according to the target rate, so time spent waiting
+ * behind a slow request is included rather than hidden (this corrects for coordinated omission). The service time is measured from when each request was
+ * actually sent. When no target rate is set the two are the same.
+ * </p>
+ */
+public final class LoadReport {
+    
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    
+    private final Histogram latency;
+    private final Histogram serviceTime;
+    private final Map<Integer, Long> statusCodeCounts;
+    private final long exceptionCount;
+    private final long elapsedNanos;
+    
+    LoadReport(Histogram latency, Histogram serviceTime, Map<Integer, Long> statusCodeCounts, long exceptionCount, long elapsedNanos) {
+        this.latency = latency;
+        this.serviceTime = serviceTime;
+        this.statusCodeCounts = Collections.unmodifiableMap(new TreeMap<Integer, Long>(statusCodeCounts));
+        this.exceptionCount = exceptionCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+    
+    /**
+     * How many requests were completed, whether or not they succeeded.
+     * 
+     * @return The number of requests
+     */
+    public long getRequestCount() {
+        return latency.getTotalCount();
+    }
+    
+    /**
+     * How many requests were completed per second.
+     * 
+     * @return The throughput in requests per second
+     */
+    public double getThroughput() {
+        if (elapsedNanos == 0) {
+            return 0;
+        }
+        return getRequestCount() * NANOS_PER_SECOND / elapsedNanos;
+    }
+    
+    /**
+     * How many responses were received with each status code.
+     * 
+     * @return The number of responses, keyed by status code
+     */
+    public Map<Integer, Long> getStatusCodeCounts() {
+        return statusCodeCounts;
+    }
+    
+    /**
+     * How many responses had a 4xx or 5xx status code.
+     * 
+     * @return The number of error responses
+     */
+    public long getErrorCount() {
+        long errors = 0;
+        
+        for (Map.Entry<Integer, Long> statusCodeCount : statusCodeCounts.entrySet()) {
+            if (statusCodeCount.getKey() >= 400) {
+                errors += statusCodeCount.getValue();
+            }
+        }
+        
+        return errors;
+    }
+    
+    /**
+     * How many requests failed without any response, for example because the connection was refused or timed out.
+     * 
+     * @return The number of failed requests
+     */
+    public long getExceptionCount() {
+        return exceptionCount;
+    }
+    
+    /**
+     * The latency at a given percentile, corrected for coordinated omission.
+     * 
+     * @param percentile The percentile, eg 99.9
+     * @param timeUnit The unit to return the latency in
+     * @return The latency
+     */
+    public long getLatencyAtPercentile(double percentile, TimeUnit timeUnit) {
+        return timeUnit.convert(latency.getValueAtPercentile(percentile), TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * The highest latency seen, corrected for coordinated omission.
+     * 
+     * @param timeUnit The unit to return the latency in
+     * @return The latency
+     */
+    public long getMaxLatency(TimeUnit timeUnit) {
+        return timeUnit.convert(latency.getMaxValue(), TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * The full histogram of latencies in nanoseconds, corrected for coordinated omission.
+     * 
+     * @return A copy of the histogram
+     */
+    public Histogram getLatencyHistogram() {
+        return latency.copy();
+    }
+    
+    /**
+     * The full histogram of service times in nanoseconds, measured from when each request was actually sent.
+     * 
+     * @return A copy of the histogram
+     */
+    public Histogram getServiceTimeHistogram() {
+        return serviceTime.copy();
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("requests=%d|throughput=%.1f/s|statusCodes=%s|exceptions=%d|latency(ms) p50=%.3f p90=%.3f p99=%.3f p99.9=%.3f max=%.3f",
+                getRequestCount(), getThroughput(), statusCodeCounts, exceptionCount,
+                millis(latency.getValueAtPercentile(50)),
+                millis(latency.getValueAtPercentile(90)),
+                millis(latency.getValueAtPercentile(99)),
+                millis(latency.getValueAtPercentile(99.9)),
+                millis(latency.getMaxValue()));
+    }
+    
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+    
+}
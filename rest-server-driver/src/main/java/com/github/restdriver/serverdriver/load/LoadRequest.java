@@ -0,0 +1,37 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.load;
+
+import com.github.restdriver.serverdriver.http.response.Response;
+
+/**
+ * A request which is sent repeatedly during a {@link LoadRun}.
+ * 
+ * <p>
+ * Implementations will usually just call one of the methods on {@link com.github.restdriver.serverdriver.RestServerDriver}, and are called from
+ * several threads at once.
+ * </p>
+ */
+public interface LoadRequest {
+    
+    /**
+     * Send the request.
+     * 
+     * @return The server's reply
+     */
+    Response execute();
+    
+}
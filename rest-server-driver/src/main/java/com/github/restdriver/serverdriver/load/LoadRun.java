@@ -0,0 +1,260 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.load;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+
+import com.github.restdriver.serverdriver.RestServerDriver;
+import com.github.restdriver.serverdriver.http.AnyRequestModifier;
+import com.github.restdriver.serverdriver.http.exception.RuntimeInterruptedException;
+import com.github.restdriver.serverdriver.http.response.Response;
+
+/**
+ * Sends a request repeatedly from a number of threads for a fixed length of time, and reports on throughput, status codes and latency.
+ * 
+ * <pre>
+ * {@code
+ * LoadReport report = LoadRun.of("GET", url, header("Accept", "application/json"))
+ *         .withConcurrency(8)
+ *         .atRate(500, SECONDS)
+ *         .forDuration(30, SECONDS)
+ *         .run();
+ * }
+ * </pre>
+ * 
+ * <p>
+ * Without a target rate each thread sends its next request as soon as the previous one completes. With a target rate, requests are scheduled at fixed
+ * intervals and latency is measured from the scheduled time, so a stalled server shows up in the tail latencies even though fewer requests are sent
+ * while it is stalled.
+ * </p>
+ */
+public final class LoadRun {
+    
+    private static final int HISTOGRAM_SIGNIFICANT_DIGITS = 3;
+    private static final long DEFAULT_DURATION_SECONDS = 10;
+    
+    private final LoadRequest request;
+    
+    private int concurrency = 1;
+    private long intervalNanos;
+    private long durationNanos = TimeUnit.SECONDS.toNanos(DEFAULT_DURATION_SECONDS);
+    
+    /**
+     * Creates a new run which sends the given request.
+     * 
+     * @param request The request to send
+     */
+    public LoadRun(LoadRequest request) {
+        this.request = request;
+    }
+    
+    /**
+     * Creates a new run which sends a request with the given method to the given URL.
+     * 
+     * @param method The method to be used.
+     * @param url The URL. Any object may be passed, we will call .toString() on it.
+     * @param modifiers The modifiers to be applied to every request.
+     * @return The new run
+     */
+    public static LoadRun of(final String method, final Object url, final AnyRequestModifier... modifiers) {
+        return new LoadRun(new LoadRequest() {
+            
+            @Override
+            public Response execute() {
+                return RestServerDriver.method(method, url, modifiers);
+            }
+            
+        });
+    }
+    
+    /**
+     * Set how many threads send requests at once. The default is one.
+     * 
+     * @param threads The number of threads
+     * @return This run
+     */
+    public LoadRun withConcurrency(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least one");
+        }
+        this.concurrency = threads;
+        return this;
+    }
+    
+    /**
+     * Set the rate at which requests are sent, across all threads. By default requests are sent as fast as the threads allow.
+     * 
+     * @param requests The number of requests
+     * @param per The unit of time in which that number of requests should be sent
+     * @return This run
+     */
+    public LoadRun atRate(long requests, TimeUnit per) {
+        if (requests < 1) {
+            throw new IllegalArgumentException("Rate must be at least one request");
+        }
+        this.intervalNanos = Math.max(1, per.toNanos(1) / requests);
+        return this;
+    }
+    
+    /**
+     * Set how long requests are sent for. The default is ten seconds. With a target rate every request scheduled within this time is sent, so a
+     * slow server makes the run take longer than this.
+     * 
+     * @param duration The duration
+     * @param timeUnit The unit of the duration
+     * @return This run
+     */
+    public LoadRun forDuration(long duration, TimeUnit timeUnit) {
+        this.durationNanos = timeUnit.toNanos(duration);
+        return this;
+    }
+    
+    /**
+     * Send requests until the duration has elapsed, and wait for the last of them to complete.
+     * 
+     * @return The results of the run
+     */
+    public LoadReport run() {
+        
+        long startTime = System.nanoTime();
+        AtomicLong sequence = new AtomicLong();
+        List<Worker> workers = new ArrayList<Worker>();
+        
+        for (int i = 0; i < concurrency; i++) {
+            Worker worker = new Worker(i, startTime, sequence);
+            workers.add(worker);
+            worker.start();
+        }
+        
+        Histogram latency = new Histogram(HISTOGRAM_SIGNIFICANT_DIGITS);
+        Histogram serviceTime = new Histogram(HISTOGRAM_SIGNIFICANT_DIGITS);
+        Map<Integer, Long> statusCodeCounts = new HashMap<Integer, Long>();
+        long exceptionCount = 0;
+        
+        for (Worker worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                for (Worker toStop : workers) {
+                    toStop.interrupt();
+                }
+                throw new RuntimeInterruptedException("interrupted while waiting for load run to complete", e);
+            }
+            
+            if (worker.failure != null) {
+                throw worker.failure;
+            }
+            
+            latency.add(worker.latency);
+            serviceTime.add(worker.serviceTime);
+            exceptionCount += worker.exceptionCount;
+            
+            for (Map.Entry<Integer, Long> statusCodeCount : worker.statusCodeCounts.entrySet()) {
+                increment(statusCodeCounts, statusCodeCount.getKey(), statusCodeCount.getValue());
+            }
+        }
+        
+        return new LoadReport(latency, serviceTime, statusCodeCounts, exceptionCount, System.nanoTime() - startTime);
+    }
+    
+    private static void increment(Map<Integer, Long> counts, int key, long by) {
+        Long current = counts.get(key);
+        counts.put(key, current == null ? by : current + by);
+    }
+    
+    /**
+     * One of the threads sending requests. Results are kept per thread and merged once the run is over.
+     */
+    private final class Worker extends Thread {
+        
+        private final long startTime;
+        private final AtomicLong sequence;
+        
+        private final Histogram latency = new Histogram(HISTOGRAM_SIGNIFICANT_DIGITS);
+        private final Histogram serviceTime = new Histogram(HISTOGRAM_SIGNIFICANT_DIGITS);
+        private final Map<Integer, Long> statusCodeCounts = new HashMap<Integer, Long>();
+        private long exceptionCount;
+        private Error failure;
+        
+        private Worker(int index, long startTime, AtomicLong sequence) {
+            super("rest-driver-load-" + index);
+            this.startTime = startTime;
+            this.sequence = sequence;
+            setDaemon(true);
+        }
+        
+        @Override
+        public void run() {
+            try {
+                sendRequests();
+            } catch (Error e) {
+                failure = e;
+            }
+        }
+        
+        private void sendRequests() {
+            long endTime = startTime + durationNanos;
+            
+            while (!isInterrupted()) {
+                
+                long intendedTime = nextIntendedTime();
+                
+                if (intendedTime - endTime >= 0) {
+                    return;
+                }
+                
+                waitUntil(intendedTime);
+                long sentTime = System.nanoTime();
+                
+                try {
+                    Response response = request.execute();
+                    increment(statusCodeCounts, response.getStatusCode(), 1);
+                } catch (RuntimeException e) {
+                    exceptionCount++;
+                }
+                
+                long completedTime = System.nanoTime();
+                latency.recordValue(completedTime - intendedTime);
+                serviceTime.recordValue(completedTime - sentTime);
+            }
+        }
+        
+        private long nextIntendedTime() {
+            if (intervalNanos == 0) {
+                return System.nanoTime();
+            }
+            return startTime + sequence.getAndIncrement() * intervalNanos;
+        }
+        
+        private void waitUntil(long time) {
+            long remaining;
+            
+            while ((remaining = time - System.nanoTime()) > 0 && !isInterrupted()) {
+                LockSupport.parkNanos(remaining);
+            }
+        }
+        
+    }
+    
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.matchers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.IOUtils;
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.TypeSafeMatcher;
+
+import com.github.restdriver.serverdriver.http.response.ReadableResponse;
+
+/**
+ * Matcher to check the digest of a response body, eg its SHA-256 hash. The body is read as a stream, so a body kept in a file is never copied onto
+ * the heap, and the body of a {@link com.github.restdriver.serverdriver.http.response.StreamingResponse} is digested as it arrives. The digest
+ * found while matching is kept for describing a mismatch, as a streamed body can only be read once.
+ */
+public final class HasBodyDigest extends TypeSafeMatcher<ReadableResponse> {
+    
+    private static final int BUFFER_SIZE = 65536;
+    
+    private final String algorithm;
+    private final Matcher<String> digestMatcher;
+    
+    private ReadableResponse lastItem;
+    private String lastDigest;
+    
+    /**
+     * Creates an instance of this matcher.
+     * 
+     * @param algorithm The name of the digest algorithm, eg "SHA-256"
+     * @param digestMatcher The matcher to be used to evaluate the digest, as a lower-case hex string
+     */
+    public HasBodyDigest(String algorithm, Matcher<String> digestMatcher) {
+        this.algorithm = algorithm;
+        this.digestMatcher = digestMatcher;
+    }
+    
+    @Override
+    protected boolean matchesSafely(ReadableResponse item) {
+        return digestMatcher.matches(digestOf(item));
+    }
+    
+    @Override
+    public void describeTo(Description description) {
+        description.appendText("Response with " + algorithm + " digest matching: ");
+        digestMatcher.describeTo(description);
+    }
+    
+    @Override
+    protected void describeMismatchSafely(ReadableResponse item, Description mismatchDescription) {
+        mismatchDescription.appendText("Response has " + algorithm + " digest: " + digestOf(item));
+    }
+    
+    private synchronized String digestOf(ReadableResponse item) {
+        if (item == lastItem) {
+            return lastDigest;
+        }
+        
+        InputStream body = item.asStream();
+        
+        try {
+            MessageDigest digest = MessageDigest.getInstance(algorithm);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            
+            while ((read = body.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            
+            lastItem = item;
+            lastDigest = Hex.encodeHexString(digest.digest());
+            return lastDigest;
+            
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException("Unknown digest algorithm: " + algorithm, e);
+            
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading response body", e);
+            
+        } finally {
+            IOUtils.closeQuietly(body);
+        }
+    }
+    
+}
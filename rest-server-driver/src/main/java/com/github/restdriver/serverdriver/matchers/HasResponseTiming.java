@@ -0,0 +1,66 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.matchers;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.TypeSafeMatcher;
+
+import com.github.restdriver.serverdriver.http.response.Response;
+import com.github.restdriver.serverdriver.http.response.ResponseTimings.Phase;
+
+/**
+ * Matcher to check how long a phase of an HTTP request took.
+ */
+public final class HasResponseTiming extends TypeSafeMatcher<Response> {
+    
+    private final Phase phase;
+    private final TimeUnit timeUnit;
+    private final Matcher<Long> timeMatcher;
+    
+    /**
+     * Creates an instance of this matcher.
+     * 
+     * @param phase The phase of the request to check
+     * @param timeMatcher The matcher to be used to evaluate the time taken by the phase
+     * @param timeUnit The unit in which the time is given to the matcher
+     */
+    public HasResponseTiming(Phase phase, Matcher<Long> timeMatcher, TimeUnit timeUnit) {
+        this.phase = phase;
+        this.timeMatcher = timeMatcher;
+        this.timeUnit = timeUnit;
+    }
+    
+    @Override
+    protected boolean matchesSafely(Response item) {
+        return timeMatcher.matches(item.getTimings().get(phase, timeUnit));
+    }
+    
+    @Override
+    public void describeTo(Description description) {
+        description.appendText("Response with " + phase + " time in " + timeUnit.toString().toLowerCase() + " matching: ");
+        timeMatcher.describeTo(description);
+    }
+    
+    @Override
+    protected void describeMismatchSafely(Response item, Description mismatchDescription) {
+        mismatchDescription.appendText("Response has " + phase + " time: " + item.getTimings().get(phase, timeUnit) + " "
+                + timeUnit.toString().toLowerCase());
+    }
+    
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.matchers;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.TypeSafeMatcher;
+
+import com.github.restdriver.serverdriver.http.response.StreamingResponse;
+
+/**
+ * Matcher to check the length of a streamed response body. The body is read to the end in small chunks, so it is never held in memory.
+ */
+public final class HasStreamedBodyLength extends TypeSafeMatcher<StreamingResponse> {
+    
+    private static final int BUFFER_SIZE = 8192;
+    
+    private final Matcher<Long> lengthMatcher;
+    
+    /**
+     * Creates an instance of this matcher.
+     * 
+     * @param lengthMatcher The matcher to be used to evaluate the number of bytes in the body
+     */
+    public HasStreamedBodyLength(Matcher<Long> lengthMatcher) {
+        this.lengthMatcher = lengthMatcher;
+    }
+    
+    @Override
+    protected boolean matchesSafely(StreamingResponse item) {
+        return lengthMatcher.matches(readToEnd(item));
+    }
+    
+    @Override
+    public void describeTo(Description description) {
+        description.appendText("Response with body length matching: ");
+        lengthMatcher.describeTo(description);
+    }
+    
+    @Override
+    protected void describeMismatchSafely(StreamingResponse item, Description mismatchDescription) {
+        mismatchDescription.appendText("Response has body length: " + readToEnd(item));
+    }
+    
+    private static long readToEnd(StreamingResponse item) {
+        InputStream body = item.asStream();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        
+        try {
+            while (body.read(buffer) != -1) {
+                // only the count is needed
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading response body", e);
+        }
+        
+        return item.getBytesRead();
+    }
+    
+}
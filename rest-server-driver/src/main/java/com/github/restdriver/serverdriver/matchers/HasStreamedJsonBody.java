@@ -0,0 +1,109 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.matchers;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.hamcrest.Description;
+import org.hamcrest.StringDescription;
+import org.hamcrest.TypeSafeMatcher;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.restdriver.matchers.JsonStreamCheck;
+import com.github.restdriver.serverdriver.http.exception.RuntimeMappingException;
+import com.github.restdriver.serverdriver.http.response.ReadableResponse;
+
+/**
+ * Matcher which makes a {@link JsonStreamCheck} against the body of a response. The body is read as a stream and is never built into a tree, so
+ * checks on very large bodies run in bounded memory.
+ * 
+ * <p>
+ * The body of a {@link com.github.restdriver.serverdriver.http.response.StreamingResponse} can only be read once, so the mismatch found while matching
+ * is kept for describing it afterwards.
+ * </p>
+ */
+public final class HasStreamedJsonBody extends TypeSafeMatcher<ReadableResponse> {
+    
+    private static final JsonFactory FACTORY = new ObjectMapper().getFactory();
+    
+    private final JsonStreamCheck check;
+    
+    private ReadableResponse lastItem;
+    private String lastMismatch;
+    
+    /**
+     * Creates an instance of this matcher.
+     * 
+     * @param check The check to make against the body
+     */
+    public HasStreamedJsonBody(JsonStreamCheck check) {
+        this.check = check;
+    }
+    
+    @Override
+    protected synchronized boolean matchesSafely(ReadableResponse item) {
+        Description mismatch = new StringDescription();
+        InputStream body = item.asStream();
+        JsonParser parser = null;
+        
+        try {
+            parser = FACTORY.createParser(body);
+            boolean matches = check.matches(parser, mismatch);
+            
+            lastItem = item;
+            lastMismatch = mismatch.toString();
+            return matches;
+            
+        } catch (IOException e) {
+            throw new RuntimeMappingException("Can't read JSON from response body", e);
+        } finally {
+            IOUtils.closeQuietly(parser);
+            IOUtils.closeQuietly(body);
+        }
+    }
+    
+    @Override
+    public void describeTo(Description description) {
+        description.appendText("Response with ");
+        check.describeTo(description);
+    }
+    
+    @Override
+    protected synchronized void describeMismatchSafely(ReadableResponse item, Description mismatchDescription) {
+        if (item == lastItem) {
+            mismatchDescription.appendText(lastMismatch);
+            return;
+        }
+        
+        InputStream body = item.asStream();
+        JsonParser parser = null;
+        
+        try {
+            parser = FACTORY.createParser(body);
+            check.describeMismatch(parser, mismatchDescription);
+        } catch (IOException e) {
+            throw new RuntimeMappingException("Can't read JSON from response body", e);
+        } finally {
+            IOUtils.closeQuietly(parser);
+            IOUtils.closeQuietly(body);
+        }
+    }
+    
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.acceptance;
+
+import static com.github.restdriver.clientdriver.RestClientDriver.*;
+import static com.github.restdriver.serverdriver.Matchers.*;
+import static com.github.restdriver.serverdriver.RestServerDriver.*;
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.github.restdriver.SocketUtil;
+import com.github.restdriver.clientdriver.ClientDriverRequest.Method;
+import com.github.restdriver.clientdriver.ClientDriverRule;
+import com.github.restdriver.serverdriver.http.exception.RuntimeConnectException;
+import com.github.restdriver.serverdriver.http.response.Response;
+
+public class AsyncAcceptanceTest {
+    
+    @Rule
+    public ClientDriverRule driver = new ClientDriverRule();
+    
+    private String baseUrl;
+    
+    @Before
+    public void getServerDetails() {
+        baseUrl = driver.getBaseUrl();
+    }
+    
+    @Test
+    public void getAsyncRetrievesStatusAndContent() throws Exception {
+        driver.addExpectation(onRequestTo("/"), giveResponse("Content", "text/plain"));
+        
+        Response response = getAsync(baseUrl).get(5, TimeUnit.SECONDS);
+        
+        assertThat(response, hasStatusCode(200));
+        assertThat(response.getContent(), is("Content"));
+    }
+    
+    @Test
+    public void manyRequestsCanBeInFlightAtOnce() throws Exception {
+        driver.addExpectation(onRequestTo("/slow"), giveResponse("Slow", "text/plain").after(200, TimeUnit.MILLISECONDS)).times(10);
+        
+        List<CompletableFuture<Response>> futures = new ArrayList<CompletableFuture<Response>>();
+        
+        for (int i = 0; i < 10; i++) {
+            futures.add(getAsync(baseUrl + "/slow"));
+        }
+        
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        
+        for (CompletableFuture<Response> future : futures) {
+            assertThat(future.get(), hasResponseBody(is("Slow")));
+        }
+    }
+    
+    @Test
+    public void modifiersAreAppliedToAsyncRequests() throws Exception {
+        driver.addExpectation(
+                onRequestTo("/").withMethod(Method.PUT).withHeader("Accept", "Nothing").withBody("BODY", "text/plain"),
+                giveEmptyResponse().withStatus(418));
+        
+        Response response = putAsync(baseUrl, header("Accept", "Nothing"), body("BODY", "text/plain"), withTimeout(5, TimeUnit.SECONDS))
+                .get(5, TimeUnit.SECONDS);
+        
+        assertThat(response, hasStatusCode(418));
+    }
+    
+    @Test
+    public void asyncResultsCanBeComposed() throws Exception {
+        driver.addExpectation(onRequestTo("/first"), giveResponse("/second", "text/plain"));
+        driver.addExpectation(onRequestTo("/second").withMethod(Method.POST), giveResponse("Done", "text/plain"));
+        
+        Response response = getAsync(baseUrl + "/first")
+                .thenCompose(new Function<Response, CompletableFuture<Response>>() {
+                    @Override
+                    public CompletableFuture<Response> apply(Response first) {
+                        return postAsync(baseUrl + first.getContent());
+                    }
+                })
+                .get(5, TimeUnit.SECONDS);
+        
+        assertThat(response.getContent(), is("Done"));
+    }
+    
+    @Test
+    public void failureCompletesTheFutureExceptionally() throws IOException, InterruptedException {
+        CompletableFuture<Response> future = getAsync("http://localhost:" + SocketUtil.getFreePort());
+        
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(RuntimeConnectException.class));
+            return;
+        }
+        
+        throw new AssertionError("Expected request to fail");
+    }
+    
+}
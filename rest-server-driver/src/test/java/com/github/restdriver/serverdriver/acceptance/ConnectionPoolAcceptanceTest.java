@@ -0,0 +1,121 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.acceptance;
+
+import static com.github.restdriver.clientdriver.RestClientDriver.*;
+import static com.github.restdriver.serverdriver.Matchers.*;
+import static com.github.restdriver.serverdriver.RestServerDriver.*;
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.github.restdriver.clientdriver.ClientDriverRule;
+import com.github.restdriver.serverdriver.RestServerDriver;
+import com.github.restdriver.serverdriver.http.HttpConnectionPool;
+import com.github.restdriver.serverdriver.http.response.Response;
+
+public class ConnectionPoolAcceptanceTest {
+    
+    @Rule
+    public ClientDriverRule driver = new ClientDriverRule();
+    
+    private String baseUrl;
+    
+    @Before
+    public void getServerDetails() {
+        baseUrl = driver.getBaseUrl();
+        setConnectionPool(new HttpConnectionPool(10, 2, 30, TimeUnit.SECONDS));
+    }
+    
+    @After
+    public void closePool() {
+        closeConnectionPool();
+    }
+    
+    @Test
+    public void sequentialRequestsReuseASingleConnection() {
+        driver.addExpectation(onRequestTo("/"), giveResponse("Content", "text/plain")).times(3);
+        
+        get(baseUrl);
+        get(baseUrl);
+        Response response = get(baseUrl);
+        
+        assertThat(response, hasStatusCode(200));
+        assertThat(getConnectionPool().getLeasedConnections(), is(0));
+        assertThat(getConnectionPool().getAvailableConnections(), is(1));
+    }
+    
+    @Test
+    public void resettingThePoolClosesIdleConnections() {
+        driver.addExpectation(onRequestTo("/"), giveEmptyResponse()).times(2);
+        
+        get(baseUrl);
+        resetConnectionPool();
+        
+        assertThat(getConnectionPool().getAvailableConnections(), is(0));
+        
+        Response response = get(baseUrl);
+        
+        assertThat(response, hasStatusCode(204));
+    }
+    
+    @Test
+    public void requestsCanBeMadeAfterThePoolIsClosed() {
+        driver.addExpectation(onRequestTo("/"), giveEmptyResponse()).times(2);
+        
+        get(baseUrl);
+        closeConnectionPool();
+        Response response = get(baseUrl);
+        
+        assertThat(response, hasStatusCode(204));
+    }
+    
+    @Test
+    public void poolCanBeUsedAfterItIsClosed() {
+        driver.addExpectation(onRequestTo("/"), giveEmptyResponse()).times(2);
+        
+        HttpConnectionPool pool = RestServerDriver.getConnectionPool();
+        get(baseUrl);
+        pool.close();
+        
+        assertThat(pool.getAvailableConnections(), is(0));
+        
+        Response response = get(baseUrl);
+        
+        assertThat(response, hasStatusCode(204));
+        assertThat(pool.getAvailableConnections(), is(1));
+    }
+    
+    @Test
+    public void perRouteLimitCanBeOverridden() {
+        HttpConnectionPool pool = RestServerDriver.getConnectionPool();
+        pool.setMaxConnections("localhost", driver.getPort(), 1);
+        driver.addExpectation(onRequestTo("/"), giveEmptyResponse()).times(2);
+        
+        get(baseUrl);
+        Response response = get(baseUrl);
+        
+        assertThat(response, hasStatusCode(204));
+        assertThat(pool.getAvailableConnections(), is(1));
+    }
+    
+}
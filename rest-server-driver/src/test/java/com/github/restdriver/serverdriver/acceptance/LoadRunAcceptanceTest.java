@@ -0,0 +1,101 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.acceptance;
+
+import static com.github.restdriver.clientdriver.RestClientDriver.*;
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.github.restdriver.SocketUtil;
+import com.github.restdriver.clientdriver.ClientDriverRule;
+import com.github.restdriver.serverdriver.load.LoadReport;
+import com.github.restdriver.serverdriver.load.LoadRun;
+
+public class LoadRunAcceptanceTest {
+    
+    @Rule
+    public ClientDriverRule driver = new ClientDriverRule();
+    
+    private String baseUrl;
+    
+    @Before
+    public void getServerDetails() {
+        baseUrl = driver.getBaseUrl();
+    }
+    
+    @Test
+    public void loadRunAtFixedRateSendsExpectedNumberOfRequests() {
+        driver.addExpectation(onRequestTo("/"), giveResponse("Content", "text/plain")).anyTimes();
+        
+        LoadReport report = LoadRun.of("GET", baseUrl)
+                .withConcurrency(2)
+                .atRate(100, TimeUnit.SECONDS)
+                .forDuration(500, TimeUnit.MILLISECONDS)
+                .run();
+        
+        assertThat(report.getRequestCount(), is(50L));
+        assertThat(report.getStatusCodeCounts().get(200), is(50L));
+        assertThat(report.getErrorCount(), is(0L));
+        assertThat(report.getThroughput(), greaterThan(0.0));
+    }
+    
+    @Test
+    public void errorsAreCountedByStatusCode() {
+        driver.addExpectation(onRequestTo("/"), giveEmptyResponse().withStatus(503)).anyTimes();
+        
+        LoadReport report = LoadRun.of("GET", baseUrl)
+                .forDuration(200, TimeUnit.MILLISECONDS)
+                .run();
+        
+        assertThat(report.getRequestCount(), greaterThan(0L));
+        assertThat(report.getStatusCodeCounts().get(503), is(report.getRequestCount()));
+        assertThat(report.getErrorCount(), is(report.getRequestCount()));
+    }
+    
+    @Test
+    public void failedRequestsAreCountedAsExceptions() throws IOException {
+        LoadReport report = LoadRun.of("GET", "http://localhost:" + SocketUtil.getFreePort())
+                .atRate(50, TimeUnit.SECONDS)
+                .forDuration(100, TimeUnit.MILLISECONDS)
+                .run();
+        
+        assertThat(report.getExceptionCount(), is(5L));
+        assertThat(report.getStatusCodeCounts().isEmpty(), is(true));
+    }
+    
+    @Test
+    public void latencyIncludesTimeSpentWaitingBehindSlowRequests() {
+        driver.addExpectation(onRequestTo("/"), giveEmptyResponse().after(50, TimeUnit.MILLISECONDS)).anyTimes();
+        
+        LoadReport report = LoadRun.of("GET", baseUrl)
+                .atRate(100, TimeUnit.SECONDS)
+                .forDuration(200, TimeUnit.MILLISECONDS)
+                .run();
+        
+        long maxServiceTime = TimeUnit.NANOSECONDS.toMillis(report.getServiceTimeHistogram().getMaxValue());
+        
+        assertThat(report.getMaxLatency(TimeUnit.MILLISECONDS), greaterThan(maxServiceTime + 200));
+        assertThat(report.getLatencyAtPercentile(50, TimeUnit.MILLISECONDS), greaterThan(200L));
+    }
+    
+}
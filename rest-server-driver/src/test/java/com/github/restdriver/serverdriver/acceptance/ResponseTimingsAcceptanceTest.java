@@ -0,0 +1,91 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.acceptance;
+
+import static com.github.restdriver.clientdriver.RestClientDriver.*;
+import static com.github.restdriver.serverdriver.Matchers.*;
+import static com.github.restdriver.serverdriver.RestServerDriver.*;
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.github.restdriver.clientdriver.ClientDriverRule;
+import com.github.restdriver.serverdriver.http.response.Response;
+import com.github.restdriver.serverdriver.http.response.ResponseTimings;
+
+public class ResponseTimingsAcceptanceTest {
+    
+    @Rule
+    public ClientDriverRule driver = new ClientDriverRule();
+    
+    private String baseUrl;
+    
+    @Before
+    public void getServerDetails() {
+        baseUrl = driver.getBaseUrl();
+    }
+    
+    @Test
+    public void firstRequestToAHostIncludesConnectTime() {
+        resetConnectionPool();
+        driver.addExpectation(onRequestTo("/"), giveResponse("Content", "text/plain"));
+        
+        Response response = get(baseUrl);
+        
+        assertThat(response, hasConnectTime(greaterThan(0L), TimeUnit.NANOSECONDS));
+        assertThat(response, hasTlsHandshakeTime(is(0L), TimeUnit.NANOSECONDS));
+    }
+    
+    @Test
+    public void reusedConnectionHasNoConnectTime() {
+        driver.addExpectation(onRequestTo("/"), giveResponse("Content", "text/plain")).times(2);
+        
+        get(baseUrl);
+        Response response = get(baseUrl);
+        
+        assertThat(response, hasDnsResolutionTime(is(0L), TimeUnit.NANOSECONDS));
+        assertThat(response, hasConnectTime(is(0L), TimeUnit.NANOSECONDS));
+    }
+    
+    @Test
+    public void timeToFirstByteIncludesServerDelay() {
+        driver.addExpectation(onRequestTo("/"), giveResponse("Content", "text/plain").after(100, TimeUnit.MILLISECONDS));
+        
+        Response response = get(baseUrl);
+        
+        assertThat(response, hasTimeToFirstByte(greaterThanOrEqualTo(100L), TimeUnit.MILLISECONDS));
+        assertThat(response, hasTotalTime(greaterThanOrEqualTo(100L), TimeUnit.MILLISECONDS));
+    }
+    
+    @Test
+    public void phasesAddUpToNoMoreThanTheTotal() {
+        driver.addExpectation(onRequestTo("/"), giveResponse("Content", "text/plain"));
+        
+        ResponseTimings timings = get(baseUrl).getTimings();
+        
+        long phases = timings.getDnsResolution() + timings.getConnect() + timings.getTlsHandshake() + timings.getTimeToFirstByte()
+                + timings.getBodyTransfer();
+        
+        assertThat(phases, lessThanOrEqualTo(timings.getTotal()));
+        assertThat(timings.getBodyTransfer(), greaterThan(0L));
+    }
+    
+}
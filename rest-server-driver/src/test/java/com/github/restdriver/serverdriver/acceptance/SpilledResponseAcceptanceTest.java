@@ -0,0 +1,72 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.acceptance;
+
+import static com.github.restdriver.clientdriver.RestClientDriver.*;
+import static com.github.restdriver.serverdriver.Matchers.*;
+import static com.github.restdriver.serverdriver.RestServerDriver.*;
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.io.IOException;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.github.restdriver.clientdriver.ClientDriverRule;
+import com.github.restdriver.serverdriver.http.response.DefaultResponse;
+import com.github.restdriver.serverdriver.http.response.Response;
+
+public class SpilledResponseAcceptanceTest {
+    
+    private static final String LARGE_BODY = StringUtils.repeat("0123456789", 100000);
+    
+    @Rule
+    public ClientDriverRule driver = new ClientDriverRule();
+    
+    @After
+    public void keepBodiesInMemory() {
+        setResponseSpillThreshold(DefaultResponse.NEVER_SPILL);
+    }
+    
+    @Test
+    public void largeBodyCanBeReadFromAFile() throws IOException {
+        setResponseSpillThreshold(1024);
+        driver.addExpectation(onRequestTo("/"), giveResponse(LARGE_BODY, "text/plain"));
+        
+        Response response = get(driver.getBaseUrl());
+        
+        assertThat(response.getContentLength(), is((long) LARGE_BODY.length()));
+        assertThat(IOUtils.toString(response.asStream(), "UTF-8"), is(LARGE_BODY));
+        assertThat(response, hasBodyDigest("SHA-256", is(DigestUtils.sha256Hex(LARGE_BODY))));
+    }
+    
+    @Test
+    public void smallBodyIsUnaffectedByTheThreshold() {
+        setResponseSpillThreshold(1024);
+        driver.addExpectation(onRequestTo("/"), giveResponse("Content", "text/plain"));
+        
+        Response response = get(driver.getBaseUrl());
+        
+        assertThat(response.asText(), is("Content"));
+        assertThat(response, hasBodyDigest("MD5", is(DigestUtils.md5Hex("Content"))));
+    }
+    
+}
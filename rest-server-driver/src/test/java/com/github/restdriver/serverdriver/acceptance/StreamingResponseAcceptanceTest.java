@@ -0,0 +1,180 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.acceptance;
+
+import static com.github.restdriver.clientdriver.RestClientDriver.*;
+import static com.github.restdriver.matchers.JsonStreamCheck.*;
+import static com.github.restdriver.serverdriver.Matchers.*;
+import static com.github.restdriver.serverdriver.RestServerDriver.*;
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.github.restdriver.clientdriver.ClientDriverRequest.Method;
+import com.github.restdriver.clientdriver.ClientDriverRule;
+import com.github.restdriver.serverdriver.http.HttpConnectionPool;
+import com.github.restdriver.serverdriver.http.response.StreamingResponse;
+
+public class StreamingResponseAcceptanceTest {
+    
+    private static final String LARGE_BODY = StringUtils.repeat("0123456789", 100000);
+    
+    @Rule
+    public ClientDriverRule driver = new ClientDriverRule();
+    
+    private String baseUrl;
+    
+    @Before
+    public void getServerDetails() {
+        baseUrl = driver.getBaseUrl();
+        setConnectionPool(new HttpConnectionPool(10, 2, 30, TimeUnit.SECONDS));
+    }
+    
+    @After
+    public void closePool() {
+        closeConnectionPool();
+    }
+    
+    @Test
+    public void statusAndHeadersAreAvailableBeforeTheBodyIsRead() {
+        driver.addExpectation(onRequestTo("/"), giveResponse(LARGE_BODY, "text/plain").withHeader("X-Foo", "bar"));
+        
+        StreamingResponse response = getStream(baseUrl);
+        
+        try {
+            assertThat(response.getStatusCode(), is(200));
+            assertThat(response.getHeader("X-Foo").getValue(), is("bar"));
+            assertThat(response.getBytesRead(), is(0L));
+        } finally {
+            response.close();
+        }
+    }
+    
+    @Test
+    public void bodyCanBeReadAsAStream() throws IOException {
+        driver.addExpectation(onRequestTo("/"), giveResponse(LARGE_BODY, "text/plain"));
+        
+        StreamingResponse response = getStream(baseUrl);
+        
+        try {
+            assertThat(IOUtils.toString(response.asStream(), "UTF-8"), is(LARGE_BODY));
+        } finally {
+            response.close();
+        }
+    }
+    
+    @Test
+    public void bodyCanBeReadAsAChannel() throws IOException {
+        driver.addExpectation(onRequestTo("/"), giveResponse(LARGE_BODY, "text/plain"));
+        
+        StreamingResponse response = getStream(baseUrl);
+        ReadableByteChannel channel = response.asChannel();
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long total = 0;
+        int read;
+        
+        try {
+            while ((read = channel.read(buffer)) != -1) {
+                total += read;
+                buffer.clear();
+            }
+        } finally {
+            response.close();
+        }
+        
+        assertThat(total, is((long) LARGE_BODY.length()));
+    }
+    
+    @Test
+    public void closingAFullyReadResponseReturnsTheConnectionToThePool() {
+        driver.addExpectation(onRequestTo("/"), giveResponse(LARGE_BODY, "text/plain"));
+        
+        StreamingResponse response = getStream(baseUrl);
+        
+        assertThat(getConnectionPool().getLeasedConnections(), is(1));
+        assertThat(response, hasStreamedBodyLength(is((long) LARGE_BODY.length())));
+        
+        response.close();
+        
+        assertThat(getConnectionPool().getLeasedConnections(), is(0));
+        assertThat(getConnectionPool().getAvailableConnections(), is(1));
+    }
+    
+    @Test
+    public void closingAPartlyReadResponseDiscardsTheConnection() throws IOException {
+        driver.addExpectation(onRequestTo("/"), giveResponse(LARGE_BODY, "text/plain"));
+        
+        StreamingResponse response = getStream(baseUrl);
+        response.asStream().read(new byte[10]);
+        response.close();
+        
+        assertThat(getConnectionPool().getLeasedConnections(), is(0));
+        assertThat(getConnectionPool().getAvailableConnections(), is(0));
+    }
+    
+    @Test
+    public void bodyDigestIsTakenFromTheStream() {
+        driver.addExpectation(onRequestTo("/"), giveResponse(LARGE_BODY, "text/plain"));
+        
+        StreamingResponse response = getStream(baseUrl);
+        
+        try {
+            assertThat(response, hasBodyDigest("SHA-256", is(DigestUtils.sha256Hex(LARGE_BODY))));
+        } finally {
+            response.close();
+        }
+    }
+    
+    @Test
+    public void jsonIsCheckedFromTheStream() {
+        driver.addExpectation(onRequestTo("/"), giveResponse("{\"name\": \"Jeff\"}", "application/json"));
+        
+        StreamingResponse response = getStream(baseUrl);
+        
+        try {
+            assertThat(response, hasStreamedJsonBody(jsonValueAt("name", is("Jeff"))));
+        } finally {
+            response.close();
+        }
+    }
+    
+    @Test
+    public void methodStreamUsesTheGivenMethod() {
+        driver.addExpectation(onRequestTo("/").withMethod(Method.custom("FOO")), giveEmptyResponse());
+        
+        StreamingResponse response = methodStream("FOO", baseUrl);
+        
+        try {
+            assertThat(response.getStatusCode(), is(204));
+            assertThat(response, hasStreamedBodyLength(is(0L)));
+        } finally {
+            response.close();
+        }
+    }
+    
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.acceptance;
+
+import static com.github.restdriver.clientdriver.RestClientDriver.*;
+import static com.github.restdriver.serverdriver.Matchers.*;
+import static com.github.restdriver.serverdriver.RestServerDriver.*;
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assume.*;
+
+import java.io.File;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.restdriver.UnixDomainSockets;
+import com.github.restdriver.clientdriver.ClientDriver;
+import com.github.restdriver.clientdriver.ClientDriverFactory;
+import com.github.restdriver.clientdriver.ClientDriverRequest.Method;
+import com.github.restdriver.serverdriver.http.exception.RuntimeClientProtocolException;
+import com.github.restdriver.serverdriver.http.response.Response;
+
+public class UnixSocketAcceptanceTest {
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    private ClientDriver driver;
+    private File socketFile;
+    
+    @Before
+    public void startDriverOnUnixSocket() {
+        assumeTrue(UnixDomainSockets.isSupported());
+        
+        socketFile = new File(folder.getRoot(), "driver.sock");
+        driver = new ClientDriverFactory().unixSocket(socketFile).build();
+    }
+    
+    @After
+    public void shutDownDriver() {
+        closeConnectionPool();
+        
+        if (driver != null) {
+            driver.shutdown();
+        }
+    }
+    
+    @Test
+    public void requestsAreSentThroughUnixSocket() {
+        driver.addExpectation(onRequestTo("/things").withMethod(Method.GET), giveResponse("Content", "text/plain")).times(2);
+        driver.addExpectation(onRequestTo("/things").withMethod(Method.POST).withBody("thing", "text/plain"), giveEmptyResponse().withStatus(201));
+        
+        Response first = get(driver.getBaseUrl() + "/things", viaUnixSocket(socketFile));
+        Response second = get(driver.getBaseUrl() + "/things", viaUnixSocket(socketFile));
+        Response created = post(driver.getBaseUrl() + "/things", body("thing", "text/plain"), viaUnixSocket(socketFile));
+        
+        assertThat(first, hasStatusCode(200));
+        assertThat(first.asText(), is("Content"));
+        assertThat(second.asText(), is("Content"));
+        assertThat(created, hasStatusCode(201));
+    }
+    
+    @Test
+    public void socketTimeoutIsHonoured() {
+        driver.addExpectation(onRequestTo("/slow"), giveEmptyResponse().after(2, TimeUnit.SECONDS));
+        
+        try {
+            get(driver.getBaseUrl() + "/slow", viaUnixSocket(socketFile), withSocketTimeout(200, TimeUnit.MILLISECONDS));
+        } catch (RuntimeException e) {
+            assertThat(e.getCause(), instanceOf(SocketTimeoutException.class));
+            driver.reset();
+            return;
+        }
+        
+        throw new AssertionError("Request should have timed out");
+    }
+    
+    @Test
+    public void asynchronousRequestsAreRefused() throws InterruptedException {
+        try {
+            getAsync(driver.getBaseUrl(), viaUnixSocket(socketFile)).get();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(RuntimeClientProtocolException.class));
+            return;
+        }
+        
+        throw new AssertionError("Asynchronous request should have been refused");
+    }
+    
+}
@@ -232,6 +232,93 @@ public class DefaultResponseTest {
         assertThat(response.asText(), is("Jeff"));
     }
     
+    @Test
+    public void contentIsNotDecodedUntilItIsAskedFor() throws Exception {
+        
+        byte[] bytes = new byte[] { 1, 2, 3, 4 };
+        
+        Header mockContentEncodingHeader = mock(Header.class);
+        when(mockContentEncodingHeader.getValue()).thenReturn("not-a-real-charset");
+        
+        HttpEntity mockEntity = mock(HttpEntity.class);
+        when(mockEntity.getContentEncoding()).thenReturn(mockContentEncodingHeader);
+        when(mockEntity.getContent()).thenReturn(new ByteArrayInputStream(bytes));
+        HttpResponse mockResponse = createMockResponse(mockEntity);
+        
+        Response response = new DefaultResponse(mockResponse, 12345);
+        
+        assertThat(response.getStatusCode(), is(200));
+        assertThat(response.asBytes(), is(bytes));
+    }
+    
+    @Test
+    public void contentIsOnlyDecodedOnce() throws Exception {
+        
+        HttpEntity mockEntity = mock(HttpEntity.class);
+        when(mockEntity.getContent()).thenReturn(IOUtils.toInputStream("Jeff", "UTF-8"));
+        HttpResponse mockResponse = createMockResponse(mockEntity);
+        
+        Response response = new DefaultResponse(mockResponse, 12345);
+        
+        assertThat(response.asText(), is(sameInstance(response.getContent())));
+    }
+    
+    @Test
+    public void asJsonIsOnlyParsedOnce() throws IOException {
+        
+        HttpEntity mockEntity = mock(HttpEntity.class);
+        when(mockEntity.getContent()).thenReturn(IOUtils.toInputStream("{\"name\":\"Jeff\"}", "utf-8"));
+        HttpResponse mockResponse = createMockResponse(mockEntity);
+        Response response = new DefaultResponse(mockResponse, 12345);
+        
+        assertThat(response.asJson().get("name").asText(), is("Jeff"));
+        assertThat(response.asJson(), is(sameInstance(response.asJson())));
+    }
+    
+    @Test
+    public void asXmlIsOnlyParsedOnce() throws IOException {
+        
+        HttpEntity mockEntity = mock(HttpEntity.class);
+        when(mockEntity.getContent()).thenReturn(IOUtils.toInputStream("<name>Jeff</name>", "utf-8"));
+        HttpResponse mockResponse = createMockResponse(mockEntity);
+        Response response = new DefaultResponse(mockResponse, 12345);
+        
+        assertThat(response.asXml().getTextContent(), is("Jeff"));
+        assertThat(response.asXml(), is(sameInstance(response.asXml())));
+    }
+    
+    @Test
+    public void bodyOverTheSpillThresholdIsKeptInAFile() throws IOException {
+        
+        byte[] bytes = "Jeff and friends".getBytes("UTF-8");
+        
+        HttpEntity mockEntity = mock(HttpEntity.class);
+        when(mockEntity.getContent()).thenReturn(new ByteArrayInputStream(bytes));
+        HttpResponse mockResponse = createMockResponse(mockEntity);
+        
+        Response response = new DefaultResponse(mockResponse, 12345, null, 4);
+        
+        assertThat(response.getContentLength(), is((long) bytes.length));
+        assertThat(response.asBytes(), is(bytes));
+        assertThat(IOUtils.toByteArray(response.asStream()), is(bytes));
+        assertThat(response.getContent(), is("Jeff and friends"));
+    }
+    
+    @Test
+    public void bodyUnderTheSpillThresholdIsKeptInMemory() throws IOException {
+        
+        byte[] bytes = new byte[] { 1, 2, 3, 4 };
+        
+        HttpEntity mockEntity = mock(HttpEntity.class);
+        when(mockEntity.getContent()).thenReturn(new ByteArrayInputStream(bytes));
+        HttpResponse mockResponse = createMockResponse(mockEntity);
+        
+        Response response = new DefaultResponse(mockResponse, 12345, null, 4);
+        
+        assertThat(response.asBytes(), is(sameInstance(response.asBytes())));
+        assertThat(IOUtils.toByteArray(response.asStream()), is(bytes));
+    }
+    
     @Test
     public void asJsonErrorGivesClearMessage() throws IOException {
         
@@ -0,0 +1,99 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.matchers;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+
+import org.hamcrest.Description;
+import org.hamcrest.StringDescription;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.restdriver.serverdriver.http.response.ReadableResponse;
+import com.github.restdriver.serverdriver.http.response.Response;
+
+public class HasBodyDigestTest {
+    
+    private static final String MD5_OF_HELLO = "5d41402abc4b2a76b9719d911017c592";
+    
+    private Response response;
+    private HasBodyDigest matcher;
+    
+    @Before
+    public void before() {
+        response = mock(Response.class);
+        when(response.asStream()).thenReturn(new ByteArrayInputStream("hello".getBytes()), new ByteArrayInputStream("hello".getBytes()));
+        matcher = new HasBodyDigest("MD5", is(MD5_OF_HELLO));
+    }
+    
+    @Test
+    public void matchesCorrectly() {
+        
+        assertThat(matcher.matches(response), is(true));
+        
+        matcher = new HasBodyDigest("MD5", is("0123456789abcdef0123456789abcdef"));
+        assertThat(matcher.matches(response), is(false));
+        
+    }
+    
+    @Test
+    public void descriptionIsSufficient() {
+        
+        Description description = new StringDescription();
+        
+        matcher.describeTo(description);
+        
+        assertThat(description.toString(), is("Response with MD5 digest matching: is \"" + MD5_OF_HELLO + "\""));
+        
+    }
+    
+    @Test
+    public void mismatchResponseDescribesCorrectly() {
+        
+        Description description = new StringDescription();
+        
+        matcher.describeMismatchSafely(response, description);
+        
+        assertThat(description.toString(), is("Response has MD5 digest: " + MD5_OF_HELLO));
+        
+    }
+    
+    @Test
+    public void mismatchIsDescribedWithoutReadingTheBodyAgain() {
+        
+        ReadableResponse streamed = mock(ReadableResponse.class);
+        when(streamed.asStream()).thenReturn(new ByteArrayInputStream("hello".getBytes()));
+        matcher = new HasBodyDigest("MD5", is("0123456789abcdef0123456789abcdef"));
+        Description description = new StringDescription();
+        
+        assertThat(matcher.matches(streamed), is(false));
+        matcher.describeMismatch(streamed, description);
+        
+        assertThat(description.toString(), is("Response has MD5 digest: " + MD5_OF_HELLO));
+        verify(streamed, times(1)).asStream();
+        
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownAlgorithmIsRejected() {
+        new HasBodyDigest("NOT-A-DIGEST", is(MD5_OF_HELLO)).matches(response);
+    }
+    
+}
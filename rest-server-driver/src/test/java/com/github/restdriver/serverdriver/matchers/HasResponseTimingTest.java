@@ -0,0 +1,85 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.matchers;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hamcrest.Description;
+import org.hamcrest.StringDescription;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.restdriver.serverdriver.http.response.Response;
+import com.github.restdriver.serverdriver.http.response.ResponseTimings;
+import com.github.restdriver.serverdriver.http.response.ResponseTimings.Phase;
+
+public class HasResponseTimingTest {
+    
+    private Response response;
+    private HasResponseTiming matcher;
+    
+    @Before
+    public void before() {
+        response = mock(Response.class);
+        when(response.getTimings()).thenReturn(new ResponseTimings(1000000, 2000000, 3000000, 4000000, 5000000, 15000000));
+        matcher = new HasResponseTiming(Phase.CONNECT, lessThan(5L), TimeUnit.MILLISECONDS);
+    }
+    
+    @Test
+    public void matchesCorrectly() {
+        
+        assertThat(matcher.matches(response), is(true));
+        
+        when(response.getTimings()).thenReturn(new ResponseTimings(0, 6000000, 0, 0, 0, 6000000));
+        assertThat(matcher.matches(response), is(false));
+        
+    }
+    
+    @Test
+    public void matcherUsesRequestedPhaseAndUnit() {
+        
+        matcher = new HasResponseTiming(Phase.BODY_TRANSFER, is(5000L), TimeUnit.MICROSECONDS);
+        assertThat(matcher.matches(response), is(true));
+        
+    }
+    
+    @Test
+    public void descriptionIsSufficient() {
+        
+        Description description = new StringDescription();
+        
+        matcher.describeTo(description);
+        
+        assertThat(description.toString(), is("Response with connect time in milliseconds matching: a value less than <5L>"));
+        
+    }
+    
+    @Test
+    public void mismatchResponseDescribesCorrectly() {
+        
+        Description description = new StringDescription();
+        
+        matcher.describeMismatchSafely(response, description);
+        
+        assertThat(description.toString(), is("Response has connect time: 2 milliseconds"));
+        
+    }
+    
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.matchers;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicStatusLine;
+import org.hamcrest.Description;
+import org.hamcrest.StringDescription;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.restdriver.serverdriver.http.response.ResponseTimings;
+import com.github.restdriver.serverdriver.http.response.StreamingResponse;
+
+public class HasStreamedBodyLengthTest {
+    
+    private HasStreamedBodyLength matcher;
+    
+    @Before
+    public void before() {
+        matcher = new HasStreamedBodyLength(is(5L));
+    }
+    
+    @Test
+    public void matchesCorrectly() {
+        
+        assertThat(matcher.matches(responseWithBody("12345")), is(true));
+        assertThat(matcher.matches(responseWithBody("1234")), is(false));
+        
+    }
+    
+    @Test
+    public void descriptionIsSufficient() {
+        
+        Description description = new StringDescription();
+        
+        matcher.describeTo(description);
+        
+        assertThat(description.toString(), is("Response with body length matching: is <5L>"));
+        
+    }
+    
+    @Test
+    public void mismatchResponseDescribesCorrectlyAfterMatching() {
+        
+        StreamingResponse response = responseWithBody("123");
+        Description description = new StringDescription();
+        
+        matcher.matches(response);
+        matcher.describeMismatchSafely(response, description);
+        
+        assertThat(description.toString(), is("Response has body length: 3"));
+        
+    }
+    
+    private static StreamingResponse responseWithBody(String body) {
+        CloseableHttpResponse response = mock(CloseableHttpResponse.class);
+        when(response.getStatusLine()).thenReturn(new BasicStatusLine(HttpVersion.HTTP_1_1, 200, "OK"));
+        when(response.getAllHeaders()).thenReturn(new org.apache.http.Header[0]);
+        when(response.getEntity()).thenReturn(new ByteArrayEntity(body.getBytes()));
+        return new StreamingResponse(response, 0, new ResponseTimings(0, 0, 0, 0, 0, 0));
+    }
+    
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright © 2010-2011 Nokia
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.restdriver.serverdriver.matchers;
+
+import static com.github.restdriver.matchers.JsonStreamCheck.*;
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import org.hamcrest.Description;
+import org.hamcrest.StringDescription;
+import org.junit.Test;
+
+import com.github.restdriver.serverdriver.http.exception.RuntimeMappingException;
+import com.github.restdriver.serverdriver.http.response.ReadableResponse;
+import com.github.restdriver.serverdriver.http.response.Response;
+
+public class HasStreamedJsonBodyTest {
+    
+    private static final String JSON = "{\"name\": \"Jeff\", \"friends\": [\"Bob\", \"Sue\"]}";
+    
+    @Test
+    public void matchesCorrectly() {
+        
+        assertThat(new HasStreamedJsonBody(jsonValueAt("name", is("Jeff"))).matches(responseWithBody(JSON)), is(true));
+        assertThat(new HasStreamedJsonBody(jsonArraySize("friends", is(3))).matches(responseWithBody(JSON)), is(false));
+        
+    }
+    
+    @Test
+    public void descriptionIsSufficient() {
+        
+        Description description = new StringDescription();
+        
+        new HasStreamedJsonBody(jsonArraySize("friends", is(3))).describeTo(description);
+        
+        assertThat(description.toString(), is("Response with JSON with array at 'friends' of size matching: is <3>"));
+        
+    }
+    
+    @Test
+    public void mismatchResponseDescribesCorrectly() {
+        
+        Description description = new StringDescription();
+        
+        new HasStreamedJsonBody(jsonArraySize("friends", is(3))).describeMismatchSafely(responseWithBody(JSON), description);
+        
+        assertThat(description.toString(), is("array at 'friends' had size 2"));
+        
+    }
+    
+    @Test
+    public void mismatchIsDescribedWithoutReadingTheBodyAgain() {
+        
+        HasStreamedJsonBody matcher = new HasStreamedJsonBody(jsonArraySize("friends", is(3)));
+        ReadableResponse response = mock(ReadableResponse.class);
+        when(response.asStream()).thenReturn(new ByteArrayInputStream(JSON.getBytes()));
+        Description description = new StringDescription();
+        
+        assertThat(matcher.matches(response), is(false));
+        matcher.describeMismatch(response, description);
+        
+        assertThat(description.toString(), is("array at 'friends' had size 2"));
+        verify(response, times(1)).asStream();
+        
+    }
+    
+    @Test(expected = RuntimeMappingException.class)
+    public void invalidJsonThrowsException() {
+        new HasStreamedJsonBody(jsonValueAt("name", is("Jeff"))).matches(responseWithBody("{name"));
+    }
+    
+    private static Response responseWithBody(String body) {
+        Response response = mock(Response.class);
+        InputStream stream = new ByteArrayInputStream(body.getBytes());
+        when(response.asStream()).thenReturn(stream);
+        return response;
+    }
+    
+}